@@ -0,0 +1,40 @@
+package org.example.springjdbc.bench;
+
+import org.example.springjdbc.SpringJdbcApplication;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.stream.Stream;
+
+/**
+ * Boots the application with the embedded profile on a private in-memory H2 database, so
+ * database-bound benchmarks need no external server.
+ */
+public final class BenchContext {
+    private BenchContext() {
+    }
+
+    public static ConfigurableApplicationContext start(String databaseName) {
+        return start(databaseName, new String[0]);
+    }
+
+    /**
+     * Extra command-line arguments are passed on as is, after the database settings.
+     */
+    public static ConfigurableApplicationContext start(String databaseName, String... args) {
+        return new SpringApplicationBuilder(SpringJdbcApplication.class)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .profiles("embedded")
+                // command-line arguments, so they take precedence over application-embedded.yaml
+                .run(Stream.concat(
+                        Stream.of(
+                                "--spring.datasource.url=jdbc:h2:mem:" + databaseName
+                                        + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                                "--logging.level.root=WARN"
+                        ),
+                        Stream.of(args)
+                ).toArray(String[]::new));
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.springjdbc.bench;
+
+import org.example.springjdbc.model.Author;
+import org.example.springjdbc.model.Library;
+import org.example.springjdbc.model.LibraryInfo;
+import org.example.springjdbc.repository.declaration.AuthorRepository;
+import org.example.springjdbc.repository.declaration.LibraryRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-row create loop against batched createAll. Absolute numbers are H2's; the ratio is what
+ * carries over, and it widens considerably on a networked MySQL where every row is a round trip.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IngestBenchmark {
+    @Param({"1000"})
+    int rows;
+
+    private ConfigurableApplicationContext context;
+    private AuthorRepository authorRepository;
+    private LibraryRepository libraryRepository;
+    private JdbcTemplate jdbcTemplate;
+    private List<Author> authors;
+    private List<Library> libraries;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchContext.start("ingest");
+        authorRepository = context.getBean(AuthorRepository.class);
+        libraryRepository = context.getBean(LibraryRepository.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        authors = new ArrayList<>(rows);
+        libraries = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            authors.add(new Author(null, "First " + i, "Last " + i, new HashSet<>()));
+            libraries.add(new Library(null, "Library " + i,
+                    new LibraryInfo(null, i + " Main St", "555-0000"), new HashSet<>()));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() {
+        jdbcTemplate.execute("DELETE FROM library_info");
+        jdbcTemplate.execute("DELETE FROM library");
+        jdbcTemplate.execute("DELETE FROM author");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void authorCreateLoop(Blackhole blackhole) {
+        for (Author author : authors) {
+            blackhole.consume(authorRepository.create(author));
+        }
+    }
+
+    @Benchmark
+    public List<Long> authorCreateAll() {
+        return authorRepository.createAll(authors);
+    }
+
+    @Benchmark
+    public void libraryCreateLoop(Blackhole blackhole) {
+        for (Library library : libraries) {
+            blackhole.consume(libraryRepository.create(library));
+        }
+    }
+
+    @Benchmark
+    public List<Long> libraryCreateAll() {
+        return libraryRepository.createAll(libraries);
+    }
+}
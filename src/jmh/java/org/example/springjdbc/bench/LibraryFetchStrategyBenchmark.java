@@ -0,0 +1,81 @@
+package org.example.springjdbc.bench;
+
+import org.example.springjdbc.model.Author;
+import org.example.springjdbc.model.Book;
+import org.example.springjdbc.model.Library;
+import org.example.springjdbc.model.LibraryInfo;
+import org.example.springjdbc.repository.declaration.AuthorRepository;
+import org.example.springjdbc.repository.declaration.BookRepository;
+import org.example.springjdbc.repository.declaration.FetchStrategy;
+import org.example.springjdbc.repository.declaration.LibraryRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JOIN against MULTI_QUERY for LibraryRepository.findById as the number of linked books grows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LibraryFetchStrategyBenchmark {
+    @Param({"10", "1000", "10000"})
+    int booksPerLibrary;
+
+    private ConfigurableApplicationContext context;
+    private LibraryRepository libraryRepository;
+    private long libraryId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchContext.start("fetch" + booksPerLibrary);
+        libraryRepository = context.getBean(LibraryRepository.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        long authorId = context.getBean(AuthorRepository.class)
+                .create(new Author(null, "Bench", "Author", new HashSet<>())).id();
+        List<Book> books = new ArrayList<>(booksPerLibrary);
+        for (int i = 0; i < booksPerLibrary; i++) {
+            books.add(new Book(null, authorId, "Title " + i, LocalDate.of(2024, 1, 15), Set.of()));
+        }
+        List<Long> bookIds = context.getBean(BookRepository.class).createAll(books);
+
+        libraryId = libraryRepository.create(new Library(null, "Bench Library",
+                new LibraryInfo(null, "1 Main St", "555-0000"), new HashSet<>()));
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO library_book (library_id, book_id) VALUES (?, ?)",
+                bookIds,
+                1000,
+                (ps, bookId) -> {
+                    ps.setLong(1, libraryId);
+                    ps.setLong(2, bookId);
+                }
+        );
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Library> join() {
+        return libraryRepository.findById(libraryId, FetchStrategy.JOIN);
+    }
+
+    @Benchmark
+    public Optional<Library> multiQuery() {
+        return libraryRepository.findById(libraryId, FetchStrategy.MULTI_QUERY);
+    }
+}
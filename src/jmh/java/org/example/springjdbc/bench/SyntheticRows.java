@@ -0,0 +1,116 @@
+package org.example.springjdbc.bench;
+
+import org.h2.tools.SimpleResultSet;
+
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+
+/**
+ * In-memory result sets shaped like the repository queries, so the mappers can be measured
+ * without a database. Every result set is rewindable with {@link SimpleResultSet#beforeFirst()}.
+ */
+public final class SyntheticRows {
+    private static final Date RELEASE_DATE = Date.valueOf(LocalDate.of(2024, 1, 15));
+
+    private SyntheticRows() {
+    }
+
+    /**
+     * Rows of ALL_SELECT: one per author ⨝ book, ordered by author id.
+     */
+    public static SimpleResultSet authorsWithBooks(int authors, int booksPerAuthor) {
+        SimpleResultSet rs = newResultSet();
+        rs.addColumn("author_id", Types.BIGINT, 19, 0);
+        rs.addColumn("first_name", Types.VARCHAR, 100, 0);
+        rs.addColumn("last_name", Types.VARCHAR, 100, 0);
+        rs.addColumn("book_id", Types.BIGINT, 19, 0);
+        rs.addColumn("title", Types.VARCHAR, 255, 0);
+        rs.addColumn("release_date", Types.DATE, 10, 0);
+        rs.addColumn("author_version", Types.BIGINT, 19, 0);
+
+        long bookId = 1;
+        for (long authorId = 1; authorId <= authors; authorId++) {
+            for (int i = 0; i < booksPerAuthor; i++, bookId++) {
+                rs.addRow(authorId, "First " + authorId, "Last " + authorId, bookId, "Title " + bookId, RELEASE_DATE, 0L);
+            }
+        }
+        return rs;
+    }
+
+    /**
+     * Rows of SELECT_ALL_BOOKS.
+     */
+    public static SimpleResultSet books(int books) {
+        SimpleResultSet rs = newResultSet();
+        rs.addColumn("id", Types.BIGINT, 19, 0);
+        rs.addColumn("author_id", Types.BIGINT, 19, 0);
+        rs.addColumn("title", Types.VARCHAR, 255, 0);
+        rs.addColumn("release_date", Types.DATE, 10, 0);
+        rs.addColumn("version", Types.BIGINT, 19, 0);
+
+        for (long bookId = 1; bookId <= books; bookId++) {
+            rs.addRow(bookId, bookId % 100, "Title " + bookId, RELEASE_DATE, 0L);
+        }
+        return rs;
+    }
+
+    /**
+     * Rows of FIND_BOOK_WITH_ASSOCIATIONS_BY_ID for one book linked to the given number of libraries.
+     */
+    public static SimpleResultSet bookWithLibraries(int libraries) {
+        SimpleResultSet rs = newResultSet();
+        rs.addColumn("book_id", Types.BIGINT, 19, 0);
+        rs.addColumn("book_author_id", Types.BIGINT, 19, 0);
+        rs.addColumn("book_title", Types.VARCHAR, 255, 0);
+        rs.addColumn("book_release_date", Types.DATE, 10, 0);
+        rs.addColumn("library_id", Types.BIGINT, 19, 0);
+        rs.addColumn("library_name", Types.VARCHAR, 255, 0);
+        rs.addColumn("book_version", Types.BIGINT, 19, 0);
+
+        for (long libraryId = 1; libraryId <= libraries; libraryId++) {
+            rs.addRow(1L, 1L, "Title 1", RELEASE_DATE, libraryId, "Library " + libraryId, 0L);
+        }
+        return rs;
+    }
+
+    /**
+     * Rows of FIND_ALL_LIBRARIES_WITH_ASSOCIATIONS: one per library ⨝ info ⨝ book, ordered by library id.
+     */
+    public static SimpleResultSet librariesWithBooks(int libraries, int booksPerLibrary) {
+        SimpleResultSet rs = newResultSet();
+        rs.addColumn("library_id", Types.BIGINT, 19, 0);
+        rs.addColumn("library_name", Types.VARCHAR, 255, 0);
+        rs.addColumn("library_info_id", Types.BIGINT, 19, 0);
+        rs.addColumn("library_address", Types.VARCHAR, 255, 0);
+        rs.addColumn("library_phone", Types.VARCHAR, 15, 0);
+        rs.addColumn("book_id", Types.BIGINT, 19, 0);
+        rs.addColumn("book_title", Types.VARCHAR, 255, 0);
+        rs.addColumn("book_release_date", Types.DATE, 10, 0);
+        rs.addColumn("library_version", Types.BIGINT, 19, 0);
+        rs.addColumn("book_author_id", Types.BIGINT, 19, 0);
+
+        for (long libraryId = 1; libraryId <= libraries; libraryId++) {
+            for (long bookId = 1; bookId <= booksPerLibrary; bookId++) {
+                rs.addRow(libraryId, "Library " + libraryId, libraryId, libraryId + " Main St", "555-0000",
+                        bookId, "Title " + bookId, RELEASE_DATE, 0L, bookId);
+            }
+        }
+        return rs;
+    }
+
+    public static void rewind(SimpleResultSet rs) {
+        try {
+            rs.beforeFirst();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static SimpleResultSet newResultSet() {
+        SimpleResultSet rs = new SimpleResultSet();
+        rs.setAutoClose(false);
+        return rs;
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.springjdbc.load;
+
+/**
+ * Ids of the generated rows. bookAuthorIds[i] is the author of bookIds[i].
+ */
+record Catalog(long[] authorIds, long[] bookIds, long[] bookAuthorIds, long[] libraryIds, long links) {
+}
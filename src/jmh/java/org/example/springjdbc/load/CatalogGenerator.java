@@ -0,0 +1,123 @@
+package org.example.springjdbc.load;
+
+import org.example.springjdbc.model.Author;
+import org.example.springjdbc.model.Book;
+import org.example.springjdbc.model.Library;
+import org.example.springjdbc.model.LibraryInfo;
+import org.example.springjdbc.repository.declaration.AuthorRepository;
+import org.example.springjdbc.repository.declaration.BookRepository;
+import org.example.springjdbc.repository.declaration.LibraryRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Builds a skewed catalog through the repositories' own batch write paths: authors and books
+ * with createAll, libraries with createAll and their links with addBooks. The same seed always
+ * produces the same catalog on an empty database.
+ *
+ * Books are spread over authors by a Zipf distribution, and library sizes are log-uniform between
+ * the configured bounds, so most libraries are small and a few hold tens of thousands of books.
+ */
+class CatalogGenerator {
+    private static final int CHUNK = 10_000;
+    private static final LocalDate EPOCH = LocalDate.of(1950, 1, 1);
+
+    private final AuthorRepository authorRepository;
+    private final BookRepository bookRepository;
+    private final LibraryRepository libraryRepository;
+
+    CatalogGenerator(AuthorRepository authorRepository,
+                     BookRepository bookRepository,
+                     LibraryRepository libraryRepository) {
+        this.authorRepository = authorRepository;
+        this.bookRepository = bookRepository;
+        this.libraryRepository = libraryRepository;
+    }
+
+    Catalog generate(LoadSettings settings) {
+        SplittableRandom random = new SplittableRandom(settings.seed());
+
+        long[] authorIds = createAuthors(settings.authors());
+        long[] bookAuthorIds = new long[settings.books()];
+        long[] bookIds = createBooks(settings, authorIds, bookAuthorIds, random);
+        long[] libraryIds = createLibraries(settings.libraries());
+
+        long links = 0;
+        for (long libraryId : libraryIds) {
+            links += libraryRepository.addBooks(libraryId, sampleBooks(settings, bookIds, random));
+        }
+        return new Catalog(authorIds, bookIds, bookAuthorIds, libraryIds, links);
+    }
+
+    private long[] createAuthors(int count) {
+        long[] ids = new long[count];
+        for (int from = 0; from < count; from += CHUNK) {
+            int to = Math.min(count, from + CHUNK);
+            List<Author> authors = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                authors.add(new Author(null, "First " + i, "Last " + i, new HashSet<>()));
+            }
+            copy(authorRepository.createAll(authors), ids, from, to);
+        }
+        return ids;
+    }
+
+    private long[] createBooks(LoadSettings settings, long[] authorIds, long[] bookAuthorIds,
+                               SplittableRandom random) {
+        ZipfSampler authors = new ZipfSampler(authorIds.length, settings.authorSkew());
+        long[] ids = new long[settings.books()];
+        for (int from = 0; from < ids.length; from += CHUNK) {
+            int to = Math.min(ids.length, from + CHUNK);
+            List<Book> books = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                bookAuthorIds[i] = authorIds[authors.sample(random)];
+                books.add(new Book(null, bookAuthorIds[i], "Title " + i,
+                        EPOCH.plusDays(random.nextInt(365 * 75)), Set.of()));
+            }
+            copy(bookRepository.createAll(books), ids, from, to);
+        }
+        return ids;
+    }
+
+    private long[] createLibraries(int count) {
+        List<Library> libraries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            libraries.add(new Library(null, "Library " + i,
+                    new LibraryInfo(null, i + " Main St", "555-0000"), new HashSet<>()));
+        }
+        long[] ids = new long[count];
+        copy(libraryRepository.createAll(libraries), ids, 0, count);
+        return ids;
+    }
+
+    /**
+     * A log-uniform number of distinct books, drawn with Floyd's algorithm.
+     */
+    private static long[] sampleBooks(LoadSettings settings, long[] bookIds, SplittableRandom random) {
+        int max = Math.min(settings.maxBooksPerLibrary(), bookIds.length);
+        int min = Math.min(Math.max(settings.minBooksPerLibrary(), 1), max);
+        int size = (int) Math.round(Math.exp(Math.log(min) + random.nextDouble() * (Math.log(max) - Math.log(min))));
+
+        Set<Integer> picked = new HashSet<>(size * 2);
+        for (int j = bookIds.length - size; j < bookIds.length; j++) {
+            int candidate = random.nextInt(j + 1);
+            picked.add(picked.contains(candidate) ? j : candidate);
+        }
+        return picked.stream().mapToLong(index -> bookIds[index]).toArray();
+    }
+
+    private static void copy(List<Long> created, long[] ids, int from, int to) {
+        // createAll logs and returns no ids when a batch fails
+        if (created.size() != to - from) {
+            throw new IllegalStateException("Expected " + (to - from) + " ids, got " + created.size());
+        }
+        for (int i = 0; i < created.size(); i++) {
+            ids[from + i] = created.get(i);
+        }
+    }
+}
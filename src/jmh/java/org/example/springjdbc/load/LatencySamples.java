@@ -0,0 +1,57 @@
+package org.example.springjdbc.load;
+
+import java.util.Arrays;
+
+/**
+ * Every latency of one operation on one worker thread, in nanoseconds. Percentiles are exact:
+ * the samples of all workers are merged and sorted once the run is over.
+ */
+final class LatencySamples {
+    private long[] values = new long[1024];
+    private int size;
+    private long errors;
+
+    void add(long nanos) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = nanos;
+    }
+
+    void error() {
+        errors++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long errors() {
+        return errors;
+    }
+
+    static LatencySamples merge(Iterable<LatencySamples> parts) {
+        LatencySamples merged = new LatencySamples();
+        for (LatencySamples part : parts) {
+            if (merged.values.length < merged.size + part.size) {
+                merged.values = Arrays.copyOf(merged.values, merged.size + part.size);
+            }
+            System.arraycopy(part.values, 0, merged.values, merged.size, part.size);
+            merged.size += part.size;
+            merged.errors += part.errors;
+        }
+        Arrays.sort(merged.values, 0, merged.size);
+        return merged;
+    }
+
+    /**
+     * Nearest-rank percentile of sorted samples, e.g. 0.999 for p999.
+     */
+    long percentile(double fraction) {
+        if (size == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(fraction * size);
+        return values[Math.max(rank, 1) - 1];
+    }
+}
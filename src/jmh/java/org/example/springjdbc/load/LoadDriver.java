@@ -0,0 +1,212 @@
+package org.example.springjdbc.load;
+
+import org.example.springjdbc.model.Book;
+import org.example.springjdbc.repository.declaration.AuthorRepository;
+import org.example.springjdbc.repository.declaration.BookRepository;
+import org.example.springjdbc.repository.declaration.LibraryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the configured mix from a fixed number of worker threads, each picking operations by
+ * weight in a closed loop. Latencies of the warmup are discarded; the report covers the
+ * measured window only.
+ * <p>
+ * The repositories log read failures and return empty results, so a read of an id the catalog
+ * knows to exist that comes back empty counts as an error too. The first failure of each
+ * operation is logged with its cause.
+ */
+class LoadDriver {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadDriver.class);
+    private static final LocalDate RELEASE_DATE = LocalDate.of(2024, 1, 15);
+
+    private final AuthorRepository authorRepository;
+    private final BookRepository bookRepository;
+    private final LibraryRepository libraryRepository;
+    private final Catalog catalog;
+    private final LoadSettings settings;
+    private final LoadOperation[] operations;
+    private final int[] cumulativeWeights;
+    private final ZipfSampler authorKeys;
+    private final ZipfSampler bookKeys;
+    private final ZipfSampler libraryKeys;
+    private final ConcurrentLinkedQueue<Long> createdBookIds = new ConcurrentLinkedQueue<>();
+    private final Set<LoadOperation> loggedFailures = ConcurrentHashMap.newKeySet();
+
+    LoadDriver(AuthorRepository authorRepository,
+               BookRepository bookRepository,
+               LibraryRepository libraryRepository,
+               Catalog catalog,
+               LoadSettings settings) {
+        this.authorRepository = authorRepository;
+        this.bookRepository = bookRepository;
+        this.libraryRepository = libraryRepository;
+        this.catalog = catalog;
+        this.settings = settings;
+
+        List<LoadOperation> weighted = new ArrayList<>();
+        List<Integer> cumulative = new ArrayList<>();
+        int total = 0;
+        for (Map.Entry<LoadOperation, Integer> entry : settings.mix().entrySet()) {
+            if (entry.getValue() > 0) {
+                total += entry.getValue();
+                weighted.add(entry.getKey());
+                cumulative.add(total);
+            }
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("load.mix has no operation with a positive weight");
+        }
+        this.operations = weighted.toArray(LoadOperation[]::new);
+        this.cumulativeWeights = cumulative.stream().mapToInt(Integer::intValue).toArray();
+        this.authorKeys = new ZipfSampler(catalog.authorIds().length, settings.keySkew());
+        this.bookKeys = new ZipfSampler(catalog.bookIds().length, settings.keySkew());
+        this.libraryKeys = new ZipfSampler(catalog.libraryIds().length, settings.keySkew());
+    }
+
+    LoadReport run() throws Exception {
+        long start = System.nanoTime();
+        long measureFrom = start + settings.warmup().toNanos();
+        long measureTo = measureFrom + settings.duration().toNanos();
+
+        SplittableRandom seeds = new SplittableRandom(settings.seed());
+        List<Future<Map<LoadOperation, LatencySamples>>> workers = new ArrayList<>(settings.threads());
+        ExecutorService pool = Executors.newFixedThreadPool(settings.threads());
+        try {
+            for (int i = 0; i < settings.threads(); i++) {
+                SplittableRandom random = seeds.split();
+                workers.add(pool.submit(() -> work(random, measureFrom, measureTo)));
+            }
+
+            Map<LoadOperation, List<LatencySamples>> parts = new EnumMap<>(LoadOperation.class);
+            for (Future<Map<LoadOperation, LatencySamples>> worker : workers) {
+                worker.get().forEach((operation, samples) ->
+                        parts.computeIfAbsent(operation, key -> new ArrayList<>()).add(samples));
+            }
+
+            Map<LoadOperation, LatencySamples> merged = new EnumMap<>(LoadOperation.class);
+            parts.forEach((operation, samples) -> merged.put(operation, LatencySamples.merge(samples)));
+            return new LoadReport(merged, settings.duration().toNanos());
+        } finally {
+            pool.shutdownNow();
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    private Map<LoadOperation, LatencySamples> work(SplittableRandom random, long measureFrom, long measureTo) {
+        Map<LoadOperation, LatencySamples> samples = new EnumMap<>(LoadOperation.class);
+        for (LoadOperation operation : operations) {
+            samples.put(operation, new LatencySamples());
+        }
+
+        long now = System.nanoTime();
+        while (now < measureTo) {
+            LoadOperation operation = pick(random);
+            boolean failed = false;
+            long started = now;
+            try {
+                if (!execute(operation, random)) {
+                    now = System.nanoTime();
+                    continue;
+                }
+            } catch (RuntimeException e) {
+                failed = true;
+                if (loggedFailures.add(operation)) {
+                    LOGGER.warn("{} failed; later failures of it are only counted", operation, e);
+                }
+            }
+            now = System.nanoTime();
+
+            if (started >= measureFrom) {
+                if (failed) {
+                    samples.get(operation).error();
+                } else {
+                    samples.get(operation).add(now - started);
+                }
+            }
+        }
+        return samples;
+    }
+
+    private LoadOperation pick(SplittableRandom random) {
+        int ticket = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (ticket < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    /**
+     * Returns false when the operation had nothing to do, i.e. a delete with no created book left.
+     * Throws when it failed, including a read that missed a catalog id.
+     */
+    private boolean execute(LoadOperation operation, SplittableRandom random) {
+        switch (operation) {
+            case FIND_AUTHOR_BY_ID -> {
+                long authorId = catalog.authorIds()[authorKeys.sample(random)];
+                expectFound(operation, authorId, authorRepository.findByIdWithoutAssociations(authorId));
+            }
+            case FIND_AUTHOR_WITH_BOOKS -> {
+                long authorId = catalog.authorIds()[authorKeys.sample(random)];
+                expectFound(operation, authorId, authorRepository.findByIdWithAssociations(authorId));
+            }
+            case FIND_BOOK_BY_ID -> {
+                long bookId = catalog.bookIds()[bookKeys.sample(random)];
+                expectFound(operation, bookId, bookRepository.findByIdWithAssociations(bookId));
+            }
+            case FIND_LIBRARY_BY_ID -> {
+                long libraryId = catalog.libraryIds()[libraryKeys.sample(random)];
+                expectFound(operation, libraryId, libraryRepository.findById(libraryId));
+            }
+            case FIND_ALL -> {
+                if (libraryRepository.findAll().isEmpty() && catalog.libraryIds().length > 0) {
+                    throw new IllegalStateException("findAll returned no libraries");
+                }
+            }
+            case CREATE -> {
+                long authorId = catalog.authorIds()[authorKeys.sample(random)];
+                Book created = bookRepository.create(new Book(null, authorId, "Load title", RELEASE_DATE, Set.of()));
+                createdBookIds.add(created.id());
+            }
+            case UPDATE -> {
+                int index = bookKeys.sample(random);
+                long bookId = catalog.bookIds()[index];
+                bookRepository.update(bookId, new Book(bookId, catalog.bookAuthorIds()[index],
+                        "Updated title " + random.nextInt(1000), RELEASE_DATE, Set.of()));
+            }
+            case DELETE -> {
+                Long bookId = createdBookIds.poll();
+                if (bookId == null) {
+                    return false;
+                }
+                if (!bookRepository.delete(bookId)) {
+                    throw new IllegalStateException("No book " + bookId + " to delete");
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void expectFound(LoadOperation operation, long id, Optional<?> result) {
+        if (result.isEmpty()) {
+            throw new IllegalStateException(operation + " found nothing for existing id " + id);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.springjdbc.load;
+
+/**
+ * The operations the load driver mixes. Reads and updates pick seeded ids with Zipf-skewed
+ * popularity; deletes only remove books created during the run, so the seeded catalog keeps its
+ * shape for the whole run.
+ */
+public enum LoadOperation {
+    FIND_AUTHOR_BY_ID,
+    FIND_AUTHOR_WITH_BOOKS,
+    FIND_BOOK_BY_ID,
+    FIND_LIBRARY_BY_ID,
+    FIND_ALL,
+    CREATE,
+    UPDATE,
+    DELETE
+}
@@ -0,0 +1,31 @@
+package org.example.springjdbc.load;
+
+import java.io.PrintStream;
+import java.util.Map;
+
+/**
+ * Throughput and latency percentiles per operation over the measured window.
+ */
+record LoadReport(Map<LoadOperation, LatencySamples> samples, long windowNanos) {
+
+    void print(PrintStream out) {
+        double seconds = windowNanos / 1e9;
+        out.printf("%-24s %10s %10s %10s %10s %10s %8s%n",
+                "operation", "ops", "ops/s", "p50 us", "p99 us", "p999 us", "errors");
+
+        long total = 0;
+        for (Map.Entry<LoadOperation, LatencySamples> entry : samples.entrySet()) {
+            LatencySamples latencies = entry.getValue();
+            total += latencies.size();
+            out.printf("%-24s %10d %10.1f %10.1f %10.1f %10.1f %8d%n",
+                    entry.getKey(),
+                    latencies.size(),
+                    latencies.size() / seconds,
+                    latencies.percentile(0.50) / 1e3,
+                    latencies.percentile(0.99) / 1e3,
+                    latencies.percentile(0.999) / 1e3,
+                    latencies.errors());
+        }
+        out.printf("%-24s %10d %10.1f%n", "total", total, total / seconds);
+    }
+}
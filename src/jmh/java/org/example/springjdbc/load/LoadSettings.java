@@ -0,0 +1,48 @@
+package org.example.springjdbc.load;
+
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Catalog shape and load mix, bound from load.* properties, e.g. --load.books=1000000.
+ * A --load.mix.* entry replaces the whole default mix, so list every operation to run.
+ */
+public record LoadSettings(
+        @DefaultValue("10000") int authors,
+        @DefaultValue("100000") int books,
+        // exponent of the Zipf distribution of books over authors; 0 is uniform
+        @DefaultValue("1.1") double authorSkew,
+        @DefaultValue("100") int libraries,
+        @DefaultValue("1") int minBooksPerLibrary,
+        @DefaultValue("50000") int maxBooksPerLibrary,
+        // exponent of the Zipf distribution of the ids the read and update operations pick
+        @DefaultValue("0.99") double keySkew,
+        @DefaultValue("42") long seed,
+        @DefaultValue("8") int threads,
+        @DefaultValue("10s") Duration warmup,
+        @DefaultValue("60s") Duration duration,
+        Map<LoadOperation, Integer> mix
+) {
+    public LoadSettings {
+        if (mix == null || mix.isEmpty()) {
+            mix = defaultMix();
+        }
+    }
+
+    private static Map<LoadOperation, Integer> defaultMix() {
+        Map<LoadOperation, Integer> mix = new EnumMap<>(LoadOperation.class);
+        mix.put(LoadOperation.FIND_AUTHOR_BY_ID, 15);
+        mix.put(LoadOperation.FIND_AUTHOR_WITH_BOOKS, 10);
+        mix.put(LoadOperation.FIND_BOOK_BY_ID, 30);
+        mix.put(LoadOperation.FIND_LIBRARY_BY_ID, 10);
+        // a full scan of the catalog; enable it with an explicit mix
+        mix.put(LoadOperation.FIND_ALL, 0);
+        mix.put(LoadOperation.CREATE, 15);
+        mix.put(LoadOperation.UPDATE, 15);
+        mix.put(LoadOperation.DELETE, 5);
+        return mix;
+    }
+}
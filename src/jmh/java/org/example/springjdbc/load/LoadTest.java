@@ -0,0 +1,63 @@
+package org.example.springjdbc.load;
+
+import org.example.springjdbc.SpringJdbcApplication;
+import org.example.springjdbc.bench.BenchContext;
+import org.example.springjdbc.repository.declaration.AuthorRepository;
+import org.example.springjdbc.repository.declaration.BookRepository;
+import org.example.springjdbc.repository.declaration.LibraryRepository;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Arrays;
+
+/**
+ * Generates a catalog, then drives the configured mix against it and prints the report.
+ * Arguments are Spring properties: load.* for the harness (see LoadSettings), anything else for
+ * the application, e.g. spring.datasource.hikari.maximum-pool-size.
+ *
+ * <pre>
+ * ./gradlew loadTest -PloadArgs='--load.books=1000000 --load.threads=32'
+ * </pre>
+ *
+ * Without --spring.datasource.url the run uses the embedded H2 database. With it, the run goes
+ * to that database, which must have the schema and no rows.
+ */
+public final class LoadTest {
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        try (ConfigurableApplicationContext context = start(args)) {
+            LoadSettings settings = Binder.get(context.getEnvironment()).bindOrCreate("load", LoadSettings.class);
+            AuthorRepository authorRepository = context.getBean(AuthorRepository.class);
+            BookRepository bookRepository = context.getBean(BookRepository.class);
+            LibraryRepository libraryRepository = context.getBean(LibraryRepository.class);
+
+            long started = System.nanoTime();
+            Catalog catalog = new CatalogGenerator(authorRepository, bookRepository, libraryRepository)
+                    .generate(settings);
+            System.out.printf("catalog: %d authors, %d books, %d libraries, %d links in %.1f s%n",
+                    catalog.authorIds().length, catalog.bookIds().length, catalog.libraryIds().length,
+                    catalog.links(), (System.nanoTime() - started) / 1e9);
+
+            System.out.printf("load: %d threads, %s warmup, %s measured, mix %s%n",
+                    settings.threads(), settings.warmup(), settings.duration(), settings.mix());
+            new LoadDriver(authorRepository, bookRepository, libraryRepository, catalog, settings)
+                    .run()
+                    .print(System.out);
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String[] args) {
+        boolean external = Arrays.stream(args).anyMatch(arg -> arg.startsWith("--spring.datasource.url="));
+        if (!external) {
+            return BenchContext.start("load", args);
+        }
+        return new SpringApplicationBuilder(SpringJdbcApplication.class)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .run(args);
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.springjdbc.repository.implementation;
+
+import org.example.springjdbc.bench.SyntheticRows;
+import org.example.springjdbc.model.Author;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of folding the author ⨝ book join of findAll into aggregates, per fan-out.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AuthorMappingBenchmark {
+    @Param({"100"})
+    int authors;
+
+    @Param({"1", "10", "100", "1000"})
+    int booksPerAuthor;
+
+    private SimpleResultSet rows;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rows = SyntheticRows.authorsWithBooks(authors, booksPerAuthor);
+    }
+
+    @Setup(Level.Invocation)
+    public void rewind() {
+        SyntheticRows.rewind(rows);
+    }
+
+    @Benchmark
+    public List<Author> findAllAggregator() throws SQLException {
+        return AuthorRepositoryImpl.AUTHOR_AGGREGATOR.extractData(rows);
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.springjdbc.repository.implementation;
+
+import org.example.springjdbc.bench.SyntheticRows;
+import org.example.springjdbc.model.Book;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.SQLException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-row cost of the book mapper and the per-book cost of folding its library join.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookMappingBenchmark {
+
+    @State(Scope.Thread)
+    public static class BookRows {
+        @Param({"10000"})
+        int books;
+
+        final RowMapper<Book> mapper = BookRepositoryImpl.bookMapper();
+        SimpleResultSet rows;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            rows = SyntheticRows.books(books);
+        }
+
+        @Setup(Level.Invocation)
+        public void rewind() {
+            SyntheticRows.rewind(rows);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class BookWithLibrariesRows {
+        @Param({"1", "10", "100", "1000"})
+        int librariesPerBook;
+
+        final BookRepositoryImpl.BookWithAssociationsExtractor extractor =
+                new BookRepositoryImpl.BookWithAssociationsExtractor();
+        SimpleResultSet rows;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            rows = SyntheticRows.bookWithLibraries(librariesPerBook);
+        }
+
+        @Setup(Level.Invocation)
+        public void rewind() {
+            SyntheticRows.rewind(rows);
+        }
+    }
+
+    @Benchmark
+    public void rowMapper(BookRows state, Blackhole blackhole) throws SQLException {
+        int rowNum = 0;
+        while (state.rows.next()) {
+            blackhole.consume(state.mapper.mapRow(state.rows, rowNum++));
+        }
+    }
+
+    @Benchmark
+    public Optional<Book> withAssociationsExtractor(BookWithLibrariesRows state) throws SQLException {
+        return state.extractor.extractData(state.rows);
+    }
+}
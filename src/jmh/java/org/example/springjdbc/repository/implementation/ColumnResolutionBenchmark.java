@@ -0,0 +1,68 @@
+package org.example.springjdbc.repository.implementation;
+
+import org.example.springjdbc.bench.SyntheticRows;
+import org.example.springjdbc.model.Book;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The book mapper against the label-per-row mapping it replaced, which looked every column up by
+ * label and read release_date twice. Compare both time and gc.alloc.rate.norm per op.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ColumnResolutionBenchmark {
+    private static final RowMapper<Book> BY_LABEL = (rs, rowNum) -> new Book(
+            rs.getLong("id"),
+            rs.getLong("author_id"),
+            rs.getString("title"),
+            rs.getDate("release_date") != null
+                    ? rs.getDate("release_date").toLocalDate()
+                    : null,
+            Set.of(),
+            rs.getLong("version")
+    );
+
+    @Param({"10000"})
+    int books;
+
+    private final RowMapper<Book> byIndex = BookRepositoryImpl.bookMapper();
+    private SimpleResultSet rows;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rows = SyntheticRows.books(books);
+    }
+
+    @Setup(Level.Invocation)
+    public void rewind() {
+        SyntheticRows.rewind(rows);
+    }
+
+    @Benchmark
+    public void byLabel(Blackhole blackhole) throws SQLException {
+        map(BY_LABEL, blackhole);
+    }
+
+    @Benchmark
+    public void byIndex(Blackhole blackhole) throws SQLException {
+        map(byIndex, blackhole);
+    }
+
+    private void map(RowMapper<Book> mapper, Blackhole blackhole) throws SQLException {
+        int rowNum = 0;
+        while (rows.next()) {
+            blackhole.consume(mapper.mapRow(rows, rowNum++));
+        }
+    }
+}
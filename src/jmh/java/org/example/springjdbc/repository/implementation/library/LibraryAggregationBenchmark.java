@@ -0,0 +1,83 @@
+package org.example.springjdbc.repository.implementation.library;
+
+import org.example.springjdbc.bench.SyntheticRows;
+import org.example.springjdbc.model.Book;
+import org.example.springjdbc.model.Library;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regression benchmark for LibraryRepository.findAll on libraries with many books: the
+ * single-pass LIBRARY_WITH_BOOKS fold against the former one-partial-per-row mapping merged with
+ * Map.merge, which copied the accumulated book set on every row.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LibraryAggregationBenchmark {
+    @Param({"1"})
+    int libraries;
+
+    @Param({"10", "1000", "10000", "20000"})
+    int booksPerLibrary;
+
+    private SimpleResultSet rows;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rows = SyntheticRows.librariesWithBooks(libraries, booksPerLibrary);
+    }
+
+    @Setup(Level.Invocation)
+    public void rewind() {
+        SyntheticRows.rewind(rows);
+    }
+
+    @Benchmark
+    public List<Library> singlePass() throws SQLException {
+        return LibraryAggregates.LIBRARY_WITH_BOOKS.extractData(rows);
+    }
+
+    @Benchmark
+    public Set<Library> mapRowThenMerge() throws SQLException {
+        List<Library> partials = new ArrayList<>();
+        int[] col = LibraryAggregates.LIBRARY_COLUMNS.resolve(rows);
+        while (rows.next()) {
+            partials.add(partialLibrary(rows, col));
+        }
+
+        Map<Long, Library> libraryMap = new HashMap<>();
+        for (Library partial : partials) {
+            libraryMap.merge(partial.id(), partial, (existing, newPartial) -> {
+                Set<Book> mergedBooks = new HashSet<>(existing.books());
+                mergedBooks.addAll(newPartial.books());
+                return new Library(existing.id(), existing.name(), existing.libraryInfo(), mergedBooks);
+            });
+        }
+        return new HashSet<>(libraryMap.values());
+    }
+
+    // the former FindAllLibrariesQuery.mapRow: one library holding at most one book per row
+    private static Library partialLibrary(ResultSet rs, int[] col) throws SQLException {
+        Library library = LibraryAggregates.library(rs, col, new HashSet<>());
+
+        Book book = LibraryAggregates.book(rs, col);
+        if (book != null) {
+            library.books().add(book);
+        }
+        return library;
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.springjdbc.repository.implementation.library;
+
+import org.example.springjdbc.bench.SyntheticRows;
+import org.example.springjdbc.model.Library;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of folding the library join into aggregates with LIBRARY_WITH_BOOKS, the extractor behind
+ * findAll, streamAll, findById and findPage.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LibraryMappingBenchmark {
+    @Param({"10"})
+    int libraries;
+
+    @Param({"10", "100", "1000"})
+    int booksPerLibrary;
+
+    private SimpleResultSet rows;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rows = SyntheticRows.librariesWithBooks(libraries, booksPerLibrary);
+    }
+
+    @Setup(Level.Invocation)
+    public void rewind() {
+        SyntheticRows.rewind(rows);
+    }
+
+    @Benchmark
+    public List<Library> extract() throws SQLException {
+        return LibraryAggregates.LIBRARY_WITH_BOOKS.extractData(rows);
+    }
+}
@@ -0,0 +1,62 @@
+package org.example.springjdbc.helper;
+
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+public enum Batches {
+    ;
+
+    public static <T> List<List<T>> chunk(List<T> items, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        List<List<T>> chunks = new ArrayList<>((items.size() + chunkSize - 1) / chunkSize);
+        for (int from = 0; from < items.size(); from += chunkSize) {
+            chunks.add(items.subList(from, Math.min(from + chunkSize, items.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * Keeps the last occurrence of each id, in order of first appearance, so a chunk never
+     * writes the same row twice. Upserts key on the id, so a missing one is rejected.
+     */
+    public static <T> List<T> latestById(Collection<T> items, Function<T, Long> id) {
+        Map<Long, T> latest = new LinkedHashMap<>();
+        for (T item : items) {
+            Long key = id.apply(item);
+            if (key == null) {
+                throw new IllegalArgumentException("Upsert requires an id: " + item);
+            }
+            latest.put(key, item);
+        }
+        return List.copyOf(latest.values());
+    }
+
+    /**
+     * Expands the %s marker of an IN (...) statement to one placeholder per value.
+     */
+    public static String withInList(String sqlTemplate, int size) {
+        return sqlTemplate.formatted(String.join(", ", Collections.nCopies(size, "?")));
+    }
+
+    /**
+     * Drivers name the generated key column differently (GENERATED_KEY on MySQL, ID on H2),
+     * so the single value of every key row is read regardless of its name.
+     */
+    public static List<Long> generatedIds(KeyHolder keyHolder) {
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        List<Long> ids = new ArrayList<>(keys.size());
+        for (Map<String, Object> key : keys) {
+            ids.add(((Number) key.values().iterator().next()).longValue());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,101 @@
+package org.example.springjdbc.helper;
+
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+/**
+ * Column labels read by one mapper, resolved to indexes once per query from the ResultSet
+ * metadata instead of by label on every row. Indexes are returned in the order the labels were
+ * given. Instances are immutable and shared; the resolved indexes are held by the extraction that
+ * resolved them, e.g. a local in a ResultSetExtractor or the per-query mapper from
+ * {@link #mapper}, never by the Columns itself.
+ */
+public final class Columns {
+    @FunctionalInterface
+    public interface IndexedRowMapper<T> {
+        T mapRow(ResultSet rs, int[] col) throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface IndexedRowCallback {
+        void processRow(ResultSet rs, int[] col) throws SQLException;
+    }
+
+    private final String[] labels;
+
+    private Columns(String[] labels) {
+        this.labels = labels;
+    }
+
+    public static Columns of(String... labels) {
+        return new Columns(labels.clone());
+    }
+
+    public int[] resolve(ResultSet rs) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        int[] indexes = new int[labels.length];
+
+        for (int i = 0; i < labels.length; i++) {
+            // the first column carrying the label wins, as with ResultSet.findColumn
+            for (int column = 1; column <= columnCount && indexes[i] == 0; column++) {
+                if (labels[i].equalsIgnoreCase(metaData.getColumnLabel(column))) {
+                    indexes[i] = column;
+                }
+            }
+            if (indexes[i] == 0) {
+                throw new SQLException("Column '" + labels[i] + "' not found in result set");
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * A RowMapper resolving the indexes on its first row. Not thread-safe: create one per query.
+     */
+    public <T> RowMapper<T> mapper(IndexedRowMapper<T> mapper) {
+        return new RowMapper<>() {
+            private int[] col;
+
+            @Override
+            public T mapRow(ResultSet rs, int rowNum) throws SQLException {
+                if (col == null) {
+                    col = resolve(rs);
+                }
+                return mapper.mapRow(rs, col);
+            }
+        };
+    }
+
+    /**
+     * A RowCallbackHandler resolving the indexes on its first row. Not thread-safe: create one
+     * per query.
+     */
+    public RowCallbackHandler handler(IndexedRowCallback callback) {
+        return new RowCallbackHandler() {
+            private int[] col;
+
+            @Override
+            public void processRow(ResultSet rs) throws SQLException {
+                if (col == null) {
+                    col = resolve(rs);
+                }
+                callback.processRow(rs, col);
+            }
+        };
+    }
+
+    /**
+     * Reads a nullable DATE column once.
+     */
+    public static LocalDate localDate(ResultSet rs, int index) throws SQLException {
+        Date date = rs.getDate(index);
+        return date != null ? date.toLocalDate() : null;
+    }
+}
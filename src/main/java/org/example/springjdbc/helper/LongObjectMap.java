@@ -0,0 +1,143 @@
+package org.example.springjdbc.helper;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Insertion-ordered map from primitive long keys, for folding join rows by id without boxing a
+ * Long per row or allocating a HashMap.Node per entry. Entries live in two dense arrays; an
+ * open-addressing table of int positions, probed linearly, indexes them. Not thread-safe, and
+ * entries can't be removed.
+ */
+public final class LongObjectMap<V> {
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private Object[] values;
+    // position of the entry + 1, 0 for an empty slot
+    private int[] slots;
+    private int size;
+
+    public LongObjectMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongObjectMap(int expectedSize) {
+        int capacity = Math.max(MIN_CAPACITY, expectedSize);
+        keys = new long[capacity];
+        values = new Object[capacity];
+        slots = new int[tableSize(capacity)];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int position = find(key);
+        return position < 0 ? null : (V) values[position];
+    }
+
+    public boolean containsKey(long key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Returns the previous value, or null if the key was absent.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        int mask = slots.length - 1;
+        int slot = hash(key) & mask;
+        while (slots[slot] != 0) {
+            int position = slots[slot] - 1;
+            if (keys[position] == key) {
+                V previous = (V) values[position];
+                values[position] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size == keys.length) {
+            grow();
+            put(key, value);
+            return null;
+        }
+        keys[size] = key;
+        values[size] = value;
+        slots[slot] = ++size;
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Read-only view of the values, in insertion order.
+     */
+    public List<V> values() {
+        return new AbstractList<>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public V get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException(index);
+                }
+                return (V) values[index];
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int find(long key) {
+        int mask = slots.length - 1;
+        int slot = hash(key) & mask;
+        while (slots[slot] != 0) {
+            int position = slots[slot] - 1;
+            if (keys[position] == key) {
+                return position;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void grow() {
+        int capacity = keys.length * 2;
+        keys = Arrays.copyOf(keys, capacity);
+        values = Arrays.copyOf(values, capacity);
+        slots = new int[tableSize(capacity)];
+
+        int mask = slots.length - 1;
+        for (int position = 0; position < size; position++) {
+            int slot = hash(keys[position]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = position + 1;
+        }
+    }
+
+    /**
+     * Power of two at least twice the capacity, so the table is never more than half full.
+     */
+    static int tableSize(int capacity) {
+        return Integer.highestOneBit(capacity * 2 - 1) << 1;
+    }
+
+    /**
+     * Sequential ids would fill runs of neighbouring slots; the multiply spreads them.
+     */
+    static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.springjdbc.helper;
+
+import static org.example.springjdbc.helper.LongObjectMap.hash;
+import static org.example.springjdbc.helper.LongObjectMap.tableSize;
+
+/**
+ * Set of primitive longs with open addressing and linear probing, for de-duplicating ids read
+ * from join rows without boxing them. 0 marks an empty slot, so it is tracked on the side.
+ * Not thread-safe, and elements can't be removed.
+ */
+public final class LongSet {
+    private long[] table;
+    private boolean containsZero;
+    private int size;
+
+    public LongSet() {
+        this(4);
+    }
+
+    public LongSet(int expectedSize) {
+        table = new long[tableSize(Math.max(2, expectedSize))];
+    }
+
+    /**
+     * Returns true if the value was not already present.
+     */
+    public boolean add(long value) {
+        if (value == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+
+        int mask = table.length - 1;
+        int slot = hash(value) & mask;
+        while (table[slot] != 0) {
+            if (table[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = value;
+        // keep the table at most half full
+        if (++size * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        return true;
+    }
+
+    public boolean contains(long value) {
+        if (value == 0) {
+            return containsZero;
+        }
+        int mask = table.length - 1;
+        int slot = hash(value) & mask;
+        while (table[slot] != 0) {
+            if (table[slot] == value) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void rehash(int tableSize) {
+        long[] old = table;
+        table = new long[tableSize];
+        int mask = tableSize - 1;
+        for (long value : old) {
+            if (value != 0) {
+                int slot = hash(value) & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = value;
+            }
+        }
+    }
+}
@@ -2,9 +2,9 @@ package org.example.springjdbc.helper;
 
 public enum QueryStatements {
     ;
-    public static final String FIND_AUTHOR_BY_ID = "SELECT * FROM author WHERE id = ?";
+    public static final String FIND_AUTHOR_BY_ID = "SELECT id, first_name, last_name, version FROM author WHERE id = ?";
     public static final String FIND_AUTHOR_WITH_ASSOCIATIONS_BY_ID = """
-        SELECT a.id AS author_id, a.first_name, a.last_name,
+        SELECT a.id AS author_id, a.first_name, a.last_name, a.version AS author_version,
                b.id AS book_id, b.title, b.release_date
         FROM author a
         LEFT JOIN book b ON a.id = b.author_id
@@ -12,20 +12,65 @@ public enum QueryStatements {
     """;
     public static final String ALL_SELECT = """
             SELECT
-             a.id AS author_id, a.first_name, a.last_name,
+             a.id AS author_id, a.first_name, a.last_name, a.version AS author_version,
              b.id AS book_id, b.title, b.release_date
-            FROM AUTHOR a
-            LEFT JOIN BOOK b ON a.id = b.author_id
+            FROM author a
+            LEFT JOIN book b ON a.id = b.author_id
+            ORDER BY a.id
+            """;
+    public static final String FIND_AUTHORS_PAGE_WITH_ASSOCIATIONS = """
+            SELECT
+             a.id AS author_id, a.first_name, a.last_name, a.version AS author_version,
+             b.id AS book_id, b.title, b.release_date
+            FROM (
+                SELECT id, first_name, last_name, version
+                FROM author
+                WHERE id > ?
+                ORDER BY id
+                LIMIT ?
+            ) a
+            LEFT JOIN book b ON a.id = b.author_id
+            ORDER BY a.id
+            """;
+    public static final String FIND_AUTHORS_BY_IDS = """
+            SELECT id, first_name, last_name, version
+            FROM author
+            WHERE id IN (%s)
+            """;
+    public static final String FIND_BOOKS_BY_AUTHOR_IDS = """
+            SELECT id, author_id, title, release_date
+            FROM book
+            WHERE author_id IN (%s)
+            """;
+    public static final String EXISTS_AUTHOR_BY_ID = """
+            SELECT 1 FROM author WHERE id = ? LIMIT 1
+            """;
+    public static final String COUNT_AUTHORS = """
+            SELECT COUNT(*) FROM author
             """;
     public static final String INSERT_AUTHOR = """
             INSERT INTO author (first_name, last_name)
             VALUES (?, ?)
             """;
+    public static final String UPSERT_AUTHOR = """
+            INSERT INTO author (id, first_name, last_name)
+            VALUES (?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                first_name = VALUES(first_name), last_name = VALUES(last_name), version = version + 1
+            """;
+    public static final String FIND_EXISTING_AUTHOR_IDS = """
+            SELECT id FROM author WHERE id IN (%s)
+            """;
     public static final String UPDATE_AUTHOR = """
             UPDATE author
-            SET first_name = ?, last_name = ?
+            SET first_name = ?, last_name = ?, version = version + 1
             WHERE id = ?
             """;
+    public static final String UPDATE_AUTHOR_IF_VERSION = """
+            UPDATE author
+            SET first_name = ?, last_name = ?, version = version + 1
+            WHERE id = ? AND version = ?
+            """;
     public static final String DELETE_AUTHOR = """
             DELETE FROM author WHERE id = ?
             """;
@@ -36,6 +81,7 @@ public enum QueryStatements {
                    b.author_id AS book_author_id, 
                    b.title AS book_title, 
                    b.release_date AS book_release_date, 
+                   b.version AS book_version,
                    l.id AS library_id, 
                    l.name AS library_name
             FROM book b
@@ -45,13 +91,64 @@ public enum QueryStatements {
             """;
 
     public static final String SELECT_ALL_BOOKS = """
-            SELECT * FROM book
+            SELECT id, author_id, title, release_date, version FROM book
+            """;
+    public static final String FIND_BOOK_SUMMARIES_PAGE = """
+            SELECT id, title
+            FROM book
+            WHERE id > ?
+            ORDER BY id
+            LIMIT ?
+            """;
+    public static final String FIND_BOOKS_PAGE = """
+            SELECT id, author_id, title, release_date, version
+            FROM book
+            WHERE id > ?
+            ORDER BY id
+            LIMIT ?
+            """;
+    public static final String FIND_BOOKS_BY_IDS = """
+            SELECT id, author_id, title, release_date, version
+            FROM book
+            WHERE id IN (%s)
+            """;
+    public static final String FIND_LIBRARIES_BY_BOOK_IDS = """
+            SELECT lb.book_id,
+                   l.id AS library_id,
+                   l.name AS library_name
+            FROM library_book lb
+            JOIN library l ON lb.library_id = l.id
+            WHERE lb.book_id IN (%s)
+            """;
+    public static final String EXISTS_BOOK_BY_ID = """
+            SELECT 1 FROM book WHERE id = ? LIMIT 1
+            """;
+    public static final String COUNT_BOOKS = """
+            SELECT COUNT(*) FROM book
+            """;
+    public static final String COUNT_BOOKS_BY_AUTHOR_ID = """
+            SELECT COUNT(*) FROM book WHERE author_id = ?
             """;
     public static final String INSERT_BOOK = """
             INSERT INTO book (title, author_id, release_date) VALUES (?, ?, ?)
             """;
+    public static final String UPSERT_BOOK = """
+            INSERT INTO book (id, title, author_id, release_date)
+            VALUES (?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                title = VALUES(title), author_id = VALUES(author_id), release_date = VALUES(release_date),
+                version = version + 1
+            """;
+    public static final String FIND_EXISTING_BOOK_IDS = """
+            SELECT id FROM book WHERE id IN (%s)
+            """;
     public static final String UPDATE_BOOK = """
-            UPDATE book SET title = ?, author_id = ?, release_date = ? WHERE id = ?
+            UPDATE book SET title = ?, author_id = ?, release_date = ?, version = version + 1
+            WHERE id = ?
+            """;
+    public static final String UPDATE_BOOK_IF_VERSION = """
+            UPDATE book SET title = ?, author_id = ?, release_date = ?, version = version + 1
+            WHERE id = ? AND version = ?
             """;
     public static final String DELETE_BOOK = """
             DELETE FROM book WHERE id = ?
@@ -67,7 +164,8 @@ public enum QueryStatements {
                    b.id AS book_id,
                    b.author_id AS book_author_id,
                    b.title AS book_title,
-                   b.release_date AS book_release_date
+                   b.release_date AS book_release_date,
+                   l.version AS library_version
             FROM library l
             LEFT JOIN library_info li ON l.id = li.id
             LEFT JOIN library_book lb ON l.id = lb.library_id
@@ -76,6 +174,29 @@ public enum QueryStatements {
             ORDER BY b.id;
             """;
 
+    public static final String FIND_LIBRARY_WITH_INFO_BY_ID = """
+            SELECT l.id AS library_id,
+                   l.name AS library_name,
+                   li.id AS library_info_id,
+                   li.address AS library_address,
+                   li.phone AS library_phone,
+                   l.version AS library_version
+            FROM library l
+            LEFT JOIN library_info li ON l.id = li.id
+            WHERE l.id = ?
+            """;
+
+    public static final String FIND_BOOKS_BY_LIBRARY_ID = """
+            SELECT b.id AS book_id,
+                   b.author_id AS book_author_id,
+                   b.title AS book_title,
+                   b.release_date AS book_release_date
+            FROM library_book lb
+            JOIN book b ON lb.book_id = b.id
+            WHERE lb.library_id = ?
+            ORDER BY b.id
+            """;
+
     public static final String FIND_ALL_LIBRARIES_WITH_ASSOCIATIONS = """
         SELECT l.id AS library_id,
                l.name AS library_name,
@@ -83,12 +204,80 @@ public enum QueryStatements {
                li.address AS library_address,
                li.phone AS library_phone,
                b.id AS book_id,
+               b.author_id AS book_author_id,
                b.title AS book_title,
-               b.release_date AS book_release_date
+               b.release_date AS book_release_date,
+               l.version AS library_version
         FROM library l
         LEFT JOIN library_info li ON l.id = li.id
         LEFT JOIN library_book lb ON l.id = lb.library_id
         LEFT JOIN book b ON lb.book_id = b.id
+        ORDER BY l.id
+    """;
+
+    public static final String FIND_LIBRARIES_PAGE_WITH_ASSOCIATIONS = """
+        SELECT l.id AS library_id,
+               l.name AS library_name,
+               li.id AS library_info_id,
+               li.address AS library_address,
+               li.phone AS library_phone,
+               b.id AS book_id,
+               b.author_id AS book_author_id,
+               b.title AS book_title,
+               b.release_date AS book_release_date,
+               l.version AS library_version
+        FROM (
+            SELECT id, name, version
+            FROM library
+            WHERE id > ?
+            ORDER BY id
+            LIMIT ?
+        ) l
+        LEFT JOIN library_info li ON l.id = li.id
+        LEFT JOIN library_book lb ON l.id = lb.library_id
+        LEFT JOIN book b ON lb.book_id = b.id
+        ORDER BY l.id
+    """;
+
+    public static final String FIND_LIBRARIES_WITH_ASSOCIATIONS_BY_IDS = """
+        SELECT l.id AS library_id,
+               l.name AS library_name,
+               li.id AS library_info_id,
+               li.address AS library_address,
+               li.phone AS library_phone,
+               b.id AS book_id,
+               b.author_id AS book_author_id,
+               b.title AS book_title,
+               b.release_date AS book_release_date,
+               l.version AS library_version
+        FROM library l
+        LEFT JOIN library_info li ON l.id = li.id
+        LEFT JOIN library_book lb ON l.id = lb.library_id
+        LEFT JOIN book b ON lb.book_id = b.id
+        WHERE l.id IN (%s)
+        ORDER BY l.id
+    """;
+
+    public static final String FIND_LIBRARY_SUMMARIES_PAGE = """
+        SELECT l.id, l.name, COUNT(lb.book_id) AS book_count
+        FROM library l
+        LEFT JOIN library_book lb ON l.id = lb.library_id
+        WHERE l.id > ?
+        GROUP BY l.id, l.name
+        ORDER BY l.id
+        LIMIT ?
+    """;
+
+    public static final String EXISTS_LIBRARY_BY_ID = """
+        SELECT 1 FROM library WHERE id = ? LIMIT 1
+    """;
+
+    public static final String COUNT_LIBRARIES = """
+        SELECT COUNT(*) FROM library
+    """;
+
+    public static final String COUNT_BOOKS_BY_LIBRARY_ID = """
+        SELECT COUNT(*) FROM library_book WHERE library_id = ?
     """;
 
     public static final String INSERT_LIBRARY = """
@@ -99,12 +288,34 @@ public enum QueryStatements {
         INSERT INTO library_info (id, address, phone) VALUES (?,?,?)
     """;
 
+    public static final String UPSERT_LIBRARY = """
+        INSERT INTO library (id, name)
+        VALUES (?, ?)
+        ON DUPLICATE KEY UPDATE name = VALUES(name), version = version + 1
+    """;
+
+    public static final String UPSERT_LIBRARY_INFO = """
+        INSERT INTO library_info (id, address, phone)
+        VALUES (?, ?, ?)
+        ON DUPLICATE KEY UPDATE address = VALUES(address), phone = VALUES(phone)
+    """;
+
+    public static final String FIND_EXISTING_LIBRARY_IDS = """
+        SELECT id FROM library WHERE id IN (%s)
+    """;
+
     public static final String UPDATE_LIBRARY = """
         UPDATE library
-        SET name = ?
+        SET name = ?, version = version + 1
         WHERE id = ?
     """;
 
+    public static final String UPDATE_LIBRARY_IF_VERSION = """
+        UPDATE library
+        SET name = ?, version = version + 1
+        WHERE id = ? AND version = ?
+    """;
+
     public static final String UPDATE_LIBRARY_INFO = """
         UPDATE library_info
         SET address = ?, phone = ?
@@ -118,4 +329,245 @@ public enum QueryStatements {
     public static final String DELETE_LIBRARY_INFO = """
         DELETE FROM library_info WHERE id = ?
     """;
+
+    public static final String FIND_BOOK_IDS_BY_LIBRARY_ID = """
+        SELECT book_id
+        FROM library_book
+        WHERE library_id = ?
+        ORDER BY book_id
+    """;
+
+    public static final String INSERT_LIBRARY_BOOKS = """
+        INSERT IGNORE INTO library_book (library_id, book_id)
+        SELECT l.id, b.id
+        FROM library l
+        JOIN book b ON b.id IN (%s)
+        WHERE l.id = ?
+    """;
+
+    public static final String INSERT_LIBRARY_BOOK = """
+        INSERT IGNORE INTO library_book (library_id, book_id)
+        SELECT l.id, b.id
+        FROM library l
+        JOIN book b ON b.id = ?
+        WHERE l.id = ?
+    """;
+
+    public static final String DELETE_LIBRARY_BOOKS = """
+        DELETE FROM library_book
+        WHERE library_id = ? AND book_id IN (%s)
+    """;
+
+    //outbox
+    public static final String INSERT_OUTBOX_EVENT = """
+        INSERT INTO outbox (entity, entity_id, change_type, created_at)
+        VALUES (?, ?, ?, ?)
+    """;
+
+    public static final String INSERT_OUTBOX_BOOKS_BY_AUTHOR_ID = """
+        INSERT INTO outbox (entity, entity_id, change_type, created_at)
+        SELECT 'BOOK', id, ?, ?
+        FROM book
+        WHERE author_id = ?
+        ORDER BY id
+    """;
+
+    // run before the rename: only the books of a library whose name is about to change
+    public static final String INSERT_OUTBOX_BOOKS_OF_RENAMED_LIBRARY = """
+        INSERT INTO outbox (entity, entity_id, change_type, created_at)
+        SELECT 'BOOK', lb.book_id, ?, ?
+        FROM library_book lb
+        JOIN library l ON l.id = lb.library_id
+        WHERE l.id = ? AND l.name <> ?
+        ORDER BY lb.book_id
+    """;
+
+    public static final String FIND_OUTBOX_EVENTS_AFTER = """
+        SELECT id, entity, entity_id, change_type, created_at
+        FROM outbox
+        WHERE id > ?
+        ORDER BY id
+        LIMIT ?
+    """;
+
+    public static final String FIND_OUTBOX_EVENTS_BY_IDS = """
+        SELECT id, entity, entity_id, change_type, created_at
+        FROM outbox
+        WHERE id IN (%s)
+        ORDER BY id
+    """;
+
+    public static final String FIND_LAST_OUTBOX_ID = """
+        SELECT COALESCE(MAX(id), 0) FROM outbox
+    """;
+
+    public static final String DELETE_OUTBOX_EVENTS_BEFORE = """
+        DELETE FROM outbox
+        WHERE id <= ? AND created_at < ?
+    """;
+
+    //modification tracking
+    // rows written within repository.delta.margin of the database clock are left for a later call
+    public static final String FIND_AUTHORS_MODIFIED_AFTER = """
+        SELECT id, updated_at
+        FROM author
+        WHERE updated_at >= ? AND (updated_at > ? OR id > ?)
+          AND updated_at <= TIMESTAMPADD(MICROSECOND, ?, CURRENT_TIMESTAMP(3))
+        ORDER BY updated_at, id
+        LIMIT ?
+    """;
+
+    // a book also changes when it is linked to a library; unlinks touch book.updated_at
+    public static final String FIND_BOOKS_MODIFIED_AFTER = """
+        SELECT id, MAX(modified_at) AS modified_at
+        FROM (
+            SELECT id, updated_at AS modified_at FROM book
+            WHERE updated_at >= ? AND updated_at <= TIMESTAMPADD(MICROSECOND, ?, CURRENT_TIMESTAMP(3))
+            UNION ALL
+            SELECT book_id, updated_at FROM library_book
+            WHERE updated_at >= ? AND updated_at <= TIMESTAMPADD(MICROSECOND, ?, CURRENT_TIMESTAMP(3))
+        ) modified
+        GROUP BY id
+        HAVING MAX(modified_at) > ? OR id > ?
+        ORDER BY modified_at, id
+        LIMIT ?
+    """;
+
+    public static final String FIND_LIBRARIES_MODIFIED_AFTER = """
+        SELECT id, updated_at
+        FROM library
+        WHERE updated_at >= ? AND (updated_at > ? OR id > ?)
+          AND updated_at <= TIMESTAMPADD(MICROSECOND, ?, CURRENT_TIMESTAMP(3))
+        ORDER BY updated_at, id
+        LIMIT ?
+    """;
+
+    public static final String FIND_TOMBSTONES_AFTER = """
+        SELECT entity_id, deleted_at
+        FROM tombstone
+        WHERE entity = ? AND deleted_at >= ? AND (deleted_at > ? OR entity_id > ?)
+          AND deleted_at <= TIMESTAMPADD(MICROSECOND, ?, CURRENT_TIMESTAMP(3))
+        ORDER BY deleted_at, entity_id
+        LIMIT ?
+    """;
+
+    public static final String INSERT_TOMBSTONE = """
+        INSERT INTO tombstone (entity, entity_id) VALUES (?, ?)
+    """;
+
+    public static final String INSERT_TOMBSTONES_FOR_BOOKS_BY_AUTHOR_ID = """
+        INSERT INTO tombstone (entity, entity_id)
+        SELECT 'BOOK', id FROM book WHERE author_id = ?
+    """;
+
+    public static final String TOUCH_AUTHORS = """
+        UPDATE author SET updated_at = CURRENT_TIMESTAMP(3) WHERE id IN (%s)
+    """;
+
+    public static final String TOUCH_AUTHORS_BY_BOOK_IDS = """
+        UPDATE author SET updated_at = CURRENT_TIMESTAMP(3)
+        WHERE id IN (SELECT author_id FROM book WHERE id IN (%s))
+    """;
+
+    public static final String TOUCH_BOOKS = """
+        UPDATE book SET updated_at = CURRENT_TIMESTAMP(3) WHERE id IN (%s)
+    """;
+
+    public static final String TOUCH_BOOKS_BY_LIBRARY_IDS = """
+        UPDATE book SET updated_at = CURRENT_TIMESTAMP(3)
+        WHERE id IN (SELECT book_id FROM library_book WHERE library_id IN (%s))
+    """;
+
+    // run before the rename, like INSERT_OUTBOX_BOOKS_OF_RENAMED_LIBRARY
+    public static final String TOUCH_BOOKS_OF_RENAMED_LIBRARY = """
+        UPDATE book SET updated_at = CURRENT_TIMESTAMP(3)
+        WHERE id IN (
+            SELECT lb.book_id
+            FROM library_book lb
+            JOIN library l ON l.id = lb.library_id
+            WHERE l.id = ? AND l.name <> ?
+        )
+    """;
+
+    public static final String TOUCH_LIBRARIES = """
+        UPDATE library SET updated_at = CURRENT_TIMESTAMP(3) WHERE id IN (%s)
+    """;
+
+    public static final String TOUCH_LIBRARIES_BY_BOOK_IDS = """
+        UPDATE library SET updated_at = CURRENT_TIMESTAMP(3)
+        WHERE id IN (SELECT library_id FROM library_book WHERE book_id IN (%s))
+    """;
+
+    public static final String TOUCH_LIBRARIES_BY_AUTHOR_ID = """
+        UPDATE library SET updated_at = CURRENT_TIMESTAMP(3)
+        WHERE id IN (
+            SELECT lb.library_id
+            FROM library_book lb
+            JOIN book b ON b.id = lb.book_id
+            WHERE b.author_id = ?
+        )
+    """;
+
+    //search
+    // ! escapes the LIKE wildcards, see TextSearch.likePrefix
+    public static final String SEARCH_BOOK_IDS_BY_TITLE = """
+        SELECT id
+        FROM book
+        WHERE title LIKE ? ESCAPE '!'
+        ORDER BY title, id
+        LIMIT ?
+    """;
+
+    public static final String SEARCH_BOOK_IDS_BY_TITLE_FULL_TEXT = """
+        SELECT id
+        FROM book
+        WHERE MATCH(title) AGAINST (? IN BOOLEAN MODE)
+        ORDER BY MATCH(title) AGAINST (? IN BOOLEAN MODE) DESC, id
+        LIMIT ?
+    """;
+
+    // one range scan per name index instead of an OR that would scan the table; each branch keeps
+    // its first rows in the final order, so the first-name matches are sorted after the scan
+    public static final String SEARCH_AUTHOR_IDS_BY_NAME = """
+        SELECT id
+        FROM (
+            (SELECT id, first_name, last_name
+             FROM author
+             WHERE last_name LIKE ? ESCAPE '!'
+             ORDER BY last_name, first_name, id
+             LIMIT ?)
+            UNION
+            (SELECT id, first_name, last_name
+             FROM author
+             WHERE first_name LIKE ? ESCAPE '!'
+             ORDER BY last_name, first_name, id
+             LIMIT ?)
+        ) matched
+        ORDER BY last_name, first_name, id
+        LIMIT ?
+    """;
+
+    public static final String SEARCH_AUTHOR_IDS_BY_NAME_FULL_TEXT = """
+        SELECT id
+        FROM author
+        WHERE MATCH(first_name, last_name) AGAINST (? IN BOOLEAN MODE)
+        ORDER BY MATCH(first_name, last_name) AGAINST (? IN BOOLEAN MODE) DESC, id
+        LIMIT ?
+    """;
+
+    public static final String SEARCH_LIBRARY_IDS_BY_NAME = """
+        SELECT id
+        FROM library
+        WHERE name LIKE ? ESCAPE '!'
+        ORDER BY name, id
+        LIMIT ?
+    """;
+
+    public static final String SEARCH_LIBRARY_IDS_BY_NAME_FULL_TEXT = """
+        SELECT id
+        FROM library
+        WHERE MATCH(name) AGAINST (? IN BOOLEAN MODE)
+        ORDER BY MATCH(name) AGAINST (? IN BOOLEAN MODE) DESC, id
+        LIMIT ?
+    """;
 }
@@ -0,0 +1,130 @@
+package org.example.springjdbc.helper;
+
+import org.example.springjdbc.repository.metrics.RepositoryMetrics;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Folds joined rows into aggregates, one per root id. The query must be ordered by the root id,
+ * so an aggregate is complete as soon as a row with a different id is read. Each aggregate is
+ * built in place, then passed once through the finisher, e.g. to freeze its collections.
+ * <p>
+ * The first of the columns is the root id. They are resolved once per extraction and handed to
+ * the root mapper and accumulator, so one aggregator is safely shared between queries.
+ */
+public class RowAggregator<A> implements ResultSetExtractor<List<A>> {
+    @FunctionalInterface
+    public interface RootMapper<A> {
+        A map(ResultSet rs, int[] col) throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface Accumulator<A> {
+        void accumulate(A aggregate, ResultSet rs, int[] col) throws SQLException;
+    }
+
+    private final Columns columns;
+    private final RootMapper<A> rootMapper;
+    private final Accumulator<A> accumulator;
+    private final UnaryOperator<A> finisher;
+
+    public RowAggregator(Columns columns, RootMapper<A> rootMapper, Accumulator<A> accumulator) {
+        this(columns, rootMapper, accumulator, UnaryOperator.identity());
+    }
+
+    public RowAggregator(Columns columns, RootMapper<A> rootMapper, Accumulator<A> accumulator,
+                         UnaryOperator<A> finisher) {
+        this.columns = columns;
+        this.rootMapper = rootMapper;
+        this.accumulator = accumulator;
+        this.finisher = finisher;
+    }
+
+    @Override
+    public List<A> extractData(ResultSet rs) throws SQLException {
+        List<A> aggregates = new ArrayList<>();
+        A current = null;
+        long currentId = 0;
+        int rowNum = 0;
+        int[] col = columns.resolve(rs);
+
+        while (rs.next()) {
+            long rootId = rs.getLong(col[0]);
+            if (current == null || rootId != currentId) {
+                if (current != null) {
+                    aggregates.add(finisher.apply(current));
+                }
+                current = rootMapper.map(rs, col);
+                currentId = rootId;
+            }
+            accumulator.accumulate(current, rs, col);
+            rowNum++;
+        }
+        if (current != null) {
+            aggregates.add(finisher.apply(current));
+        }
+        RepositoryMetrics.rowsRead(rowNum);
+        return aggregates;
+    }
+
+    /**
+     * Aggregates a cursor stream as produced by {@link Streaming#cursor}. Every element is the
+     * same ResultSet positioned on the next row, so each row is fully read before advancing.
+     */
+    public Stream<A> stream(Stream<ResultSet> cursor) {
+        Iterator<ResultSet> rows = cursor.iterator();
+
+        Spliterator<A> spliterator = new Spliterators.AbstractSpliterator<>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            private ResultSet pending;
+            private int[] col;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super A> action) {
+                try {
+                    if (pending == null) {
+                        if (!rows.hasNext()) {
+                            return false;
+                        }
+                        pending = rows.next();
+                    }
+
+                    if (col == null) {
+                        col = columns.resolve(pending);
+                    }
+                    long rootId = pending.getLong(col[0]);
+                    A aggregate = rootMapper.map(pending, col);
+                    accumulator.accumulate(aggregate, pending, col);
+                    pending = null;
+
+                    while (rows.hasNext()) {
+                        ResultSet rs = rows.next();
+                        if (rs.getLong(col[0]) != rootId) {
+                            pending = rs;
+                            break;
+                        }
+                        accumulator.accumulate(aggregate, rs, col);
+                    }
+
+                    action.accept(finisher.apply(aggregate));
+                    return true;
+                } catch (SQLException e) {
+                    throw new RuntimeException("Error aggregating streamed rows", e);
+                }
+            }
+        };
+
+        return StreamSupport.stream(spliterator, false).onClose(cursor::close);
+    }
+}
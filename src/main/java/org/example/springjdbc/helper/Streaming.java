@@ -0,0 +1,40 @@
+package org.example.springjdbc.helper;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.stream.Stream;
+
+public enum Streaming {
+    ;
+
+    /**
+     * Forward-only, read-only statement with the given fetch size. On MySQL a fetch size of
+     * Integer.MIN_VALUE switches the driver to row-by-row streaming instead of buffering the
+     * whole result; the connection cannot run other statements until the stream is closed.
+     */
+    public static PreparedStatementCreator forwardOnly(String sql, int fetchSize, Object... args) {
+        return connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    sql,
+                    ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY
+            );
+            ps.setFetchSize(fetchSize);
+            for (int i = 0; i < args.length; i++) {
+                ps.setObject(i + 1, args[i]);
+            }
+            return ps;
+        };
+    }
+
+    /**
+     * Streams the raw ResultSet once per row, to be folded by {@link RowAggregator#stream}.
+     * Closing the returned stream releases the statement and the connection.
+     */
+    public static Stream<ResultSet> cursor(JdbcTemplate jdbcTemplate, PreparedStatementCreator psc) {
+        return jdbcTemplate.queryForStream(psc, (rs, rowNum) -> rs);
+    }
+}
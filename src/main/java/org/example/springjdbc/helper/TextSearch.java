@@ -0,0 +1,54 @@
+package org.example.springjdbc.helper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public enum TextSearch {
+    ;
+
+    /**
+     * LIKE pattern for values starting with prefix, for statements declaring ESCAPE '!'. MySQL
+     * and H2 read a backslash escape differently, so the escape character is spelled out.
+     */
+    public static String likePrefix(String prefix) {
+        return prefix.replace("!", "!!")
+                .replace("%", "!%")
+                .replace("_", "!_") + "%";
+    }
+
+    /**
+     * BOOLEAN MODE query requiring a word starting with each word of text, e.g. "+lord* +ring*".
+     * Operator characters are dropped. Empty when text has no words, which MATCH would reject.
+     * Truncated terms are kept even when shorter than innodb_ft_min_token_size.
+     */
+    public static String fullTextPrefixes(String text) {
+        return Arrays.stream(text.split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .map(word -> "+" + word + "*")
+                .collect(Collectors.joining(" "));
+    }
+
+    /**
+     * The aggregates in the order of the ids a search returned; ids deleted since are left out.
+     */
+    public static <T> List<T> inOrder(List<Long> ids, Collection<T> aggregates, Function<T, Long> id) {
+        Map<Long, T> byId = new HashMap<>();
+        for (T aggregate : aggregates) {
+            byId.put(id.apply(aggregate), aggregate);
+        }
+        List<T> ordered = new ArrayList<>(ids.size());
+        for (Long matchedId : ids) {
+            T aggregate = byId.get(matchedId);
+            if (aggregate != null) {
+                ordered.add(aggregate);
+            }
+        }
+        return ordered;
+    }
+}
@@ -6,5 +6,13 @@ public record Author(
         Long id,
         String firstName,
         String lastName,
-        Set<Book> books
-) {}
+        Set<Book> books,
+        Long version
+) {
+    /**
+     * An author without a known version: its updates are not checked for concurrent changes.
+     */
+    public Author(Long id, String firstName, String lastName, Set<Book> books) {
+        this(id, firstName, lastName, books, null);
+    }
+}
@@ -8,5 +8,13 @@ public record Book(
         Long authorId,
         String title,
         LocalDate releaseDate,
-        Set<Library> libraries
-) {}
+        Set<Library> libraries,
+        Long version
+) {
+    /**
+     * A book without a known version: its updates are not checked for concurrent changes.
+     */
+    public Book(Long id, Long authorId, String title, LocalDate releaseDate, Set<Library> libraries) {
+        this(id, authorId, title, releaseDate, libraries, null);
+    }
+}
@@ -0,0 +1,6 @@
+package org.example.springjdbc.model;
+
+public record BookSummary(
+        Long id,
+        String title
+) {}
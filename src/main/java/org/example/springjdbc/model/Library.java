@@ -6,5 +6,14 @@ public record Library(
         Long id,
         String name,
         LibraryInfo libraryInfo,
-        Set<Book> books
-) {}
+        Set<Book> books,
+        Long version
+) {
+    /**
+     * A library without a known version: its updates are not checked for concurrent changes.
+     * The version covers library_info as well.
+     */
+    public Library(Long id, String name, LibraryInfo libraryInfo, Set<Book> books) {
+        this(id, name, libraryInfo, books, null);
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.springjdbc.model;
+
+public record LibrarySummary(
+        Long id,
+        String name,
+        long bookCount
+) {}
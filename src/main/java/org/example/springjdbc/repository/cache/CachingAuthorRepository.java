@@ -0,0 +1,135 @@
+package org.example.springjdbc.repository.cache;
+
+import org.example.springjdbc.model.Author;
+import org.example.springjdbc.repository.declaration.Delta;
+import org.example.springjdbc.repository.declaration.AuthorRepository;
+import org.example.springjdbc.repository.declaration.UpsertResult;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Read-through cache in front of the JDBC AuthorRepository for the findById paths.
+ * Deleting an author cascades to its books, so those are evicted along with it.
+ */
+@Primary
+@Repository
+@ConditionalOnProperty(prefix = "repository.cache", name = "enabled", havingValue = "true")
+public class CachingAuthorRepository implements AuthorRepository {
+    private final AuthorRepository delegate;
+    private final RepositoryCaches caches;
+
+    public CachingAuthorRepository(@Qualifier("authorRepository") AuthorRepository delegate,
+                                   RepositoryCaches caches) {
+        this.delegate = delegate;
+        this.caches = caches;
+    }
+
+    @Override
+    public Optional<Author> findByIdWithoutAssociations(long id) {
+        return caches.author(id, delegate::findByIdWithoutAssociations);
+    }
+
+    @Override
+    public Optional<Author> findByIdWithAssociations(long id) {
+        return caches.authorWithBooks(id, delegate::findByIdWithAssociations);
+    }
+
+    @Override
+    public Set<Author> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Set<Author> findAllWithAssociations(Collection<Long> ids) {
+        return delegate.findAllWithAssociations(ids);
+    }
+
+    @Override
+    public Stream<Author> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public List<Author> findPage(long afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public Delta<Author> findModifiedSince(Delta.Cursor after, int limit) {
+        return delegate.findModifiedSince(after, limit);
+    }
+
+    @Override
+    public List<Author> searchAuthorsByName(String prefix, int limit) {
+        return delegate.searchAuthorsByName(prefix, limit);
+    }
+
+    @Override
+    public boolean existsById(long id) {
+        return caches.authors().asMap().containsKey(id)
+                || caches.authorsWithBooks().asMap().containsKey(id)
+                || delegate.existsById(id);
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public Author create(Author author) {
+        return delegate.create(author);
+    }
+
+    @Override
+    public List<Long> createAll(Collection<Author> authors) {
+        return delegate.createAll(authors);
+    }
+
+    @Override
+    public Author update(long id, Author author) {
+        try {
+            return delegate.update(id, author);
+        } finally {
+            caches.evict(() -> caches.evictAuthor(id));
+        }
+    }
+
+    @Override
+    public UpsertResult upsert(Author author) {
+        try {
+            return delegate.upsert(author);
+        } finally {
+            caches.evict(() -> {
+                if (author.id() != null) {
+                    caches.evictAuthor(author.id());
+                }
+            });
+        }
+    }
+
+    @Override
+    public UpsertResult upsertAll(Collection<Author> authors) {
+        try {
+            return delegate.upsertAll(authors);
+        } finally {
+            caches.evict(() -> authors.stream()
+                    .filter(author -> author.id() != null)
+                    .forEach(author -> caches.evictAuthor(author.id())));
+        }
+    }
+
+    @Override
+    public boolean delete(long id) {
+        try {
+            return delegate.delete(id);
+        } finally {
+            caches.evict(() -> caches.evictAuthorWithBooks(id));
+        }
+    }
+}
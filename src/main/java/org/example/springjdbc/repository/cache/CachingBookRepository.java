@@ -0,0 +1,168 @@
+package org.example.springjdbc.repository.cache;
+
+import org.example.springjdbc.model.Book;
+import org.example.springjdbc.model.BookSummary;
+import org.example.springjdbc.repository.declaration.Delta;
+import org.example.springjdbc.repository.declaration.BookRepository;
+import org.example.springjdbc.repository.declaration.UpsertResult;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Read-through cache in front of the JDBC BookRepository. Writes evict the book together with
+ * the author aggregate (old and new author on update) and the libraries that embed it.
+ */
+@Primary
+@Repository
+@ConditionalOnProperty(prefix = "repository.cache", name = "enabled", havingValue = "true")
+public class CachingBookRepository implements BookRepository {
+    private final BookRepository delegate;
+    private final RepositoryCaches caches;
+
+    public CachingBookRepository(@Qualifier("bookRepository") BookRepository delegate,
+                                 RepositoryCaches caches) {
+        this.delegate = delegate;
+        this.caches = caches;
+    }
+
+    @Override
+    public Optional<Book> findByIdWithAssociations(Long id) {
+        return caches.bookWithLibraries(id, delegate::findByIdWithAssociations);
+    }
+
+    @Override
+    public Set<Book> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Set<Book> findAllWithAssociations(Collection<Long> ids) {
+        return delegate.findAllWithAssociations(ids);
+    }
+
+    @Override
+    public Stream<Book> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public List<Book> findPage(long afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public List<BookSummary> findSummaryPage(long afterId, int limit) {
+        return delegate.findSummaryPage(afterId, limit);
+    }
+
+    @Override
+    public Delta<Book> findModifiedSince(Delta.Cursor after, int limit) {
+        return delegate.findModifiedSince(after, limit);
+    }
+
+    @Override
+    public List<Book> searchBooksByTitle(String prefix, int limit) {
+        return delegate.searchBooksByTitle(prefix, limit);
+    }
+
+    @Override
+    public boolean existsById(long id) {
+        return caches.booksWithLibraries().asMap().containsKey(id) || delegate.existsById(id);
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public long countBooksByAuthor(long authorId) {
+        return delegate.countBooksByAuthor(authorId);
+    }
+
+    @Override
+    public Book create(Book book) {
+        try {
+            return delegate.create(book);
+        } finally {
+            caches.evict(() -> evictAuthorOf(book));
+        }
+    }
+
+    @Override
+    public List<Long> createAll(Collection<Book> books) {
+        try {
+            return delegate.createAll(books);
+        } finally {
+            caches.evict(() -> evictAuthorsOf(books));
+        }
+    }
+
+    @Override
+    public Book update(long id, Book book) {
+        try {
+            return delegate.update(id, book);
+        } finally {
+            caches.evict(() -> {
+                caches.evictBook(id);
+                evictAuthorOf(book);
+            });
+        }
+    }
+
+    @Override
+    public UpsertResult upsert(Book book) {
+        try {
+            return delegate.upsert(book);
+        } finally {
+            caches.evict(() -> {
+                if (book.id() != null) {
+                    caches.evictBook(book.id());
+                }
+                evictAuthorOf(book);
+            });
+        }
+    }
+
+    @Override
+    public UpsertResult upsertAll(Collection<Book> books) {
+        try {
+            return delegate.upsertAll(books);
+        } finally {
+            caches.evict(() -> {
+                caches.evictBooks(books.stream()
+                        .map(Book::id)
+                        .filter(Objects::nonNull)
+                        .toList());
+                evictAuthorsOf(books);
+            });
+        }
+    }
+
+    @Override
+    public boolean delete(long id) {
+        try {
+            return delegate.delete(id);
+        } finally {
+            caches.evict(() -> caches.evictBook(id));
+        }
+    }
+
+    private void evictAuthorOf(Book book) {
+        if (book.authorId() != null) {
+            caches.authorsWithBooks().invalidate(book.authorId());
+        }
+    }
+
+    private void evictAuthorsOf(Collection<Book> books) {
+        caches.authorsWithBooks().invalidateAll(books.stream()
+                .map(Book::authorId)
+                .filter(Objects::nonNull)
+                .toList());
+    }
+}
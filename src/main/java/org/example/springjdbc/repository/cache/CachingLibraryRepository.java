@@ -0,0 +1,249 @@
+package org.example.springjdbc.repository.cache;
+
+import org.example.springjdbc.model.Book;
+import org.example.springjdbc.model.Library;
+import org.example.springjdbc.model.LibrarySummary;
+import org.example.springjdbc.repository.declaration.Delta;
+import org.example.springjdbc.repository.declaration.FetchStrategy;
+import org.example.springjdbc.repository.declaration.LibraryRepository;
+import org.example.springjdbc.repository.declaration.UpsertResult;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Read-through cache in front of the JDBC LibraryRepository. Both fetch strategies produce the
+ * same aggregate and share one cache entry. Writes evict the library and the books listing it.
+ */
+@Primary
+@Repository
+@ConditionalOnProperty(prefix = "repository.cache", name = "enabled", havingValue = "true")
+public class CachingLibraryRepository implements LibraryRepository {
+    private final LibraryRepository delegate;
+    private final RepositoryCaches caches;
+
+    public CachingLibraryRepository(@Qualifier("libraryRepository") LibraryRepository delegate,
+                                    RepositoryCaches caches) {
+        this.delegate = delegate;
+        this.caches = caches;
+    }
+
+    @Override
+    public Optional<Library> findById(Long id) {
+        return caches.library(id, delegate::findById);
+    }
+
+    @Override
+    public Optional<Library> findById(Long id, FetchStrategy fetchStrategy) {
+        return caches.library(id, key -> delegate.findById(key, fetchStrategy));
+    }
+
+    @Override
+    public List<Library> findAllById(Collection<Long> ids) {
+        Map<Long, Library> cached = caches.libraries().getAllPresent(ids);
+        List<Long> missing = ids.stream().filter(id -> !cached.containsKey(id)).distinct().toList();
+
+        Map<Long, Library> loaded = new HashMap<>();
+        if (!missing.isEmpty()) {
+            for (Library library : delegate.findAllById(missing)) {
+                loaded.put(library.id(), library);
+            }
+            caches.putLibraries(loaded.values());
+        }
+
+        List<Library> libraries = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            Library library = cached.containsKey(id) ? cached.get(id) : loaded.get(id);
+            if (library != null) {
+                libraries.add(library);
+            }
+        }
+        return libraries;
+    }
+
+    @Override
+    public CompletableFuture<Optional<Library>> findByIdAsync(Long id) {
+        Library cached = caches.libraries().getIfPresent(id);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(Optional.of(cached));
+        }
+        return delegate.findByIdAsync(id).thenApply(library -> {
+            library.ifPresent(found -> caches.putLibraries(List.of(found)));
+            return library;
+        });
+    }
+
+    @Override
+    public Set<Library> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Stream<Library> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public List<Library> findPage(long afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public List<LibrarySummary> findSummaryPage(long afterId, int limit) {
+        return delegate.findSummaryPage(afterId, limit);
+    }
+
+    @Override
+    public Delta<Library> findModifiedSince(Delta.Cursor after, int limit) {
+        return delegate.findModifiedSince(after, limit);
+    }
+
+    @Override
+    public List<Library> searchLibrariesByName(String prefix, int limit) {
+        return delegate.searchLibrariesByName(prefix, limit);
+    }
+
+    @Override
+    public boolean existsById(long id) {
+        return caches.libraries().asMap().containsKey(id) || delegate.existsById(id);
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public long countBooks(long libraryId) {
+        return delegate.countBooks(libraryId);
+    }
+
+    @Override
+    public long create(Library library) {
+        try {
+            return delegate.create(library);
+        } finally {
+            caches.evict(() -> caches.booksWithLibraries().invalidateAll(bookIds(library)));
+        }
+    }
+
+    @Override
+    public List<Long> createAll(Collection<Library> libraries) {
+        try {
+            return delegate.createAll(libraries);
+        } finally {
+            caches.evict(() -> libraries.forEach(library -> caches.booksWithLibraries().invalidateAll(bookIds(library))));
+        }
+    }
+
+    @Override
+    public void update(long id, Library library) {
+        try {
+            delegate.update(id, library);
+        } finally {
+            caches.evict(() -> caches.evictLibrary(id));
+        }
+    }
+
+    @Override
+    public int updateAll(Collection<Library> libraries) {
+        try {
+            return delegate.updateAll(libraries);
+        } finally {
+            caches.evict(() -> caches.evictLibraries(libraries.stream().map(Library::id).toList()));
+        }
+    }
+
+    @Override
+    public UpsertResult upsert(Library library) {
+        try {
+            return delegate.upsert(library);
+        } finally {
+            caches.evict(() -> {
+                if (library.id() != null) {
+                    caches.evictLibrary(library.id());
+                }
+            });
+        }
+    }
+
+    @Override
+    public UpsertResult upsertAll(Collection<Library> libraries) {
+        try {
+            return delegate.upsertAll(libraries);
+        } finally {
+            caches.evict(() -> caches.evictLibraries(libraries.stream()
+                    .map(Library::id)
+                    .filter(Objects::nonNull)
+                    .toList()));
+        }
+    }
+
+    @Override
+    public boolean delete(long id) {
+        try {
+            return delegate.delete(id);
+        } finally {
+            caches.evict(() -> caches.evictLibrary(id));
+        }
+    }
+
+    @Override
+    public int deleteAll(Collection<Long> ids) {
+        try {
+            return delegate.deleteAll(ids);
+        } finally {
+            caches.evict(() -> caches.evictLibraries(ids));
+        }
+    }
+
+    @Override
+    public int addBooks(long libraryId, long[] bookIds) {
+        try {
+            return delegate.addBooks(libraryId, bookIds);
+        } finally {
+            caches.evict(() -> {
+                caches.evictLibrary(libraryId);
+                caches.booksWithLibraries().invalidateAll(LongStream.of(bookIds).boxed().toList());
+            });
+        }
+    }
+
+    @Override
+    public int removeBooks(long libraryId, long[] bookIds) {
+        try {
+            return delegate.removeBooks(libraryId, bookIds);
+        } finally {
+            caches.evict(() -> {
+                caches.evictLibrary(libraryId);
+                caches.booksWithLibraries().invalidateAll(LongStream.of(bookIds).boxed().toList());
+            });
+        }
+    }
+
+    @Override
+    public int replaceBooks(long libraryId, long[] bookIds) {
+        try {
+            return delegate.replaceBooks(libraryId, bookIds);
+        } finally {
+            caches.evict(() -> {
+                // cached books that listed the library, including the unlinked ones, go with it
+                caches.evictLibrary(libraryId);
+                caches.booksWithLibraries().invalidateAll(LongStream.of(bookIds).boxed().toList());
+            });
+        }
+    }
+
+    private static List<Long> bookIds(Library library) {
+        if (library.books() == null) {
+            return List.of();
+        }
+        return library.books().stream().map(Book::id).filter(Objects::nonNull).toList();
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.springjdbc.repository.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reverse index from an embedded id to the keys of the cached aggregates embedding it, so a write
+ * evicts those aggregates by key instead of scanning the cache.
+ * <p>
+ * An aggregate is registered before it becomes visible in its cache and unregistered when the
+ * cache removes it, so the index never misses a cached aggregate. It may briefly list a key that
+ * is already gone, which only costs an invalidate of a missing key. A removal that arrives after
+ * the key was registered again with a newer aggregate is ignored.
+ */
+final class EmbeddingIndex {
+    private record Registration(Object aggregate, Set<Long> embedded) {}
+
+    private final Map<Long, Registration> registrations = new HashMap<>();
+    private final Map<Long, Set<Long>> embeddedIn = new HashMap<>();
+
+    synchronized void register(long key, Object aggregate, Set<Long> embeddedIds) {
+        unlink(key);
+        registrations.put(key, new Registration(aggregate, embeddedIds));
+        for (Long id : embeddedIds) {
+            embeddedIn.computeIfAbsent(id, ignored -> new HashSet<>()).add(key);
+        }
+    }
+
+    synchronized void unregister(long key, Object aggregate) {
+        Registration registration = registrations.get(key);
+        if (registration != null && registration.aggregate() == aggregate) {
+            unlink(key);
+        }
+    }
+
+    /**
+     * Keys of the aggregates embedding any of the ids.
+     */
+    synchronized List<Long> keysEmbedding(Iterable<Long> ids) {
+        Set<Long> keys = new HashSet<>();
+        for (Long id : ids) {
+            keys.addAll(embeddedIn.getOrDefault(id, Set.of()));
+        }
+        return new ArrayList<>(keys);
+    }
+
+    private void unlink(long key) {
+        Registration registration = registrations.remove(key);
+        if (registration == null) {
+            return;
+        }
+        for (Long id : registration.embedded()) {
+            Set<Long> keys = embeddedIn.get(id);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                embeddedIn.remove(id);
+            }
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package org.example.springjdbc.repository.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.springjdbc.model.Author;
+import org.example.springjdbc.model.Book;
+import org.example.springjdbc.model.Library;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded read-through caches shared by the caching repository decorators. Aggregates embed
+ * each other (an author holds its books, a library holds its books, a book holds its libraries),
+ * so a write to one entity also evicts every cached aggregate that embeds it. Those are found
+ * through an {@link EmbeddingIndex} per relation, so a write costs a lookup per changed id rather
+ * than a scan of the caches. Entries are additionally bounded by time, which caps staleness from
+ * writes made outside the repositories, e.g. by other instances.
+ * <p>
+ * Writes evict through {@link #evict(Runnable)}, which repeats the eviction once a surrounding
+ * transaction completes, so a read between the write and its commit cannot keep the old row.
+ * <p>
+ * With a MeterRegistry, each cache reports the Caffeine statistics as cache.* meters tagged by
+ * cache name.
+ */
+@Component
+@ConditionalOnProperty(prefix = "repository.cache", name = "enabled", havingValue = "true")
+public class RepositoryCaches {
+    private final EmbeddingIndex booksInAuthors = new EmbeddingIndex();
+    private final EmbeddingIndex booksInLibraries = new EmbeddingIndex();
+    private final EmbeddingIndex authorsInLibraries = new EmbeddingIndex();
+    private final EmbeddingIndex librariesInBooks = new EmbeddingIndex();
+    private final EmbeddingIndex authorsInBooks = new EmbeddingIndex();
+
+    private final Cache<Long, Author> authors;
+    private final Cache<Long, Author> authorsWithBooks;
+    private final Cache<Long, Book> booksWithLibraries;
+    private final Cache<Long, Library> libraries;
+
+    public RepositoryCaches(@Value("${repository.cache.maximum-size:10000}") long maximumSize,
+                            @Value("${repository.cache.expire-after-write:10m}") Duration expireAfterWrite,
+                            ObjectProvider<MeterRegistry> registry) {
+        this.authors = newCache(maximumSize, expireAfterWrite, List.of());
+        this.authorsWithBooks = newCache(maximumSize, expireAfterWrite, List.of(booksInAuthors));
+        this.booksWithLibraries = newCache(maximumSize, expireAfterWrite, List.of(librariesInBooks, authorsInBooks));
+        this.libraries = newCache(maximumSize, expireAfterWrite, List.of(booksInLibraries, authorsInLibraries));
+
+        registry.ifAvailable(meters -> {
+            CaffeineCacheMetrics.monitor(meters, authors, "authors");
+            CaffeineCacheMetrics.monitor(meters, authorsWithBooks, "authorsWithBooks");
+            CaffeineCacheMetrics.monitor(meters, booksWithLibraries, "booksWithLibraries");
+            CaffeineCacheMetrics.monitor(meters, libraries, "libraries");
+        });
+    }
+
+    private static <V> Cache<Long, V> newCache(long maximumSize, Duration expireAfterWrite,
+                                               List<EmbeddingIndex> indexes) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                // on the removing thread, so the indexes follow the cache without a backlog
+                .executor(Runnable::run)
+                .<Long, V>removalListener((key, value, cause) -> {
+                    if (key != null) {
+                        indexes.forEach(index -> index.unregister(key, value));
+                    }
+                })
+                .build();
+    }
+
+    Cache<Long, Author> authors() {
+        return authors;
+    }
+
+    Cache<Long, Author> authorsWithBooks() {
+        return authorsWithBooks;
+    }
+
+    Cache<Long, Book> booksWithLibraries() {
+        return booksWithLibraries;
+    }
+
+    Cache<Long, Library> libraries() {
+        return libraries;
+    }
+
+    Optional<Author> author(long id, Function<Long, Optional<Author>> loader) {
+        return Optional.ofNullable(authors.get(id, key -> loader.apply(key).orElse(null)));
+    }
+
+    Optional<Author> authorWithBooks(long id, Function<Long, Optional<Author>> loader) {
+        return Optional.ofNullable(authorsWithBooks.get(id, key -> loader.apply(key).map(author -> {
+            booksInAuthors.register(key, author, bookIds(author.books()));
+            return author;
+        }).orElse(null)));
+    }
+
+    Optional<Book> bookWithLibraries(long id, Function<Long, Optional<Book>> loader) {
+        return Optional.ofNullable(booksWithLibraries.get(id, key -> loader.apply(key).map(book -> {
+            librariesInBooks.register(key, book, Objects.requireNonNullElse(book.libraries(), Set.<Library>of()).stream()
+                    .map(Library::id)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet()));
+            authorsInBooks.register(key, book, book.authorId() == null ? Set.of() : Set.of(book.authorId()));
+            return book;
+        }).orElse(null)));
+    }
+
+    Optional<Library> library(long id, Function<Long, Optional<Library>> loader) {
+        return Optional.ofNullable(libraries.get(id, key -> loader.apply(key).map(library -> {
+            indexLibrary(key, library);
+            return library;
+        }).orElse(null)));
+    }
+
+    void putLibraries(Collection<Library> loaded) {
+        for (Library library : loaded) {
+            indexLibrary(library.id(), library);
+            libraries.put(library.id(), library);
+        }
+    }
+
+    /**
+     * Hit, miss and eviction counters per cache.
+     */
+    public Map<String, CacheStats> stats() {
+        return Map.of(
+                "authors", authors.stats(),
+                "authorsWithBooks", authorsWithBooks.stats(),
+                "booksWithLibraries", booksWithLibraries.stats(),
+                "libraries", libraries.stats()
+        );
+    }
+
+    public void invalidateAll() {
+        authors.invalidateAll();
+        authorsWithBooks.invalidateAll();
+        booksWithLibraries.invalidateAll();
+        libraries.invalidateAll();
+    }
+
+    /**
+     * Runs the eviction now and, inside a transaction, again after it completes. Until the commit
+     * a concurrent read still sees the old row, and a miss in that window would otherwise cache it
+     * until expire-after-write; the second pass drops it. Replica lag after the commit remains
+     * bounded only by expire-after-write.
+     */
+    void evict(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    void evictAuthor(long authorId) {
+        authors.invalidate(authorId);
+        authorsWithBooks.invalidate(authorId);
+    }
+
+    /**
+     * Evicts the author and every cached aggregate holding one of its books, which a delete
+     * removes through ON DELETE CASCADE, without reading the books first.
+     */
+    void evictAuthorWithBooks(long authorId) {
+        evictAuthor(authorId);
+        List<Long> authorIds = List.of(authorId);
+        booksWithLibraries.invalidateAll(authorsInBooks.keysEmbedding(authorIds));
+        libraries.invalidateAll(authorsInLibraries.keysEmbedding(authorIds));
+    }
+
+    void evictBook(long bookId) {
+        evictBooks(List.of(bookId));
+    }
+
+    /**
+     * Evicts the books and every aggregate embedding them: the authors that currently hold them
+     * (whichever those are after a change of author) and the libraries they are linked to.
+     */
+    void evictBooks(Collection<Long> bookIds) {
+        booksWithLibraries.invalidateAll(bookIds);
+        authorsWithBooks.invalidateAll(booksInAuthors.keysEmbedding(bookIds));
+        libraries.invalidateAll(booksInLibraries.keysEmbedding(bookIds));
+    }
+
+    void evictLibrary(long libraryId) {
+        evictLibraries(List.of(libraryId));
+    }
+
+    /**
+     * Evicts the libraries and every book aggregate listing them.
+     */
+    void evictLibraries(Collection<Long> libraryIds) {
+        libraries.invalidateAll(libraryIds);
+        booksWithLibraries.invalidateAll(librariesInBooks.keysEmbedding(libraryIds));
+    }
+
+    private void indexLibrary(long key, Library library) {
+        booksInLibraries.register(key, library, bookIds(library.books()));
+        authorsInLibraries.register(key, library, Objects.requireNonNullElse(library.books(), Set.<Book>of()).stream()
+                .map(Book::authorId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+    }
+
+    private static Set<Long> bookIds(Collection<Book> books) {
+        if (books == null) {
+            return Set.of();
+        }
+        return books.stream().map(Book::id).filter(Objects::nonNull).collect(Collectors.toSet());
+    }
+}
@@ -2,14 +2,81 @@ package org.example.springjdbc.repository.declaration;
 
 import org.example.springjdbc.model.Author;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
 public interface AuthorRepository {
     Optional<Author> findByIdWithoutAssociations(long id);
     Optional<Author> findByIdWithAssociations(long id);
     Set<Author> findAll();
+
+    /**
+     * Loads the given ids with their associations in a few IN (...) queries per chunk of
+     * repository.in-clause-size ids, instead of one findByIdWithAssociations call per id.
+     * Unknown ids are skipped. A failing query throws its DataAccessException rather than
+     * returning a partial set.
+     */
+    Set<Author> findAllWithAssociations(Collection<Long> ids);
+
+    /**
+     * Emits entities one by one while the result set is read. The stream holds an open
+     * connection, so it must be closed, e.g. with try-with-resources.
+     */
+    Stream<Author> streamAll();
+
+    /**
+     * Keyset page: up to limit entities with id greater than afterId, ordered by id.
+     * Pass 0 for the first page and the last returned id for the next one. A failing query
+     * throws its DataAccessException rather than returning a short page.
+     */
+    List<Author> findPage(long afterId, int limit);
+
+    /**
+     * Authors written at or after since, with their books, and the ids of authors deleted since.
+     * An author also counts as written when one of its books is. At most limit entries, see
+     * {@link Delta}.
+     */
+    default Delta<Author> findModifiedSince(Instant since, int limit) {
+        return findModifiedSince(Delta.Cursor.since(since), limit);
+    }
+
+    /**
+     * The page after a cursor returned by a previous call.
+     */
+    Delta<Author> findModifiedSince(Delta.Cursor after, int limit);
+
+    /**
+     * Up to limit authors, with their books, whose first or last name starts with prefix, ordered
+     * by last and first name through the name indexes. See {@link BookRepository#searchBooksByTitle}
+     * for full-text matching, the result bound and failures.
+     */
+    List<Author> searchAuthorsByName(String prefix, int limit);
+
+    /**
+     * Primary key probe, without loading the author.
+     */
+    boolean existsById(long id);
+    long count();
+
     Author create(Author author);
+    List<Long> createAll(Collection<Author> authors);
+
+    /**
+     * With a version on the author, updates only if the row still has that version and throws
+     * VersionConflictException otherwise. Without one, the last writer wins. Either way the
+     * version is incremented.
+     */
     Author update(long id, Author author);
+
+    /**
+     * INSERT ... ON DUPLICATE KEY UPDATE by id, so callers need not read before writing.
+     * The split between inserted and updated comes from one SELECT id IN (...) per chunk.
+     */
+    UpsertResult upsert(Author author);
+    UpsertResult upsertAll(Collection<Author> authors);
     boolean delete(long id);
 }
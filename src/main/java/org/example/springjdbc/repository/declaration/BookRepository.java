@@ -1,14 +1,92 @@
 package org.example.springjdbc.repository.declaration;
 
 import org.example.springjdbc.model.Book;
+import org.example.springjdbc.model.BookSummary;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
 public interface BookRepository {
     Optional<Book> findByIdWithAssociations(Long id);
     Set<Book> findAll();
+
+    /**
+     * Loads the given ids with their associations in a few IN (...) queries per chunk of
+     * repository.in-clause-size ids, instead of one findByIdWithAssociations call per id.
+     * Unknown ids are skipped. A failing query throws its DataAccessException rather than
+     * returning a partial set.
+     */
+    Set<Book> findAllWithAssociations(Collection<Long> ids);
+
+    /**
+     * Emits entities one by one while the result set is read. The stream holds an open
+     * connection, so it must be closed, e.g. with try-with-resources.
+     */
+    Stream<Book> streamAll();
+
+    /**
+     * Keyset page: up to limit entities with id greater than afterId, ordered by id.
+     * Pass 0 for the first page and the last returned id for the next one. A failing query
+     * throws its DataAccessException rather than returning a short page.
+     */
+    List<Book> findPage(long afterId, int limit);
+
+    /**
+     * Keyset page of id and title only, for listings that don't need the full book.
+     */
+    List<BookSummary> findSummaryPage(long afterId, int limit);
+
+    /**
+     * Books written at or after since, with their libraries, and the ids of books deleted since.
+     * A book also counts as written when it is linked to or unlinked from a library. At most
+     * limit entries, see {@link Delta}.
+     */
+    default Delta<Book> findModifiedSince(Instant since, int limit) {
+        return findModifiedSince(Delta.Cursor.since(since), limit);
+    }
+
+    /**
+     * The page after a cursor returned by a previous call.
+     */
+    Delta<Book> findModifiedSince(Delta.Cursor after, int limit);
+
+    /**
+     * Up to limit books, with their libraries, whose title starts with prefix, ordered by title
+     * through the title index. With repository.search.full-text set, a FULLTEXT match on MySQL
+     * instead: each word of prefix starts a word of the title, best matches first. limit is
+     * capped at repository.search.max-results, and a null or blank prefix matches nothing. A
+     * failing query throws its DataAccessException rather than returning an empty list.
+     */
+    List<Book> searchBooksByTitle(String prefix, int limit);
+
+    /**
+     * Primary key probe, without loading the book.
+     */
+    boolean existsById(long id);
+    long count();
+
+    /**
+     * COUNT(*) over the author_id index, without loading the books.
+     */
+    long countBooksByAuthor(long authorId);
+
     Book create(Book book);
+    List<Long> createAll(Collection<Book> books);
+
+    /**
+     * See {@link AuthorRepository#update}.
+     */
     Book update(long id, Book book);
+
+    /**
+     * INSERT ... ON DUPLICATE KEY UPDATE by id, so callers need not read before writing.
+     * The split between inserted and updated comes from one SELECT id IN (...) per chunk.
+     */
+    UpsertResult upsert(Book book);
+    UpsertResult upsertAll(Collection<Book> books);
     boolean delete(long id);
 }
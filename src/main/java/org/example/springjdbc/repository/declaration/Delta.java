@@ -0,0 +1,44 @@
+package org.example.springjdbc.repository.declaration;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * One page of a findModifiedSince feed, oldest modification first. changed holds the aggregates
+ * written after the cursor, deleted the ids of those removed after it. Apply deleted before
+ * changed: an id in both was deleted and then written again. Modifications newer than
+ * repository.delta.margin by the database clock are left for a later call.
+ *
+ * @param next    the cursor to pass to the following call; the given one if nothing changed
+ * @param hasMore whether the page was cut at the limit
+ */
+public record Delta<T>(
+        List<T> changed,
+        List<Long> deleted,
+        Cursor next,
+        boolean hasMore
+) {
+
+    /**
+     * Position in the feed: every modification before modifiedAt, and at modifiedAt up to id,
+     * has been returned. The id breaks ties between rows written in the same millisecond.
+     */
+    public record Cursor(Instant modifiedAt, long id) {
+
+        public static Cursor since(Instant since) {
+            return new Cursor(since, 0);
+        }
+
+        /**
+         * Timestamps are taken when a statement runs, not when it commits, so a transaction
+         * still open (or not yet replicated) when the cursor was taken can commit rows behind it.
+         * repository.delta.margin covers transactions shorter than the margin; resuming from a
+         * cursor moved back by more than the longest write transaction covers the rest. Rows in
+         * the overlap are returned again.
+         */
+        public Cursor rewind(Duration margin) {
+            return new Cursor(modifiedAt.minus(margin), 0);
+        }
+    }
+}
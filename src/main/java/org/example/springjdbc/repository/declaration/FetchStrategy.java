@@ -0,0 +1,18 @@
+package org.example.springjdbc.repository.declaration;
+
+/**
+ * How an aggregate and its collection association are read.
+ */
+public enum FetchStrategy {
+    /**
+     * One query joining the root with its association. Cheapest for small collections, but
+     * every root column is repeated on each association row.
+     */
+    JOIN,
+
+    /**
+     * One query for the root and one for the association, stitched together in memory.
+     * Costs an extra round-trip but transfers root columns once, which pays off for large collections.
+     */
+    MULTI_QUERY
+}
@@ -1,14 +1,131 @@
 package org.example.springjdbc.repository.declaration;
 
 import org.example.springjdbc.model.Library;
+import org.example.springjdbc.model.LibrarySummary;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 public interface LibraryRepository {
     Optional<Library> findById(Long id);
+    Optional<Library> findById(Long id, FetchStrategy fetchStrategy);
+
+    /**
+     * Loads the given ids concurrently, one findById per id on its own virtual thread, bounded
+     * by the connection pool size. Returns the libraries found, in the order of the ids.
+     */
+    List<Library> findAllById(Collection<Long> ids);
+
+    /**
+     * findById on a virtual thread, sharing the connection bound of findAllById.
+     */
+    CompletableFuture<Optional<Library>> findByIdAsync(Long id);
+
     Set<Library> findAll();
+
+    /**
+     * Emits entities one by one while the result set is read. The stream holds an open
+     * connection, so it must be closed, e.g. with try-with-resources.
+     */
+    Stream<Library> streamAll();
+
+    /**
+     * Keyset page: up to limit entities with id greater than afterId, ordered by id.
+     * Pass 0 for the first page and the last returned id for the next one. A failing query
+     * throws its DataAccessException rather than returning a short page.
+     */
+    List<Library> findPage(long afterId, int limit);
+
+    /**
+     * Keyset page of id, name and number of linked books, counted in SQL without loading them.
+     */
+    List<LibrarySummary> findSummaryPage(long afterId, int limit);
+
+    /**
+     * Libraries written at or after since, with their books, and the ids of libraries deleted
+     * since. A library also counts as written when its links change or one of its books is
+     * written. At most limit entries, see {@link Delta}.
+     */
+    default Delta<Library> findModifiedSince(Instant since, int limit) {
+        return findModifiedSince(Delta.Cursor.since(since), limit);
+    }
+
+    /**
+     * The page after a cursor returned by a previous call.
+     */
+    Delta<Library> findModifiedSince(Delta.Cursor after, int limit);
+
+    /**
+     * Up to limit libraries, with their books, whose name starts with prefix, ordered by name
+     * through the name index. See {@link BookRepository#searchBooksByTitle} for full-text
+     * matching, the result bound and failures.
+     */
+    List<Library> searchLibrariesByName(String prefix, int limit);
+
+    /**
+     * Primary key probe, without loading the library.
+     */
+    boolean existsById(long id);
+    long count();
+
+    /**
+     * COUNT(*) over the library_book primary key, without loading the books.
+     */
+    long countBooks(long libraryId);
+
+    /**
+     * Writes the library, its info and links to the ids of its books in one transaction.
+     */
     long create(Library library);
+    List<Long> createAll(Collection<Library> libraries);
+
+    /**
+     * See {@link AuthorRepository#update}. The library version guards library_info too: the info
+     * row is only written once the versioned library update succeeded, in the same transaction.
+     */
     void update(long id, Library library);
+
+    /**
+     * Batched update of the name and info of each library, by its id, in one transaction.
+     * Versioned libraries are checked as in update, and one conflict rolls back the whole batch.
+     * Book links are left unchanged. Returns the number of library rows updated.
+     */
+    int updateAll(Collection<Library> libraries);
+
+    /**
+     * INSERT ... ON DUPLICATE KEY UPDATE of library and library_info by id, in one transaction.
+     * The split between inserted and updated comes from one SELECT id IN (...) per chunk.
+     * Book links are left unchanged.
+     */
+    UpsertResult upsert(Library library);
+    UpsertResult upsertAll(Collection<Library> libraries);
     boolean delete(long id);
+
+    /**
+     * Batched delete in one transaction. Returns the number of libraries deleted.
+     */
+    int deleteAll(Collection<Long> ids);
+
+    /**
+     * Links the books to the library with multi-row INSERT IGNORE statements of up to
+     * repository.batch-size ids. Existing links and ids of missing books are skipped.
+     * Returns the number of links added.
+     */
+    int addBooks(long libraryId, long[] bookIds);
+
+    /**
+     * Unlinks the books with chunked DELETE ... IN statements. Returns the number of links removed.
+     */
+    int removeBooks(long libraryId, long[] bookIds);
+
+    /**
+     * Makes the given books the library's exact set of links, touching only the links that
+     * differ. Returns the number of links added plus removed.
+     */
+    int replaceBooks(long libraryId, long[] bookIds);
 }
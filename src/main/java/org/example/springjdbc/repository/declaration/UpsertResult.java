@@ -0,0 +1,9 @@
+package org.example.springjdbc.repository.declaration;
+
+/**
+ * Outcome of an upsert, split by whether each id was already present before the write.
+ */
+public record UpsertResult(
+        int inserted,
+        int updated
+) {}
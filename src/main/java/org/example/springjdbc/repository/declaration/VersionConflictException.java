@@ -0,0 +1,28 @@
+package org.example.springjdbc.repository.declaration;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+
+/**
+ * An update carried a version that no longer matches the row: another writer changed it since
+ * it was read. Reload and retry, or report the conflict.
+ */
+public class VersionConflictException extends OptimisticLockingFailureException {
+    private static final long serialVersionUID = 1L;
+
+    private final long id;
+    private final long expectedVersion;
+
+    public VersionConflictException(String entity, long id, long expectedVersion) {
+        super("%s %d was modified concurrently, version %d is stale".formatted(entity, id, expectedVersion));
+        this.id = id;
+        this.expectedVersion = expectedVersion;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getExpectedVersion() {
+        return expectedVersion;
+    }
+}
@@ -1,21 +1,52 @@
 package org.example.springjdbc.repository.implementation;
 
+import org.example.springjdbc.helper.Columns;
+import org.example.springjdbc.helper.LongObjectMap;
+import org.example.springjdbc.helper.RowAggregator;
 import org.example.springjdbc.model.Author;
 import org.example.springjdbc.model.Book;
 import org.example.springjdbc.repository.declaration.AuthorRepository;
+import org.example.springjdbc.repository.declaration.Delta;
+import org.example.springjdbc.repository.declaration.UpsertResult;
+import org.example.springjdbc.repository.declaration.VersionConflictException;
+import org.example.springjdbc.repository.metrics.RepositoryMetrics;
+import org.example.springjdbc.repository.outbox.ChangeType;
+import org.example.springjdbc.repository.outbox.EntityType;
+import org.example.springjdbc.repository.outbox.OutboxWriter;
+import org.example.springjdbc.repository.tracking.DeltaPage;
+import org.example.springjdbc.repository.tracking.Modification;
+import org.example.springjdbc.repository.tracking.ModificationTracker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.*;
+import java.util.stream.Stream;
 
+import static org.example.springjdbc.helper.Batches.chunk;
+import static org.example.springjdbc.helper.Batches.generatedIds;
+import static org.example.springjdbc.helper.Batches.latestById;
+import static org.example.springjdbc.helper.Batches.withInList;
+import static org.example.springjdbc.helper.Columns.localDate;
 import static org.example.springjdbc.helper.QueryStatements.*;
+import static org.example.springjdbc.helper.Streaming.cursor;
+import static org.example.springjdbc.helper.Streaming.forwardOnly;
+import static org.example.springjdbc.helper.TextSearch.fullTextPrefixes;
+import static org.example.springjdbc.helper.TextSearch.inOrder;
+import static org.example.springjdbc.helper.TextSearch.likePrefix;
 
 /**
     * This class implements the AuthorRepository interface using jdbcTemplate to interact
@@ -24,27 +55,108 @@ import static org.example.springjdbc.helper.QueryStatements.*;
 @Repository("authorRepository")
 public class AuthorRepositoryImpl implements AuthorRepository {
     private JdbcTemplate jdbcTemplate;
+    private int batchSize;
+    private int streamFetchSize;
+    private int inClauseSize;
+    private boolean fullTextSearch;
+    private int searchMaxResults;
+    private RepositoryMetrics metrics;
+    private OutboxWriter outbox;
+    private ModificationTracker modifications;
     private static final Logger LOGGER = LoggerFactory.getLogger(AuthorRepositoryImpl.class);
+    private static final String REPOSITORY = "author";
+
+    // author ⨝ book rows, as selected by ALL_SELECT and the other author-with-books queries
+    private static final Columns AUTHOR_WITH_BOOKS_COLUMNS = Columns.of(
+            "author_id", "first_name", "last_name", "book_id", "title", "release_date", "author_version"
+    );
+    private static final Columns AUTHOR_COLUMNS = Columns.of("id", "first_name", "last_name", "version");
+    private static final Columns BOOK_COLUMNS = Columns.of("id", "author_id", "title", "release_date");
+
+    // the one author ⨝ book mapping, package-private so the JMH benchmarks can drive it with a synthetic ResultSet
+    static final RowAggregator<Author> AUTHOR_AGGREGATOR = new RowAggregator<>(
+            AUTHOR_WITH_BOOKS_COLUMNS,
+            (rs, col) -> new Author(
+                    rs.getLong(col[0]),
+                    rs.getString(col[1]),
+                    rs.getString(col[2]),
+                    new HashSet<>(),
+                    rs.getLong(col[6])
+            ),
+            (author, rs, col) -> {
+                long bookId = rs.getLong(col[3]);
+                if (!rs.wasNull()) {
+                    author.books().add(new Book(
+                            bookId,
+                            author.id(),
+                            rs.getString(col[4]),
+                            localDate(rs, col[5]),
+                            Set.of()
+                    ));
+                }
+            }
+    );
 
     @Autowired
     public void setJdbcTemplate(JdbcTemplate jdbcTemplate) {
         this.jdbcTemplate = jdbcTemplate;
     }
 
+    @Autowired
+    public void setMetrics(RepositoryMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Autowired
+    public void setOutbox(OutboxWriter outbox) {
+        this.outbox = outbox;
+    }
+
+    @Autowired
+    public void setModifications(ModificationTracker modifications) {
+        this.modifications = modifications;
+    }
+
+    @Value("${repository.batch-size:500}")
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    @Value("${repository.stream-fetch-size:-2147483648}")
+    public void setStreamFetchSize(int streamFetchSize) {
+        this.streamFetchSize = streamFetchSize;
+    }
+
+    @Value("${repository.in-clause-size:1000}")
+    public void setInClauseSize(int inClauseSize) {
+        this.inClauseSize = inClauseSize;
+    }
+
+    @Value("${repository.search.full-text:false}")
+    public void setFullTextSearch(boolean fullTextSearch) {
+        this.fullTextSearch = fullTextSearch;
+    }
+
+    @Value("${repository.search.max-results:100}")
+    public void setSearchMaxResults(int searchMaxResults) {
+        this.searchMaxResults = searchMaxResults;
+    }
+
     @Override
     public Optional<Author> findByIdWithoutAssociations(long id) {
         try {
-            Author author = jdbcTemplate.queryForObject(
-                    FIND_AUTHOR_BY_ID,
-                    (rs, rowNum) ->
-                        new Author(
-                                rs.getLong("id"),
-                                rs.getString("first_name"),
-                                rs.getString("last_name"),
-                                Set.of()
-                        ),
-                    id
-            );
+            Author author = metrics.record(REPOSITORY, "findByIdWithoutAssociations", FIND_AUTHOR_BY_ID,
+                    () -> jdbcTemplate.queryForObject(
+                            FIND_AUTHOR_BY_ID,
+                            AUTHOR_COLUMNS.mapper((rs, col) -> new Author(
+                                    rs.getLong(col[0]),
+                                    rs.getString(col[1]),
+                                    rs.getString(col[2]),
+                                    Set.of(),
+                                    rs.getLong(col[3])
+                            )),
+                            id
+                    ));
             return Optional.ofNullable(author);
         } catch (Exception e) {
             LOGGER.error("An error occurred while trying to find author with id: {}", id, e);
@@ -55,36 +167,10 @@ public class AuthorRepositoryImpl implements AuthorRepository {
     @Override
     public Optional<Author> findByIdWithAssociations(long id) {
         try {
-            return jdbcTemplate.query(FIND_AUTHOR_WITH_ASSOCIATIONS_BY_ID, rs -> {
-                Author author = null;
-                Set<Book> books = new HashSet<>();
-
-                while (rs.next()) {
-                    if (author == null) {
-                        author = new Author(
-                                rs.getLong("author_id"),
-                                rs.getString("first_name"),
-                                rs.getString("last_name"),
-                                books
-                        );
-                    }
-
-                    Long bookId = rs.getLong("book_id");
-                    if (!rs.wasNull()) {
-                        books.add(new Book(
-                                bookId,
-                                rs.getLong("author_id"),
-                                rs.getString("title"),
-                                rs.getDate("release_date") != null
-                                        ? rs.getDate("release_date").toLocalDate()
-                                        : null,
-                                Set.of()
-                        ));
-                    }
-                }
-
-                return Optional.ofNullable(author);
-            }, id);
+            return metrics.record(REPOSITORY, "findByIdWithAssociations", FIND_AUTHOR_WITH_ASSOCIATIONS_BY_ID,
+                    () -> jdbcTemplate.query(FIND_AUTHOR_WITH_ASSOCIATIONS_BY_ID, AUTHOR_AGGREGATOR, id))
+                    .stream()
+                    .findFirst();
         } catch (Exception e) {
             LOGGER.error("An error occurred while trying to find author with id: {}", id, e);
             return Optional.empty();
@@ -94,41 +180,8 @@ public class AuthorRepositoryImpl implements AuthorRepository {
     @Override
     public Set<Author> findAll() {
         try {
-            return jdbcTemplate.query(ALL_SELECT, rs -> {
-                Map<Long, Author> authorsMap = new HashMap<>();
-
-                while (rs.next()) {
-                    Long authorId = rs.getLong("author_id");
-
-                    Author author = authorsMap.computeIfAbsent(authorId, id -> {
-                        try {
-                            return new Author(
-                                    id,
-                                    rs.getString("first_name"),
-                                    rs.getString("last_name"),
-                                    new HashSet<>()
-                            );
-                        } catch (SQLException e) {
-                            throw new RuntimeException("Error mapping author", e);
-                        }
-                    });
-
-                    Long bookId = rs.getLong("book_id");
-                    if (!rs.wasNull()) {
-                        author.books().add(new Book(
-                                bookId,
-                                authorId,
-                                rs.getString("title"),
-                                rs.getDate("release_date") != null
-                                        ? rs.getDate("release_date").toLocalDate()
-                                        : null,
-                                Set.of()
-                        ));
-                    }
-                }
-
-                return new HashSet<>(authorsMap.values());
-            });
+            return metrics.record(REPOSITORY, "findAll", ALL_SELECT,
+                    () -> new LinkedHashSet<>(jdbcTemplate.query(ALL_SELECT, AUTHOR_AGGREGATOR)));
         } catch (Exception e) {
             LOGGER.error("An error occurred while fetching all authors with associations", e);
             return Set.of();
@@ -136,20 +189,137 @@ public class AuthorRepositoryImpl implements AuthorRepository {
     }
 
     @Override
+    public Set<Author> findAllWithAssociations(Collection<Long> ids) {
+        return loadWithAssociations("findAllWithAssociations", ids);
+    }
+
+    private Set<Author> loadWithAssociations(String operation, Collection<Long> ids) {
+        LongObjectMap<Author> authorsMap = new LongObjectMap<>(ids.size());
+
+        for (List<Long> batch : chunk(List.copyOf(new LinkedHashSet<>(ids)), inClauseSize)) {
+            Object[] batchIds = batch.toArray();
+
+            RowCallbackHandler authorHandler = AUTHOR_COLUMNS.handler((rs, col) -> {
+                RepositoryMetrics.rowsRead(1);
+                long authorId = rs.getLong(col[0]);
+                authorsMap.put(authorId, new Author(
+                        authorId,
+                        rs.getString(col[1]),
+                        rs.getString(col[2]),
+                        new HashSet<>(),
+                        rs.getLong(col[3])
+                ));
+            });
+            metrics.record(REPOSITORY, operation, FIND_AUTHORS_BY_IDS,
+                    () -> jdbcTemplate.query(withInList(FIND_AUTHORS_BY_IDS, batch.size()), authorHandler, batchIds));
+
+            RowCallbackHandler bookHandler = BOOK_COLUMNS.handler((rs, col) -> {
+                RepositoryMetrics.rowsRead(1);
+                long bookId = rs.getLong(col[0]);
+                Author author = authorsMap.get(rs.getLong(col[1]));
+                if (author != null) {
+                    author.books().add(new Book(
+                            bookId,
+                            author.id(),
+                            rs.getString(col[2]),
+                            localDate(rs, col[3]),
+                            Set.of()
+                    ));
+                }
+            });
+            metrics.record(REPOSITORY, operation, FIND_BOOKS_BY_AUTHOR_IDS,
+                    () -> jdbcTemplate.query(withInList(FIND_BOOKS_BY_AUTHOR_IDS, batch.size()), bookHandler, batchIds));
+        }
+
+        return new HashSet<>(authorsMap.values());
+    }
+
+    @Override
+    public Stream<Author> streamAll() {
+        try {
+            return metrics.record(REPOSITORY, "streamAll", ALL_SELECT,
+                    () -> AUTHOR_AGGREGATOR.stream(cursor(jdbcTemplate, forwardOnly(ALL_SELECT, streamFetchSize))));
+        } catch (Exception e) {
+            LOGGER.error("An error occurred while streaming all authors with associations", e);
+            return Stream.empty();
+        }
+    }
+
+    @Override
+    public List<Author> findPage(long afterId, int limit) {
+        return metrics.record(REPOSITORY, "findPage", FIND_AUTHORS_PAGE_WITH_ASSOCIATIONS,
+                () -> jdbcTemplate.query(FIND_AUTHORS_PAGE_WITH_ASSOCIATIONS, AUTHOR_AGGREGATOR, afterId, limit));
+    }
+
+    @Override
+    public Delta<Author> findModifiedSince(Delta.Cursor after, int limit) {
+        try {
+            Timestamp at = Timestamp.from(after.modifiedAt());
+            long horizon = modifications.horizonMicros();
+            List<Modification> written = metrics.record(REPOSITORY, "findModifiedSince", FIND_AUTHORS_MODIFIED_AFTER,
+                    () -> jdbcTemplate.query(FIND_AUTHORS_MODIFIED_AFTER, Modification.MAPPER,
+                            at, at, after.id(), horizon, limit + 1));
+            DeltaPage page = DeltaPage.of(written,
+                    modifications.tombstonesAfter(EntityType.AUTHOR, after, limit + 1), after, limit);
+            return page.toDelta(loadWithAssociations("findModifiedSince", page.changed()), Author::id);
+        } catch (Exception e) {
+            LOGGER.error("An error occurred while finding authors modified after {}", after, e);
+            throw new RuntimeException("Failed to find modified authors", e);
+        }
+    }
+
+    @Override
+    public List<Author> searchAuthorsByName(String prefix, int limit) {
+        int bound = Math.min(limit, searchMaxResults);
+        if (bound < 1 || prefix == null || prefix.isBlank()) {
+            return List.of();
+        }
+        List<Long> ids;
+        if (fullTextSearch) {
+            String terms = fullTextPrefixes(prefix);
+            if (terms.isEmpty()) {
+                return List.of();
+            }
+            ids = metrics.record(REPOSITORY, "searchAuthorsByName", SEARCH_AUTHOR_IDS_BY_NAME_FULL_TEXT,
+                    () -> jdbcTemplate.queryForList(SEARCH_AUTHOR_IDS_BY_NAME_FULL_TEXT, Long.class, terms, terms, bound));
+        } else {
+            String pattern = likePrefix(prefix);
+            ids = metrics.record(REPOSITORY, "searchAuthorsByName", SEARCH_AUTHOR_IDS_BY_NAME,
+                    () -> jdbcTemplate.queryForList(SEARCH_AUTHOR_IDS_BY_NAME, Long.class,
+                            pattern, bound, pattern, bound, bound));
+        }
+        return inOrder(ids, loadWithAssociations("searchAuthorsByName", ids), Author::id);
+    }
+
+    @Override
+    public boolean existsById(long id) {
+        return metrics.record(REPOSITORY, "existsById", EXISTS_AUTHOR_BY_ID,
+                () -> jdbcTemplate.query(EXISTS_AUTHOR_BY_ID, ResultSet::next, id));
+    }
+
+    @Override
+    public long count() {
+        return metrics.record(REPOSITORY, "count", COUNT_AUTHORS,
+                () -> jdbcTemplate.queryForObject(COUNT_AUTHORS, Long.class));
+    }
+
+    @Override
+    @Transactional
     public Author create(Author author) {
         try {
             KeyHolder keyHolder = new GeneratedKeyHolder();
 
-            int rowsAffected = jdbcTemplate.update(connection -> {
-                PreparedStatement ps = connection.prepareStatement(INSERT_AUTHOR, PreparedStatement.RETURN_GENERATED_KEYS);
+            int rowsAffected = metrics.record(REPOSITORY, "create", INSERT_AUTHOR, () -> jdbcTemplate.update(connection -> {
+                PreparedStatement ps = connection.prepareStatement(INSERT_AUTHOR, new String[]{"id"});
                 ps.setString(1, author.firstName());
                 ps.setString(2, author.lastName());
                 return ps;
-            }, keyHolder);
+            }, keyHolder));
 
             if (rowsAffected > 0) {
                 Long generatedId = Objects.requireNonNull(keyHolder.getKey()).longValue();
-                return new Author(generatedId, author.firstName(), author.lastName(), Set.of());
+                outbox.record(EntityType.AUTHOR, ChangeType.CREATED, generatedId);
+                return new Author(generatedId, author.firstName(), author.lastName(), Set.of(), 0L);
             }
             throw new RuntimeException("Failed to create author");
         } catch (Exception e) {
@@ -159,13 +329,63 @@ public class AuthorRepositoryImpl implements AuthorRepository {
     }
 
     @Override
+    @Transactional
+    public List<Long> createAll(Collection<Author> authors) {
+        try {
+            List<Long> generatedIds = new ArrayList<>(authors.size());
+            for (List<Author> batch : chunk(List.copyOf(authors), batchSize)) {
+                KeyHolder keyHolder = new GeneratedKeyHolder();
+
+                metrics.record(REPOSITORY, "createAll", INSERT_AUTHOR, () -> jdbcTemplate.batchUpdate(
+                        connection -> connection.prepareStatement(INSERT_AUTHOR, new String[]{"id"}),
+                        new BatchPreparedStatementSetter() {
+                            @Override
+                            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                                Author author = batch.get(i);
+                                ps.setString(1, author.firstName());
+                                ps.setString(2, author.lastName());
+                            }
+
+                            @Override
+                            public int getBatchSize() {
+                                return batch.size();
+                            }
+                        },
+                        keyHolder
+                ));
+
+                generatedIds.addAll(generatedIds(keyHolder));
+            }
+            outbox.recordAll(EntityType.AUTHOR, ChangeType.CREATED, generatedIds);
+            return generatedIds;
+        } catch (Exception e) {
+            LOGGER.error("An error occurred while creating {} authors", authors.size(), e);
+            throw new RuntimeException("Failed to create authors", e);
+        }
+    }
+
+    @Override
+    @Transactional
     public Author update(long id, Author author) {
         try {
-            int rowsAffected = jdbcTemplate.update(UPDATE_AUTHOR, author.firstName(), author.lastName(), id);
+            Long version = author.version();
+            int rowsAffected = version == null
+                    ? metrics.record(REPOSITORY, "update", UPDATE_AUTHOR,
+                            () -> jdbcTemplate.update(UPDATE_AUTHOR, author.firstName(), author.lastName(), id))
+                    : metrics.record(REPOSITORY, "update", UPDATE_AUTHOR_IF_VERSION,
+                            () -> jdbcTemplate.update(UPDATE_AUTHOR_IF_VERSION,
+                                    author.firstName(), author.lastName(), id, version));
             if (rowsAffected > 0) {
-                return new Author(id, author.firstName(), author.lastName(), author.books());
+                outbox.record(EntityType.AUTHOR, ChangeType.UPDATED, id);
+                return new Author(id, author.firstName(), author.lastName(), author.books(),
+                        version == null ? null : version + 1);
+            }
+            if (version != null && existsById(id)) {
+                throw new VersionConflictException(REPOSITORY, id, version);
             }
             throw new RuntimeException("No rows updated");
+        } catch (VersionConflictException e) {
+            throw e;
         } catch (Exception e) {
             LOGGER.error("An error occurred while updating author with id: {}", id, e);
             throw new RuntimeException("Failed to update author", e);
@@ -173,13 +393,77 @@ public class AuthorRepositoryImpl implements AuthorRepository {
     }
 
     @Override
+    @Transactional
+    public UpsertResult upsert(Author author) {
+        return upsertAll(List.of(author));
+    }
+
+    @Override
+    @Transactional
+    public UpsertResult upsertAll(Collection<Author> authors) {
+        List<Author> latest = latestById(authors, Author::id);
+        try {
+            int updated = 0;
+            for (List<Author> batch : chunk(latest, batchSize)) {
+                Object[] batchIds = batch.stream().map(Author::id).toArray();
+                List<Long> existing = metrics.record(REPOSITORY, "upsertAll", FIND_EXISTING_AUTHOR_IDS,
+                        () -> jdbcTemplate.queryForList(withInList(FIND_EXISTING_AUTHOR_IDS, batch.size()),
+                                Long.class, batchIds));
+                updated += existing.size();
+
+                metrics.record(REPOSITORY, "upsertAll", UPSERT_AUTHOR, () -> jdbcTemplate.batchUpdate(
+                        UPSERT_AUTHOR,
+                        new BatchPreparedStatementSetter() {
+                            @Override
+                            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                                Author author = batch.get(i);
+                                ps.setLong(1, author.id());
+                                ps.setString(2, author.firstName());
+                                ps.setString(3, author.lastName());
+                            }
+
+                            @Override
+                            public int getBatchSize() {
+                                return batch.size();
+                            }
+                        }
+                ));
+                recordUpserted(batch, existing);
+            }
+            return new UpsertResult(latest.size() - updated, updated);
+        } catch (Exception e) {
+            LOGGER.error("An error occurred while upserting {} authors", latest.size(), e);
+            throw new RuntimeException("Failed to upsert authors", e);
+        }
+    }
+
+    @Override
+    @Transactional
     public boolean delete(long id) {
         try {
-            int rowsAffected = jdbcTemplate.update(DELETE_AUTHOR, id);
+            // the books go with the author through ON DELETE CASCADE, so they are recorded first
+            outbox.recordBooksOfAuthor(id, ChangeType.DELETED);
+            modifications.tombstoneBooksOfAuthor(id);
+            modifications.touchLibrariesOfAuthor(id);
+            int rowsAffected = metrics.record(REPOSITORY, "delete", DELETE_AUTHOR,
+                    () -> jdbcTemplate.update(DELETE_AUTHOR, id));
+            if (rowsAffected > 0) {
+                outbox.record(EntityType.AUTHOR, ChangeType.DELETED, id);
+                modifications.tombstone(EntityType.AUTHOR, id);
+            }
             return rowsAffected > 0;
         } catch (Exception e) {
             LOGGER.error("An error occurred while deleting author with id: {}", id, e);
+            // false means nothing was deleted, so no outbox or tombstone row may be committed either
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
             return false;
         }
     }
+
+    private void recordUpserted(List<Author> batch, List<Long> existing) {
+        Set<Long> updated = new HashSet<>(existing);
+        List<Long> ids = batch.stream().map(Author::id).toList();
+        outbox.recordAll(EntityType.AUTHOR, ChangeType.CREATED, ids.stream().filter(id -> !updated.contains(id)).toList());
+        outbox.recordAll(EntityType.AUTHOR, ChangeType.UPDATED, existing);
+    }
 }
@@ -1,24 +1,52 @@
 package org.example.springjdbc.repository.implementation;
 
+import org.example.springjdbc.helper.Columns;
+import org.example.springjdbc.helper.LongObjectMap;
+import org.example.springjdbc.helper.LongSet;
 import org.example.springjdbc.model.Book;
+import org.example.springjdbc.model.BookSummary;
 import org.example.springjdbc.model.Library;
 import org.example.springjdbc.repository.declaration.BookRepository;
+import org.example.springjdbc.repository.declaration.Delta;
+import org.example.springjdbc.repository.declaration.UpsertResult;
+import org.example.springjdbc.repository.declaration.VersionConflictException;
+import org.example.springjdbc.repository.metrics.RepositoryMetrics;
+import org.example.springjdbc.repository.outbox.ChangeType;
+import org.example.springjdbc.repository.outbox.EntityType;
+import org.example.springjdbc.repository.outbox.OutboxWriter;
+import org.example.springjdbc.repository.tracking.DeltaPage;
+import org.example.springjdbc.repository.tracking.Modification;
+import org.example.springjdbc.repository.tracking.ModificationTracker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.*;
+import java.util.stream.Stream;
 
+import static org.example.springjdbc.helper.Batches.chunk;
+import static org.example.springjdbc.helper.Batches.generatedIds;
+import static org.example.springjdbc.helper.Batches.latestById;
+import static org.example.springjdbc.helper.Batches.withInList;
+import static org.example.springjdbc.helper.Columns.localDate;
 import static org.example.springjdbc.helper.QueryStatements.*;
+import static org.example.springjdbc.helper.Streaming.forwardOnly;
+import static org.example.springjdbc.helper.TextSearch.fullTextPrefixes;
+import static org.example.springjdbc.helper.TextSearch.inOrder;
+import static org.example.springjdbc.helper.TextSearch.likePrefix;
 
 /**
     * This class implements the BookRepository interface using RowMapper<T>, ResultSetExtractor<T> with jdbcTemplate.
@@ -26,16 +54,45 @@ import static org.example.springjdbc.helper.QueryStatements.*;
 @Repository("bookRepository")
 public class BookRepositoryImpl implements BookRepository {
     private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final int streamFetchSize;
+    private final int inClauseSize;
+    private final boolean fullTextSearch;
+    private final int searchMaxResults;
+    private final RepositoryMetrics metrics;
+    private final OutboxWriter outbox;
+    private final ModificationTracker modifications;
     private static final Logger LOGGER = LoggerFactory.getLogger(BookRepositoryImpl.class);
+    private static final String REPOSITORY = "book";
+    private static final Columns BOOK_COLUMNS = Columns.of("id", "author_id", "title", "release_date", "version");
+    private static final Columns BOOK_SUMMARY_COLUMNS = Columns.of("id", "title");
+    private static final Columns LIBRARY_BY_BOOK_COLUMNS = Columns.of("book_id", "library_id", "library_name");
 
-    public BookRepositoryImpl(JdbcTemplate jdbcTemplate) {
+    public BookRepositoryImpl(JdbcTemplate jdbcTemplate,
+                              @Value("${repository.batch-size:500}") int batchSize,
+                              @Value("${repository.stream-fetch-size:-2147483648}") int streamFetchSize,
+                              @Value("${repository.in-clause-size:1000}") int inClauseSize,
+                              @Value("${repository.search.full-text:false}") boolean fullTextSearch,
+                              @Value("${repository.search.max-results:100}") int searchMaxResults,
+                              RepositoryMetrics metrics,
+                              OutboxWriter outbox,
+                              ModificationTracker modifications) {
         this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.streamFetchSize = streamFetchSize;
+        this.inClauseSize = inClauseSize;
+        this.fullTextSearch = fullTextSearch;
+        this.searchMaxResults = searchMaxResults;
+        this.metrics = metrics;
+        this.outbox = outbox;
+        this.modifications = modifications;
     }
 
     @Override
     public Optional<Book> findByIdWithAssociations(Long id) {
         try {
-            return jdbcTemplate.query(FIND_BOOK_WITH_ASSOCIATIONS_BY_ID, new BookWithAssociationsExtractor(), id);
+            return metrics.record(REPOSITORY, "findByIdWithAssociations", FIND_BOOK_WITH_ASSOCIATIONS_BY_ID,
+                    () -> jdbcTemplate.query(FIND_BOOK_WITH_ASSOCIATIONS_BY_ID, new BookWithAssociationsExtractor(), id));
         } catch (Exception e) {
             LOGGER.error("Problem when executing SELECT!", e);
             return Optional.empty();
@@ -44,25 +101,153 @@ public class BookRepositoryImpl implements BookRepository {
 
     @Override
     public Set<Book> findAll() {
-        return new HashSet<>(jdbcTemplate.query(SELECT_ALL_BOOKS, new BookRowMapper()));
+        return new HashSet<>(metrics.record(REPOSITORY, "findAll", SELECT_ALL_BOOKS,
+                () -> jdbcTemplate.query(SELECT_ALL_BOOKS, bookMapper())));
     }
 
     @Override
+    public Set<Book> findAllWithAssociations(Collection<Long> ids) {
+        return loadWithAssociations("findAllWithAssociations", ids);
+    }
+
+    private Set<Book> loadWithAssociations(String operation, Collection<Long> ids) {
+        LongObjectMap<Book> booksMap = new LongObjectMap<>(ids.size());
+        // a library linked to many of the requested books is materialized once and shared
+        LongObjectMap<Library> librariesMap = new LongObjectMap<>();
+        LongObjectMap<Set<Library>> librariesByBook = new LongObjectMap<>(ids.size());
+
+        for (List<Long> batch : chunk(List.copyOf(new LinkedHashSet<>(ids)), inClauseSize)) {
+            Object[] batchIds = batch.toArray();
+
+            List<Book> batchBooks = metrics.record(REPOSITORY, operation, FIND_BOOKS_BY_IDS,
+                    () -> jdbcTemplate.query(withInList(FIND_BOOKS_BY_IDS, batch.size()), bookMapper(), batchIds));
+            for (Book book : batchBooks) {
+                booksMap.put(book.id(), book);
+            }
+
+            RowCallbackHandler libraryHandler = LIBRARY_BY_BOOK_COLUMNS.handler((rs, col) -> {
+                RepositoryMetrics.rowsRead(1);
+                long bookId = rs.getLong(col[0]);
+                long libraryId = rs.getLong(col[1]);
+                Library library = librariesMap.get(libraryId);
+                if (library == null) {
+                    library = new Library(libraryId, rs.getString(col[2]), null, Set.of());
+                    librariesMap.put(libraryId, library);
+                }
+                Set<Library> bookLibraries = librariesByBook.get(bookId);
+                if (bookLibraries == null) {
+                    bookLibraries = new HashSet<>();
+                    librariesByBook.put(bookId, bookLibraries);
+                }
+                bookLibraries.add(library);
+            });
+            metrics.record(REPOSITORY, operation, FIND_LIBRARIES_BY_BOOK_IDS,
+                    () -> jdbcTemplate.query(withInList(FIND_LIBRARIES_BY_BOOK_IDS, batch.size()), libraryHandler, batchIds));
+        }
+
+        Set<Book> books = new HashSet<>();
+        for (Book book : booksMap.values()) {
+            books.add(new Book(
+                    book.id(),
+                    book.authorId(),
+                    book.title(),
+                    book.releaseDate(),
+                    Objects.requireNonNullElseGet(librariesByBook.get(book.id()), HashSet::new),
+                    book.version()
+            ));
+        }
+        return books;
+    }
+
+    @Override
+    public Stream<Book> streamAll() {
+        return metrics.record(REPOSITORY, "streamAll", SELECT_ALL_BOOKS,
+                () -> jdbcTemplate.queryForStream(forwardOnly(SELECT_ALL_BOOKS, streamFetchSize), bookMapper()));
+    }
+
+    @Override
+    public List<Book> findPage(long afterId, int limit) {
+        return metrics.record(REPOSITORY, "findPage", FIND_BOOKS_PAGE,
+                () -> jdbcTemplate.query(FIND_BOOKS_PAGE, bookMapper(), afterId, limit));
+    }
+
+    @Override
+    public List<BookSummary> findSummaryPage(long afterId, int limit) {
+        return metrics.record(REPOSITORY, "findSummaryPage", FIND_BOOK_SUMMARIES_PAGE,
+                () -> jdbcTemplate.query(FIND_BOOK_SUMMARIES_PAGE, BOOK_SUMMARY_COLUMNS.mapper(
+                        (rs, col) -> new BookSummary(rs.getLong(col[0]), rs.getString(col[1]))), afterId, limit));
+    }
+
+    @Override
+    public Delta<Book> findModifiedSince(Delta.Cursor after, int limit) {
+        Timestamp at = Timestamp.from(after.modifiedAt());
+        long horizon = modifications.horizonMicros();
+        List<Modification> written = metrics.record(REPOSITORY, "findModifiedSince", FIND_BOOKS_MODIFIED_AFTER,
+                () -> jdbcTemplate.query(FIND_BOOKS_MODIFIED_AFTER, Modification.MAPPER,
+                        at, horizon, at, horizon, at, after.id(), limit + 1));
+        DeltaPage page = DeltaPage.of(written,
+                modifications.tombstonesAfter(EntityType.BOOK, after, limit + 1), after, limit);
+        return page.toDelta(loadWithAssociations("findModifiedSince", page.changed()), Book::id);
+    }
+
+    @Override
+    public List<Book> searchBooksByTitle(String prefix, int limit) {
+        int bound = Math.min(limit, searchMaxResults);
+        if (bound < 1 || prefix == null || prefix.isBlank()) {
+            return List.of();
+        }
+        List<Long> ids;
+        if (fullTextSearch) {
+            String terms = fullTextPrefixes(prefix);
+            if (terms.isEmpty()) {
+                return List.of();
+            }
+            ids = metrics.record(REPOSITORY, "searchBooksByTitle", SEARCH_BOOK_IDS_BY_TITLE_FULL_TEXT,
+                    () -> jdbcTemplate.queryForList(SEARCH_BOOK_IDS_BY_TITLE_FULL_TEXT, Long.class, terms, terms, bound));
+        } else {
+            ids = metrics.record(REPOSITORY, "searchBooksByTitle", SEARCH_BOOK_IDS_BY_TITLE,
+                    () -> jdbcTemplate.queryForList(SEARCH_BOOK_IDS_BY_TITLE, Long.class, likePrefix(prefix), bound));
+        }
+        return inOrder(ids, loadWithAssociations("searchBooksByTitle", ids), Book::id);
+    }
+
+    @Override
+    public boolean existsById(long id) {
+        return metrics.record(REPOSITORY, "existsById", EXISTS_BOOK_BY_ID,
+                () -> jdbcTemplate.query(EXISTS_BOOK_BY_ID, ResultSet::next, id));
+    }
+
+    @Override
+    public long count() {
+        return metrics.record(REPOSITORY, "count", COUNT_BOOKS,
+                () -> jdbcTemplate.queryForObject(COUNT_BOOKS, Long.class));
+    }
+
+    @Override
+    public long countBooksByAuthor(long authorId) {
+        return metrics.record(REPOSITORY, "countBooksByAuthor", COUNT_BOOKS_BY_AUTHOR_ID,
+                () -> jdbcTemplate.queryForObject(COUNT_BOOKS_BY_AUTHOR_ID, Long.class, authorId));
+    }
+
+    @Override
+    @Transactional
     public Book create(Book book) {
         try {
             KeyHolder keyHolder = new GeneratedKeyHolder();
 
-            int rowsAffected = jdbcTemplate.update(connection -> {
-                PreparedStatement ps = connection.prepareStatement(INSERT_BOOK, PreparedStatement.RETURN_GENERATED_KEYS);
+            int rowsAffected = metrics.record(REPOSITORY, "create", INSERT_BOOK, () -> jdbcTemplate.update(connection -> {
+                PreparedStatement ps = connection.prepareStatement(INSERT_BOOK, new String[]{"id"});
                 ps.setString(1, book.title());
                 ps.setLong(2, book.authorId());
                 ps.setObject(3, book.releaseDate());
                 return ps;
-            }, keyHolder);
+            }, keyHolder));
 
             if (rowsAffected > 0) {
                 Long generatedId = Objects.requireNonNull(keyHolder.getKey()).longValue();
-                return new Book(generatedId, book.authorId(), book.title(), book.releaseDate(), Set.of());
+                outbox.record(EntityType.BOOK, ChangeType.CREATED, generatedId);
+                modifications.touchAuthors(List.of(book.authorId()));
+                return new Book(generatedId, book.authorId(), book.title(), book.releaseDate(), Set.of(), 0L);
             }
             throw new RuntimeException("Failed to create book");
         } catch (Exception e) {
@@ -72,13 +257,69 @@ public class BookRepositoryImpl implements BookRepository {
     }
 
     @Override
+    @Transactional
+    public List<Long> createAll(Collection<Book> books) {
+        try {
+            List<Long> generatedIds = new ArrayList<>(books.size());
+            for (List<Book> batch : chunk(List.copyOf(books), batchSize)) {
+                KeyHolder keyHolder = new GeneratedKeyHolder();
+
+                metrics.record(REPOSITORY, "createAll", INSERT_BOOK, () -> jdbcTemplate.batchUpdate(
+                        connection -> connection.prepareStatement(INSERT_BOOK, new String[]{"id"}),
+                        new BatchPreparedStatementSetter() {
+                            @Override
+                            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                                Book book = batch.get(i);
+                                ps.setString(1, book.title());
+                                ps.setLong(2, book.authorId());
+                                ps.setObject(3, book.releaseDate());
+                            }
+
+                            @Override
+                            public int getBatchSize() {
+                                return batch.size();
+                            }
+                        },
+                        keyHolder
+                ));
+
+                generatedIds.addAll(generatedIds(keyHolder));
+            }
+            outbox.recordAll(EntityType.BOOK, ChangeType.CREATED, generatedIds);
+            modifications.touchAuthors(books.stream().map(Book::authorId).toList());
+            return generatedIds;
+        } catch (Exception e) {
+            LOGGER.error("Problem when executing batch INSERT!", e);
+            throw new RuntimeException("Failed to create books", e);
+        }
+    }
+
+    @Override
+    @Transactional
     public Book update(long id, Book book) {
         try {
-            int rowsAffected = jdbcTemplate.update(UPDATE_BOOK, book.title(), book.authorId(), book.releaseDate(), id);
+            // before the update, while the book still names its previous author
+            modifications.touchAuthorsOfBooks(List.of(id));
+            modifications.touchLibrariesOfBooks(List.of(id));
+            Long version = book.version();
+            int rowsAffected = version == null
+                    ? metrics.record(REPOSITORY, "update", UPDATE_BOOK,
+                            () -> jdbcTemplate.update(UPDATE_BOOK, book.title(), book.authorId(), book.releaseDate(), id))
+                    : metrics.record(REPOSITORY, "update", UPDATE_BOOK_IF_VERSION,
+                            () -> jdbcTemplate.update(UPDATE_BOOK_IF_VERSION,
+                                    book.title(), book.authorId(), book.releaseDate(), id, version));
             if (rowsAffected > 0) {
-                return new Book(id, book.authorId(), book.title(), book.releaseDate(), Set.of());
+                outbox.record(EntityType.BOOK, ChangeType.UPDATED, id);
+                modifications.touchAuthors(List.of(book.authorId()));
+                return new Book(id, book.authorId(), book.title(), book.releaseDate(), Set.of(),
+                        version == null ? null : version + 1);
+            }
+            if (version != null && existsById(id)) {
+                throw new VersionConflictException(REPOSITORY, id, version);
             }
             throw new RuntimeException("No rows updated");
+        } catch (VersionConflictException e) {
+            throw e;
         } catch (Exception e) {
             LOGGER.error("Problem when executing UPDATE!", e);
             throw new RuntimeException("Failed to update book", e);
@@ -86,9 +327,66 @@ public class BookRepositoryImpl implements BookRepository {
     }
 
     @Override
+    @Transactional
+    public UpsertResult upsert(Book book) {
+        return upsertAll(List.of(book));
+    }
+
+    @Override
+    @Transactional
+    public UpsertResult upsertAll(Collection<Book> books) {
+        List<Book> latest = latestById(books, Book::id);
+        try {
+            int updated = 0;
+            for (List<Book> batch : chunk(latest, batchSize)) {
+                Object[] batchIds = batch.stream().map(Book::id).toArray();
+                List<Long> existing = metrics.record(REPOSITORY, "upsertAll", FIND_EXISTING_BOOK_IDS,
+                        () -> jdbcTemplate.queryForList(withInList(FIND_EXISTING_BOOK_IDS, batch.size()),
+                                Long.class, batchIds));
+                updated += existing.size();
+                modifications.touchAuthorsOfBooks(existing);
+                modifications.touchLibrariesOfBooks(existing);
+
+                metrics.record(REPOSITORY, "upsertAll", UPSERT_BOOK, () -> jdbcTemplate.batchUpdate(
+                        UPSERT_BOOK,
+                        new BatchPreparedStatementSetter() {
+                            @Override
+                            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                                Book book = batch.get(i);
+                                ps.setLong(1, book.id());
+                                ps.setString(2, book.title());
+                                ps.setLong(3, book.authorId());
+                                ps.setObject(4, book.releaseDate());
+                            }
+
+                            @Override
+                            public int getBatchSize() {
+                                return batch.size();
+                            }
+                        }
+                ));
+                recordUpserted(batch, existing);
+                modifications.touchAuthors(batch.stream().map(Book::authorId).toList());
+            }
+            return new UpsertResult(latest.size() - updated, updated);
+        } catch (Exception e) {
+            LOGGER.error("Problem when executing batch UPSERT!", e);
+            throw new RuntimeException("Failed to upsert books", e);
+        }
+    }
+
+    @Override
+    @Transactional
     public boolean delete(long id) {
         try {
-            int rowsAffected = jdbcTemplate.update(DELETE_BOOK, id);
+            modifications.touchAuthorsOfBooks(List.of(id));
+            modifications.touchLibrariesOfBooks(List.of(id));
+            int rowsAffected = metrics.record(REPOSITORY, "delete", DELETE_BOOK,
+                    () -> jdbcTemplate.update(DELETE_BOOK, id));
+            if (rowsAffected > 0) {
+                outbox.record(EntityType.BOOK, ChangeType.DELETED, id);
+                modifications.tombstone(EntityType.BOOK, id);
+            }
             return rowsAffected > 0;
         } catch (Exception e) {
             LOGGER.error("Problem when executing DELETE!", e);
@@ -96,54 +394,65 @@ public class BookRepositoryImpl implements BookRepository {
         }
     }
 
-    private static class BookRowMapper implements RowMapper<Book> {
-        @Override
-        public Book mapRow(ResultSet rs, int rowNum) throws SQLException {
-            return new Book(
-                    rs.getLong("id"),
-                    rs.getLong("author_id"),
-                    rs.getString("title"),
-                    rs.getDate("release_date") != null
-                            ? rs.getDate("release_date").toLocalDate()
-                            : null,
-                    Set.of()
-            );
-        }
+    private void recordUpserted(List<Book> batch, List<Long> existing) {
+        Set<Long> updated = new HashSet<>(existing);
+        List<Long> ids = batch.stream().map(Book::id).toList();
+        outbox.recordAll(EntityType.BOOK, ChangeType.CREATED, ids.stream().filter(id -> !updated.contains(id)).toList());
+        outbox.recordAll(EntityType.BOOK, ChangeType.UPDATED, existing);
+    }
+
+    /**
+     * Resolves its columns on the first row, so one instance serves a single query. Package-private
+     * for the JMH benchmarks.
+     */
+    static RowMapper<Book> bookMapper() {
+        return BOOK_COLUMNS.mapper((rs, col) -> new Book(
+                rs.getLong(col[0]),
+                rs.getLong(col[1]),
+                rs.getString(col[2]),
+                localDate(rs, col[3]),
+                Set.of(),
+                rs.getLong(col[4])
+        ));
     }
 
-    private static class BookWithAssociationsExtractor implements ResultSetExtractor<Optional<Book>> {
+    static class BookWithAssociationsExtractor implements ResultSetExtractor<Optional<Book>> {
+        private static final Columns COLUMNS = Columns.of(
+                "book_id", "book_author_id", "book_title", "book_release_date", "library_id", "library_name",
+                "book_version"
+        );
+
         @Override
         public Optional<Book> extractData(ResultSet rs) throws SQLException {
+            int[] col = COLUMNS.resolve(rs);
             Book book = null;
-            Map<Long, Library> libraryMap = new HashMap<>();
+            LongSet libraryIds = new LongSet();
+            int rows = 0;
 
             while (rs.next()) {
+                rows++;
                 if (book == null) {
                     book = new Book(
-                            rs.getLong("book_id"),
-                            rs.getLong("book_author_id"),
-                            rs.getString("book_title"),
-                            rs.getDate("book_release_date") != null
-                                    ? rs.getDate("book_release_date").toLocalDate()
-                                    : null,
-                            new HashSet<>()
+                            rs.getLong(col[0]),
+                            rs.getLong(col[1]),
+                            rs.getString(col[2]),
+                            localDate(rs, col[3]),
+                            new HashSet<>(),
+                            rs.getLong(col[6])
                     );
                 }
 
-                Long libraryId = rs.getLong("library_id");
-                if (libraryId != 0) {
-                    libraryMap.putIfAbsent(libraryId, new Library(
+                long libraryId = rs.getLong(col[4]);
+                if (!rs.wasNull() && libraryIds.add(libraryId)) {
+                    book.libraries().add(new Library(
                             libraryId,
-                            rs.getString("library_name"),
+                            rs.getString(col[5]),
                             null,
                             new HashSet<>()
                     ));
                 }
             }
-
-            if (book != null) {
-                book.libraries().addAll(libraryMap.values());
-            }
+            RepositoryMetrics.rowsRead(rows);
 
             return Optional.ofNullable(book);
         }
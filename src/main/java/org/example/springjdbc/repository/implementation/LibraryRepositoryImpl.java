@@ -1,19 +1,50 @@
 package org.example.springjdbc.repository.implementation;
 
+import jakarta.annotation.PreDestroy;
 import org.example.springjdbc.model.Book;
 import org.example.springjdbc.model.Library;
 import org.example.springjdbc.model.LibraryInfo;
+import org.example.springjdbc.model.LibrarySummary;
+import org.example.springjdbc.repository.declaration.Delta;
+import org.example.springjdbc.repository.declaration.FetchStrategy;
 import org.example.springjdbc.repository.declaration.LibraryRepository;
+import org.example.springjdbc.repository.declaration.UpsertResult;
+import org.example.springjdbc.repository.declaration.VersionConflictException;
 import org.example.springjdbc.repository.implementation.library.*;
-import org.springframework.jdbc.core.ResultSetExtractor;
+import org.example.springjdbc.repository.metrics.RepositoryMetrics;
+import org.example.springjdbc.repository.outbox.ChangeType;
+import org.example.springjdbc.repository.outbox.EntityType;
+import org.example.springjdbc.repository.outbox.OutboxWriter;
+import org.example.springjdbc.repository.tracking.DeltaPage;
+import org.example.springjdbc.repository.tracking.ModificationTracker;
+import org.example.springjdbc.repository.routing.DataSourceRoute;
+import org.example.springjdbc.repository.routing.DataSourceRouting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.object.BatchSqlUpdate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.util.*;
-import java.util.logging.Logger;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.example.springjdbc.helper.Batches.chunk;
+import static org.example.springjdbc.helper.Batches.latestById;
+import static org.example.springjdbc.helper.QueryStatements.DELETE_LIBRARY_BOOKS;
+import static org.example.springjdbc.helper.QueryStatements.INSERT_LIBRARY_BOOK;
+import static org.example.springjdbc.helper.QueryStatements.INSERT_LIBRARY_BOOKS;
+import static org.example.springjdbc.helper.TextSearch.inOrder;
+import static org.example.springjdbc.repository.metrics.RepositoryMetrics.sum;
 
 /**
  * A repository implementation for the Library entity. It is done by delegating SQL operations
@@ -21,112 +52,687 @@ import java.util.logging.Logger;
  */
 @Repository("libraryRepository")
 public class LibraryRepositoryImpl implements LibraryRepository {
-    private static final Logger LOGGER = Logger.getLogger(LibraryRepositoryImpl.class.getName());
+    private static final Logger LOGGER = LoggerFactory.getLogger(LibraryRepositoryImpl.class);
+    private static final String REPOSITORY = "library";
     private final FindLibraryByIdQuery findLibraryByIdQuery;
+    private final FindLibraryWithInfoByIdQuery findLibraryWithInfoByIdQuery;
+    private final FindBooksByLibraryIdQuery findBooksByLibraryIdQuery;
     private final FindAllLibrariesQuery findAllLibrariesQuery;
+    private final FindLibrariesPageQuery findLibrariesPageQuery;
+    private final FindLibrarySummariesPageQuery findLibrarySummariesPageQuery;
+    private final FindExistingLibraryIdsQuery findExistingLibraryIdsQuery;
+    private final UpsertLibrary upsertLibrary;
+    private final UpsertLibraryInfo upsertLibraryInfo;
+    private final ExistsLibraryByIdQuery existsLibraryByIdQuery;
+    private final CountLibrariesQuery countLibrariesQuery;
+    private final CountBooksByLibraryIdQuery countBooksByLibraryIdQuery;
     private final InsertLibrary insertLibrary;
     private final InsertLibraryInfo insertLibraryInfo;
     private final UpdateLibrary updateLibrary;
+    private final UpdateLibraryIfVersion updateLibraryIfVersion;
     private final UpdateLibraryInfo updateLibraryInfo;
     private final DeleteLibrary deleteLibrary;
     private final DeleteLibraryInfo deleteLibraryInfo;
+    private final InsertLibraryBook insertLibraryBook;
+    private final DeleteLibraryBook deleteLibraryBook;
+    private final FindBookIdsByLibraryIdQuery findBookIdsByLibraryIdQuery;
+    private final FindLibrariesModifiedAfterQuery findLibrariesModifiedAfterQuery;
+    private final SearchLibraryIdsByNameQuery searchLibraryIdsByNameQuery;
+    private final FindLibrariesByIdsQuery findLibrariesByIdsQuery;
+    private final int batchSize;
+    private final int inClauseSize;
+    private final int searchMaxResults;
+    private final int streamFetchSize;
+    private final RepositoryMetrics metrics;
+    private final OutboxWriter outbox;
+    private final ModificationTracker modifications;
+    // bounds concurrent fan-out queries per pool, so virtual threads queue here rather than in
+    // the pool's connection timeout, and leave connections for callers outside the fan-out
+    private final Map<DataSourceRoute, Semaphore> connectionPermits;
+    private final ExecutorService virtualThreads = Executors.newVirtualThreadPerTaskExecutor();
 
     public LibraryRepositoryImpl(FindLibraryByIdQuery findLibraryByIdQuery,
+                                 FindLibraryWithInfoByIdQuery findLibraryWithInfoByIdQuery,
+                                 FindBooksByLibraryIdQuery findBooksByLibraryIdQuery,
                                  FindAllLibrariesQuery findAllLibrariesQuery,
+                                 FindLibrariesPageQuery findLibrariesPageQuery,
+                                 FindLibrarySummariesPageQuery findLibrarySummariesPageQuery,
+                                 FindExistingLibraryIdsQuery findExistingLibraryIdsQuery,
+                                 UpsertLibrary upsertLibrary,
+                                 UpsertLibraryInfo upsertLibraryInfo,
+                                 ExistsLibraryByIdQuery existsLibraryByIdQuery,
+                                 CountLibrariesQuery countLibrariesQuery,
+                                 CountBooksByLibraryIdQuery countBooksByLibraryIdQuery,
                                  InsertLibrary insertLibrary,
                                  InsertLibraryInfo insertLibraryInfo,
                                  UpdateLibrary updateLibrary,
+                                 UpdateLibraryIfVersion updateLibraryIfVersion,
                                  UpdateLibraryInfo updateLibraryInfo,
                                  DeleteLibrary deleteLibrary,
-                                 DeleteLibraryInfo deleteLibraryInfo) {
+                                 DeleteLibraryInfo deleteLibraryInfo,
+                                 InsertLibraryBook insertLibraryBook,
+                                 DeleteLibraryBook deleteLibraryBook,
+                                 FindBookIdsByLibraryIdQuery findBookIdsByLibraryIdQuery,
+                                 FindLibrariesModifiedAfterQuery findLibrariesModifiedAfterQuery,
+                                 SearchLibraryIdsByNameQuery searchLibraryIdsByNameQuery,
+                                 FindLibrariesByIdsQuery findLibrariesByIdsQuery,
+                                 @Value("${repository.batch-size:500}") int batchSize,
+                                 @Value("${repository.in-clause-size:1000}") int inClauseSize,
+                                 @Value("${repository.search.max-results:100}") int searchMaxResults,
+                                 @Value("${repository.stream-fetch-size:-2147483648}") int streamFetchSize,
+                                 RepositoryMetrics metrics,
+                                 OutboxWriter outbox,
+                                 ModificationTracker modifications,
+                                 @Value("${repository.fan-out-parallelism:0}") int fanOutParallelism,
+                                 @Value("${repository.fan-out-reserve:2}") int fanOutReserve,
+                                 @Value("${spring.datasource.hikari.maximum-pool-size:10}") int primaryPoolSize,
+                                 @Value("${repository.routing.replica.maximum-pool-size:10}") int replicaPoolSize) {
         this.findLibraryByIdQuery = findLibraryByIdQuery;
+        this.findLibraryWithInfoByIdQuery = findLibraryWithInfoByIdQuery;
+        this.findBooksByLibraryIdQuery = findBooksByLibraryIdQuery;
         this.findAllLibrariesQuery = findAllLibrariesQuery;
+        this.findLibrariesPageQuery = findLibrariesPageQuery;
+        this.findLibrarySummariesPageQuery = findLibrarySummariesPageQuery;
+        this.findExistingLibraryIdsQuery = findExistingLibraryIdsQuery;
+        this.upsertLibrary = upsertLibrary;
+        this.upsertLibraryInfo = upsertLibraryInfo;
+        this.existsLibraryByIdQuery = existsLibraryByIdQuery;
+        this.countLibrariesQuery = countLibrariesQuery;
+        this.countBooksByLibraryIdQuery = countBooksByLibraryIdQuery;
         this.insertLibrary = insertLibrary;
         this.insertLibraryInfo = insertLibraryInfo;
         this.updateLibrary = updateLibrary;
+        this.updateLibraryIfVersion = updateLibraryIfVersion;
         this.updateLibraryInfo = updateLibraryInfo;
         this.deleteLibrary = deleteLibrary;
         this.deleteLibraryInfo = deleteLibraryInfo;
+        this.insertLibraryBook = insertLibraryBook;
+        this.deleteLibraryBook = deleteLibraryBook;
+        this.findBookIdsByLibraryIdQuery = findBookIdsByLibraryIdQuery;
+        this.findLibrariesModifiedAfterQuery = findLibrariesModifiedAfterQuery;
+        this.searchLibraryIdsByNameQuery = searchLibraryIdsByNameQuery;
+        this.findLibrariesByIdsQuery = findLibrariesByIdsQuery;
+        this.batchSize = batchSize;
+        this.inClauseSize = inClauseSize;
+        this.searchMaxResults = searchMaxResults;
+        this.streamFetchSize = streamFetchSize;
+        this.metrics = metrics;
+        this.outbox = outbox;
+        this.modifications = modifications;
+        this.connectionPermits = new EnumMap<>(Map.of(
+                DataSourceRoute.PRIMARY, new Semaphore(fanOutPermits(fanOutParallelism, primaryPoolSize, fanOutReserve)),
+                DataSourceRoute.REPLICA, new Semaphore(fanOutPermits(fanOutParallelism, replicaPoolSize, fanOutReserve))
+        ));
+    }
+
+    /**
+     * An explicit repository.fan-out-parallelism, or else the size of the pool the forks read
+     * from less repository.fan-out-reserve connections, and at least one.
+     */
+    private static int fanOutPermits(int fanOutParallelism, int poolSize, int reserve) {
+        return fanOutParallelism > 0 ? fanOutParallelism : Math.max(1, poolSize - reserve);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        virtualThreads.shutdownNow();
     }
 
     @Override
     public Optional<Library> findById(Long id) {
+        return findById(id, FetchStrategy.JOIN);
+    }
+
+    @Override
+    public Optional<Library> findById(Long id, FetchStrategy fetchStrategy) {
         try {
-            Library library = findLibraryByIdQuery.findByIdAggregated(id);
+            Library library = switch (fetchStrategy) {
+                case JOIN -> metrics.record(REPOSITORY, "findById", findLibraryByIdQuery.getSql(),
+                        () -> findLibraryByIdQuery.findByIdAggregated(id));
+                case MULTI_QUERY -> findByIdWithSeparateQueries(id);
+            };
             return Optional.ofNullable(library);
         } catch (Exception e) {
-            LOGGER.warning(e.getMessage());
+            LOGGER.error("An error occurred while trying to find library with id: {}", id, e);
             return Optional.empty();
         }
     }
 
     @Override
-    public Set<Library> findAll() {
+    public List<Library> findAllById(Collection<Long> ids) {
         try {
-            List<Library> partials = findAllLibrariesQuery.execute();
-            if (partials.isEmpty()) {
-                return Set.of();
+            return loadAllById("findAllById", ids);
+        } catch (ExecutionException e) {
+            LOGGER.error("An error occurred while fetching {} libraries by id", ids.size(), e.getCause());
+            return List.of();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return List.of();
+        }
+    }
+
+    private List<Library> loadAllById(String operation, Collection<Long> ids)
+            throws ExecutionException, InterruptedException {
+        List<Long> distinctIds = List.copyOf(new LinkedHashSet<>(ids));
+        List<Future<Library>> forks = new ArrayList<>(distinctIds.size());
+        // forks read from the same data source as the calling thread
+        DataSourceRoute route = DataSourceRouting.current();
+
+        // the scope owns every fork: close() waits for all of them, and the first failure
+        // interrupts the rest instead of leaving them running after the call has returned
+        try (ExecutorService scope = Executors.newVirtualThreadPerTaskExecutor()) {
+            try {
+                for (Long id : distinctIds) {
+                    forks.add(scope.submit(() -> DataSourceRouting.callWith(route,
+                            () -> findByIdWithPermit(operation, route, id))));
+                }
+
+                List<Library> libraries = new ArrayList<>(distinctIds.size());
+                for (Future<Library> fork : forks) {
+                    Library library = fork.get();
+                    if (library != null) {
+                        libraries.add(library);
+                    }
+                }
+                return libraries;
+            } catch (ExecutionException | InterruptedException e) {
+                scope.shutdownNow();
+                throw e;
             }
+        }
+    }
 
-            Map<Long, Library> libraryMap = new HashMap<>();
-            for (Library partial : partials) {
-                libraryMap.merge(
-                        partial.id(),
-                        partial,
-                        this::mergeLibraries
-                );
+    @Override
+    public CompletableFuture<Optional<Library>> findByIdAsync(Long id) {
+        DataSourceRoute route = DataSourceRouting.current();
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return Optional.ofNullable(DataSourceRouting.callWith(route,
+                        () -> findByIdWithPermit("findByIdAsync", route, id)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Optional.empty();
+            } catch (Exception e) {
+                LOGGER.error("An error occurred while trying to find library with id: {}", id, e);
+                return Optional.empty();
             }
-            return new HashSet<>(libraryMap.values());
+        }, virtualThreads);
+    }
+
+    @Override
+    public Set<Library> findAll() {
+        try {
+            return new HashSet<>(metrics.record(REPOSITORY, "findAll", findAllLibrariesQuery.getSql(),
+                    findAllLibrariesQuery::findAllAggregated));
         } catch (Exception e) {
+            LOGGER.error("An error occurred while fetching all libraries with associations", e);
             return Set.of();
         }
     }
 
     @Override
+    public Stream<Library> streamAll() {
+        try {
+            return metrics.record(REPOSITORY, "streamAll", findAllLibrariesQuery.getSql(),
+                    () -> findAllLibrariesQuery.stream(streamFetchSize));
+        } catch (Exception e) {
+            LOGGER.error("An error occurred while streaming all libraries with associations", e);
+            return Stream.empty();
+        }
+    }
+
+    @Override
+    public List<Library> findPage(long afterId, int limit) {
+        return metrics.record(REPOSITORY, "findPage", findLibrariesPageQuery.getSql(),
+                () -> findLibrariesPageQuery.findPage(afterId, limit));
+    }
+
+    @Override
+    public List<LibrarySummary> findSummaryPage(long afterId, int limit) {
+        try {
+            return metrics.record(REPOSITORY, "findSummaryPage", findLibrarySummariesPageQuery.getSql(),
+                    () -> findLibrarySummariesPageQuery.findPage(afterId, limit));
+        } catch (Exception e) {
+            LOGGER.error("An error occurred while fetching library summaries after id: {}", afterId, e);
+            return List.of();
+        }
+    }
+
+    @Override
+    public Delta<Library> findModifiedSince(Delta.Cursor after, int limit) {
+        DeltaPage page = DeltaPage.of(
+                metrics.record(REPOSITORY, "findModifiedSince", findLibrariesModifiedAfterQuery.getSql(),
+                        () -> findLibrariesModifiedAfterQuery.findAfter(after, modifications.horizonMicros(), limit + 1)),
+                modifications.tombstonesAfter(EntityType.LIBRARY, after, limit + 1),
+                after,
+                limit
+        );
+        return page.toDelta(loadByIds("findModifiedSince", page.changed()), Library::id);
+    }
+
+    @Override
+    public List<Library> searchLibrariesByName(String prefix, int limit) {
+        int bound = Math.min(limit, searchMaxResults);
+        if (bound < 1 || prefix == null || prefix.isBlank()) {
+            return List.of();
+        }
+        List<Long> ids = metrics.record(REPOSITORY, "searchLibrariesByName", searchLibraryIdsByNameQuery.getSql(),
+                () -> searchLibraryIdsByNameQuery.search(prefix, bound));
+        return inOrder(ids, loadByIds("searchLibrariesByName", ids), Library::id);
+    }
+
+    /**
+     * The libraries with their books in one joined IN query per chunk of repository.in-clause-size
+     * ids, ordered by id; ids not found are left out.
+     */
+    private List<Library> loadByIds(String operation, List<Long> ids) {
+        List<Library> libraries = new ArrayList<>(ids.size());
+        for (List<Long> batch : chunk(ids, inClauseSize)) {
+            libraries.addAll(metrics.record(REPOSITORY, operation, findLibrariesByIdsQuery.getSql(),
+                    () -> findLibrariesByIdsQuery.findByIds(batch)));
+        }
+        return libraries;
+    }
+
+    @Override
+    public boolean existsById(long id) {
+        return metrics.record(REPOSITORY, "existsById", existsLibraryByIdQuery.getSql(),
+                () -> existsLibraryByIdQuery.exists(id));
+    }
+
+    @Override
+    public long count() {
+        return metrics.record(REPOSITORY, "count", countLibrariesQuery.getSql(), countLibrariesQuery::count);
+    }
+
+    @Override
+    public long countBooks(long libraryId) {
+        return metrics.record(REPOSITORY, "countBooks", countBooksByLibraryIdQuery.getSql(),
+                () -> countBooksByLibraryIdQuery.count(libraryId));
+    }
+
+    @Override
+    @Transactional
     public long create(Library library) {
         KeyHolder keyHolder = new GeneratedKeyHolder();
 
-        insertLibrary.update(new Object[]{library.name()}, keyHolder);
+        metrics.record(REPOSITORY, "create", insertLibrary.getSql(),
+                () -> insertLibrary.update(new Object[]{library.name()}, keyHolder));
 
         long generatedLibraryId = Objects.requireNonNull(keyHolder.getKey()).longValue();
 
-        insertLibraryInfo.update(
+        metrics.record(REPOSITORY, "create", insertLibraryInfo.getSql(), () -> insertLibraryInfo.update(
                 generatedLibraryId,
                 library.libraryInfo().address(),
                 library.libraryInfo().phone()
-        );
+        ));
+
+        outbox.record(EntityType.LIBRARY, ChangeType.CREATED, generatedLibraryId);
+        linkBooks("create", generatedLibraryId, bookIds(library));
 
         return generatedLibraryId;
     }
 
     @Override
+    @Transactional
+    public List<Long> createAll(Collection<Library> libraries) {
+        List<Long> generatedIds = new ArrayList<>(libraries.size());
+        BatchSqlUpdate insertInfoBatch = insertLibraryInfo.newBatch(batchSize);
+
+        for (List<Library> batch : chunk(List.copyOf(libraries), batchSize)) {
+            List<Long> batchIds = metrics.record(REPOSITORY, "createAll", insertLibrary.getSql(),
+                    () -> insertLibrary.updateBatch(batch.stream().map(Library::name).toList()));
+
+            for (int i = 0; i < batch.size(); i++) {
+                LibraryInfo libraryInfo = batch.get(i).libraryInfo();
+                insertInfoBatch.update(batchIds.get(i), libraryInfo.address(), libraryInfo.phone());
+            }
+            generatedIds.addAll(batchIds);
+        }
+        metrics.record(REPOSITORY, "createAll", insertLibraryInfo.getSql(), insertInfoBatch::flush);
+
+        outbox.recordAll(EntityType.LIBRARY, ChangeType.CREATED, generatedIds);
+        linkAll(generatedIds, libraries);
+
+        return generatedIds;
+    }
+
+    @Override
+    @Transactional
     public void update(long id, Library library) {
-        updateLibrary.update(library.name(), id);
+        Long version = library.version();
+        recordRenames(Collections.singletonMap(id, library.name()));
+        int rowsAffected = version == null
+                ? metrics.record(REPOSITORY, "update", updateLibrary.getSql(),
+                        () -> updateLibrary.update(library.name(), id))
+                : metrics.record(REPOSITORY, "update", updateLibraryIfVersion.getSql(),
+                        () -> updateLibraryIfVersion.update(library.name(), id, version));
+        checkVersion(id, version, rowsAffected);
 
-        updateLibraryInfo.update(
+        metrics.record(REPOSITORY, "update", updateLibraryInfo.getSql(), () -> updateLibraryInfo.update(
                 library.libraryInfo().address(),
                 library.libraryInfo().phone(),
                 id
-        );
+        ));
+        if (rowsAffected > 0) {
+            outbox.record(EntityType.LIBRARY, ChangeType.UPDATED, id);
+        }
+    }
+
+    @Override
+    @Transactional
+    public int updateAll(Collection<Library> libraries) {
+        List<Library> unversioned = libraries.stream().filter(library -> library.version() == null).toList();
+        List<Library> versioned = libraries.stream().filter(library -> library.version() != null).toList();
+        recordRenames(newNames(libraries));
+
+        int[] rowsAffected = metrics.record(REPOSITORY, "updateAll", updateLibrary.getSql(), () -> {
+            BatchSqlUpdate batch = updateLibrary.newBatch(batchSize);
+            for (Library library : unversioned) {
+                batch.update(library.name(), library.id());
+            }
+            batch.flush();
+            return batch.getRowsAffected();
+        });
+
+        int[] versionedRowsAffected = metrics.record(REPOSITORY, "updateAll", updateLibraryIfVersion.getSql(), () -> {
+            BatchSqlUpdate batch = updateLibraryIfVersion.newBatch(batchSize);
+            for (Library library : versioned) {
+                batch.update(library.name(), library.id(), library.version());
+            }
+            batch.flush();
+            return batch.getRowsAffected();
+        });
+        for (int i = 0; i < versioned.size(); i++) {
+            checkVersion(versioned.get(i).id(), versioned.get(i).version(), versionedRowsAffected[i]);
+        }
+
+        metrics.record(REPOSITORY, "updateAll", updateLibraryInfo.getSql(), () -> {
+            BatchSqlUpdate batch = updateLibraryInfo.newBatch(batchSize);
+            for (Library library : libraries) {
+                batch.update(library.libraryInfo().address(), library.libraryInfo().phone(), library.id());
+            }
+            return batch.flush();
+        });
+
+        Set<Long> updated = new LinkedHashSet<>(affected(unversioned.stream().map(Library::id).toList(), rowsAffected));
+        updated.addAll(affected(versioned.stream().map(Library::id).toList(), versionedRowsAffected));
+        outbox.recordAll(EntityType.LIBRARY, ChangeType.UPDATED, updated);
+        return Math.toIntExact(sum(rowsAffected) + sum(versionedRowsAffected));
     }
 
     @Override
+    @Transactional
+    public UpsertResult upsert(Library library) {
+        return upsertAll(List.of(library));
+    }
+
+    @Override
+    @Transactional
+    public UpsertResult upsertAll(Collection<Library> libraries) {
+        List<Library> latest = latestById(libraries, Library::id);
+        int updated = 0;
+        for (List<Library> batch : chunk(latest, batchSize)) {
+            List<Long> batchIds = batch.stream().map(Library::id).toList();
+            Set<Long> existing = metrics.record(REPOSITORY, "upsertAll", findExistingLibraryIdsQuery.getSql(),
+                    () -> findExistingLibraryIdsQuery.findExisting(batchIds));
+            updated += existing.size();
+            recordRenames(newNames(batch));
+
+            metrics.record(REPOSITORY, "upsertAll", upsertLibrary.getSql(), () -> {
+                BatchSqlUpdate libraryBatch = upsertLibrary.newBatch(batchSize);
+                for (Library library : batch) {
+                    libraryBatch.update(library.id(), library.name());
+                }
+                return libraryBatch.flush();
+            });
+
+            metrics.record(REPOSITORY, "upsertAll", upsertLibraryInfo.getSql(), () -> {
+                BatchSqlUpdate infoBatch = upsertLibraryInfo.newBatch(batchSize);
+                for (Library library : batch) {
+                    infoBatch.update(library.id(), library.libraryInfo().address(), library.libraryInfo().phone());
+                }
+                return infoBatch.flush();
+            });
+
+            outbox.recordAll(EntityType.LIBRARY, ChangeType.CREATED,
+                    batchIds.stream().filter(id -> !existing.contains(id)).toList());
+            outbox.recordAll(EntityType.LIBRARY, ChangeType.UPDATED, existing);
+        }
+        return new UpsertResult(latest.size() - updated, updated);
+    }
+
+    @Override
+    @Transactional
     public boolean delete(long id) {
-        deleteLibraryInfo.update(id);
+        // before the library_book rows go with the library
+        modifications.touchBooksOfLibraries(List.of(id));
+        metrics.record(REPOSITORY, "delete", deleteLibraryInfo.getSql(), () -> deleteLibraryInfo.update(id));
 
-        int rowsAffected = deleteLibrary.update(id);
+        // library_book rows go with the library through ON DELETE CASCADE
+        int rowsAffected = metrics.record(REPOSITORY, "delete", deleteLibrary.getSql(), () -> deleteLibrary.update(id));
 
+        if (rowsAffected > 0) {
+            outbox.record(EntityType.LIBRARY, ChangeType.DELETED, id);
+            modifications.tombstone(EntityType.LIBRARY, id);
+        }
         return rowsAffected > 0;
     }
 
-    private Library mergeLibraries(Library existing, Library newPartial) {
-        Set<Book> mergedBooks = new HashSet<>(existing.books());
-        mergedBooks.addAll(newPartial.books());
+    @Override
+    @Transactional
+    public int deleteAll(Collection<Long> ids) {
+        List<Long> distinctIds = List.copyOf(new LinkedHashSet<>(ids));
+        modifications.touchBooksOfLibraries(distinctIds);
+        metrics.record(REPOSITORY, "deleteAll", deleteLibraryInfo.getSql(), () -> {
+            BatchSqlUpdate batch = deleteLibraryInfo.newBatch(batchSize);
+            for (Long id : distinctIds) {
+                batch.update(id);
+            }
+            return batch.flush();
+        });
+
+        int[] rowsAffected = metrics.record(REPOSITORY, "deleteAll", deleteLibrary.getSql(), () -> {
+            BatchSqlUpdate batch = deleteLibrary.newBatch(batchSize);
+            for (Long id : distinctIds) {
+                batch.update(id);
+            }
+            batch.flush();
+            return batch.getRowsAffected();
+        });
+
+        List<Long> deleted = affected(distinctIds, rowsAffected);
+        outbox.recordAll(EntityType.LIBRARY, ChangeType.DELETED, deleted);
+        modifications.tombstoneAll(EntityType.LIBRARY, deleted);
+        return Math.toIntExact(sum(rowsAffected));
+    }
+
+    @Override
+    @Transactional
+    public int addBooks(long libraryId, long[] bookIds) {
+        return recordLinksChanged(libraryId, linkBooks("addBooks", libraryId, bookIds));
+    }
+
+    @Override
+    @Transactional
+    public int removeBooks(long libraryId, long[] bookIds) {
+        return recordLinksChanged(libraryId, unlinkBooks("removeBooks", libraryId, bookIds));
+    }
+
+    @Override
+    @Transactional
+    public int replaceBooks(long libraryId, long[] bookIds) {
+        long[] current = metrics.record(REPOSITORY, "replaceBooks", findBookIdsByLibraryIdQuery.getSql(),
+                () -> findBookIdsByLibraryIdQuery.findBookIds(libraryId));
+        long[] target = LongStream.of(bookIds).sorted().distinct().toArray();
+
+        // both sides are sorted, so one merge pass splits them into links to add and to remove
+        LongStream.Builder toAdd = LongStream.builder();
+        LongStream.Builder toRemove = LongStream.builder();
+        int i = 0;
+        int j = 0;
+        while (i < current.length || j < target.length) {
+            if (j == target.length || (i < current.length && current[i] < target[j])) {
+                toRemove.add(current[i++]);
+            } else if (i == current.length || target[j] < current[i]) {
+                toAdd.add(target[j++]);
+            } else {
+                i++;
+                j++;
+            }
+        }
+
+        return recordLinksChanged(libraryId, unlinkBooks("replaceBooks", libraryId, toRemove.build().toArray())
+                + linkBooks("replaceBooks", libraryId, toAdd.build().toArray()));
+    }
+
+    /**
+     * A book lists the names of its libraries, so the books of a library whose name changes are
+     * recorded and touched as updated too. Has to run before the rename.
+     */
+    private void recordRenames(Map<Long, String> newNames) {
+        outbox.recordBooksOfRenamedLibraries(newNames, ChangeType.UPDATED);
+        modifications.touchBooksOfRenamedLibraries(newNames);
+    }
+
+    private static Map<Long, String> newNames(Collection<Library> libraries) {
+        Map<Long, String> newNames = new LinkedHashMap<>();
+        for (Library library : libraries) {
+            newNames.put(library.id(), library.name());
+        }
+        return newNames;
+    }
+
+    private int recordLinksChanged(long libraryId, int changed) {
+        if (changed > 0) {
+            outbox.record(EntityType.LIBRARY, ChangeType.UPDATED, libraryId);
+            modifications.touchLibrary(libraryId);
+        }
+        return changed;
+    }
+
+    /**
+     * Links the books of freshly created libraries as (library, book) pairs in batches spanning
+     * libraries, rather than one statement per library.
+     */
+    private void linkAll(List<Long> libraryIds, Collection<Library> libraries) {
+        LongStream.Builder linkLibraryIds = LongStream.builder();
+        LongStream.Builder linkBookIds = LongStream.builder();
+        int index = 0;
+        for (Library library : libraries) {
+            long libraryId = libraryIds.get(index++);
+            for (long bookId : bookIds(library)) {
+                linkLibraryIds.add(libraryId);
+                linkBookIds.add(bookId);
+            }
+        }
+        long[] pairLibraryIds = linkLibraryIds.build().toArray();
+        long[] pairBookIds = linkBookIds.build().toArray();
+
+        for (int from = 0; from < pairBookIds.length; from += batchSize) {
+            int to = Math.min(from + batchSize, pairBookIds.length);
+            int chunkStart = from;
+            metrics.record(REPOSITORY, "createAll", INSERT_LIBRARY_BOOK,
+                    () -> insertLibraryBook.updateBatch(pairLibraryIds, pairBookIds, chunkStart, to));
+        }
+        // rewritten batches may not report counts, so every requested link is recorded
+        if (pairBookIds.length > 0) {
+            outbox.recordAll(EntityType.BOOK, ChangeType.UPDATED, LongStream.of(pairBookIds).distinct().toArray());
+        }
+    }
+
+    private int linkBooks(String operation, long libraryId, long[] bookIds) {
+        int added = 0;
+        for (int from = 0; from < bookIds.length; from += inClauseSize) {
+            int to = Math.min(from + inClauseSize, bookIds.length);
+            int chunkStart = from;
+            added += metrics.record(REPOSITORY, operation, INSERT_LIBRARY_BOOKS,
+                    () -> insertLibraryBook.update(libraryId, bookIds, chunkStart, to));
+        }
+        // the ids of missing books and existing links are recorded too
+        if (added > 0) {
+            outbox.recordAll(EntityType.BOOK, ChangeType.UPDATED, bookIds);
+        }
+        return added;
+    }
+
+    private int unlinkBooks(String operation, long libraryId, long[] bookIds) {
+        int removed = 0;
+        for (int from = 0; from < bookIds.length; from += inClauseSize) {
+            int to = Math.min(from + inClauseSize, bookIds.length);
+            int chunkStart = from;
+            removed += metrics.record(REPOSITORY, operation, DELETE_LIBRARY_BOOKS,
+                    () -> deleteLibraryBook.update(libraryId, bookIds, chunkStart, to));
+        }
+        if (removed > 0) {
+            outbox.recordAll(EntityType.BOOK, ChangeType.UPDATED, bookIds);
+            // linked books are found through library_book.updated_at, unlinked ones have no row left
+            modifications.touchBooks(bookIds);
+        }
+        return removed;
+    }
+
+    /**
+     * A conditional update that matched nothing is a conflict if the library still exists, and
+     * rolls back the surrounding transaction.
+     */
+    /**
+     * The ids whose statement in a batch changed a row. UPDATE and DELETE batches report a count
+     * per statement, also when the driver sends them as one multi-statement request; only
+     * rewritten INSERT batches answer SUCCESS_NO_INFO. checkVersion relies on the same counts.
+     */
+    private static List<Long> affected(List<Long> ids, int[] rowsAffected) {
+        List<Long> affected = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (rowsAffected[i] > 0) {
+                affected.add(ids.get(i));
+            }
+        }
+        return affected;
+    }
+
+    private void checkVersion(long id, Long version, int rowsAffected) {
+        if (version != null && rowsAffected == 0 && existsById(id)) {
+            throw new VersionConflictException(REPOSITORY, id, version);
+        }
+    }
+
+    private static long[] bookIds(Library library) {
+        if (library.books() == null) {
+            return new long[0];
+        }
+        return library.books().stream()
+                .map(Book::id)
+                .filter(Objects::nonNull)
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+
+    private Library findByIdWithPermit(String operation, DataSourceRoute route, Long id) throws InterruptedException {
+        Semaphore permits = connectionPermits.get(route);
+        permits.acquire();
+        try {
+            return metrics.record(REPOSITORY, operation, findLibraryByIdQuery.getSql(),
+                    () -> findLibraryByIdQuery.findByIdAggregated(id));
+        } finally {
+            permits.release();
+        }
+    }
+
+    private Library findByIdWithSeparateQueries(Long id) {
+        Library library = metrics.record(REPOSITORY, "findById", findLibraryWithInfoByIdQuery.getSql(),
+                () -> findLibraryWithInfoByIdQuery.findObject(id));
+        if (library == null) {
+            return null;
+        }
+        library.books().addAll(metrics.record(REPOSITORY, "findById", findBooksByLibraryIdQuery.getSql(),
+                () -> findBooksByLibraryIdQuery.execute(id)));
         return new Library(
-                existing.id(),
-                existing.name(),
-                existing.libraryInfo(),
-                mergedBooks
+                library.id(),
+                library.name(),
+                library.libraryInfo(),
+                Collections.unmodifiableSet(library.books()),
+                library.version()
         );
     }
 }
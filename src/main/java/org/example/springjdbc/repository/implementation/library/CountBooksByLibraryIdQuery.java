@@ -0,0 +1,33 @@
+package org.example.springjdbc.repository.implementation.library;
+
+import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.object.MappingSqlQuery;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import static org.example.springjdbc.helper.QueryStatements.COUNT_BOOKS_BY_LIBRARY_ID;
+
+/**
+ * Counts links on the library_book primary key, whose leading column is library_id, so
+ * neither the book nor the library row is read.
+ */
+@Component
+public class CountBooksByLibraryIdQuery extends MappingSqlQuery<Long> {
+    CountBooksByLibraryIdQuery(DataSource ds) {
+        super(ds, COUNT_BOOKS_BY_LIBRARY_ID);
+        super.declareParameter(new SqlParameter("libraryId", Types.BIGINT));
+    }
+
+    @Override
+    protected Long mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return rs.getLong(1);
+    }
+
+    public long count(long libraryId) {
+        return findObject(libraryId);
+    }
+}
@@ -0,0 +1,26 @@
+package org.example.springjdbc.repository.implementation.library;
+
+import org.springframework.jdbc.object.MappingSqlQuery;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.example.springjdbc.helper.QueryStatements.COUNT_LIBRARIES;
+
+@Component
+public class CountLibrariesQuery extends MappingSqlQuery<Long> {
+    CountLibrariesQuery(DataSource ds) {
+        super(ds, COUNT_LIBRARIES);
+    }
+
+    @Override
+    protected Long mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return rs.getLong(1);
+    }
+
+    public long count() {
+        return findObject();
+    }
+}
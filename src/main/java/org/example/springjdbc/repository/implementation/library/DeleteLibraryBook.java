@@ -0,0 +1,33 @@
+package org.example.springjdbc.repository.implementation.library;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import static org.example.springjdbc.helper.Batches.withInList;
+import static org.example.springjdbc.helper.QueryStatements.DELETE_LIBRARY_BOOKS;
+
+/**
+ * Unlinks a chunk of books from a library with one DELETE ... IN statement. See
+ * {@link InsertLibraryBook} for why it is not an SqlUpdate.
+ */
+@Component
+public class DeleteLibraryBook {
+    private final JdbcTemplate jdbcTemplate;
+
+    DeleteLibraryBook(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Returns the number of links removed.
+     */
+    public int update(long libraryId, long[] bookIds, int from, int to) {
+        return jdbcTemplate.update(withInList(DELETE_LIBRARY_BOOKS, to - from), ps -> {
+            ps.setLong(1, libraryId);
+            int index = 2;
+            for (int i = from; i < to; i++) {
+                ps.setLong(index++, bookIds[i]);
+            }
+        });
+    }
+}
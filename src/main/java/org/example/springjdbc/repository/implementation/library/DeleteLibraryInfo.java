@@ -1,6 +1,7 @@
 package org.example.springjdbc.repository.implementation.library;
 
 import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.object.BatchSqlUpdate;
 import org.springframework.jdbc.object.SqlUpdate;
 import org.springframework.stereotype.Component;
 
@@ -16,4 +17,16 @@ public class DeleteLibraryInfo extends SqlUpdate {
         super(ds, DELETE_LIBRARY_INFO);
         super.declareParameter(new SqlParameter("id", Types.BIGINT));
     }
+
+    /**
+     * See {@link InsertLibraryInfo#newBatch}.
+     */
+    public BatchSqlUpdate newBatch(int batchSize) {
+        return new BatchSqlUpdate(
+                getJdbcTemplate().getDataSource(),
+                getSql(),
+                new int[]{Types.BIGINT},
+                batchSize
+        );
+    }
 }
@@ -0,0 +1,32 @@
+package org.example.springjdbc.repository.implementation.library;
+
+import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.object.MappingSqlQuery;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import static org.example.springjdbc.helper.QueryStatements.EXISTS_LIBRARY_BY_ID;
+
+/**
+ * Primary key probe that reads at most one constant row.
+ */
+@Component
+public class ExistsLibraryByIdQuery extends MappingSqlQuery<Integer> {
+    ExistsLibraryByIdQuery(DataSource ds) {
+        super(ds, EXISTS_LIBRARY_BY_ID);
+        super.declareParameter(new SqlParameter("id", Types.BIGINT));
+    }
+
+    @Override
+    protected Integer mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return rs.getInt(1);
+    }
+
+    public boolean exists(long id) {
+        return findObject(id) != null;
+    }
+}
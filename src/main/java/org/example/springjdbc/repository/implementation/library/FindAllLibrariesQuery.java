@@ -1,53 +1,37 @@
 package org.example.springjdbc.repository.implementation.library;
 
-import org.example.springjdbc.model.Book;
 import org.example.springjdbc.model.Library;
-import org.example.springjdbc.model.LibraryInfo;
-import org.springframework.jdbc.object.MappingSqlQuery;
+import org.springframework.jdbc.object.SqlOperation;
 import org.springframework.stereotype.Component;
 
 import javax.sql.DataSource;
-import java.sql.Date;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-
-import java.util.HashSet;
-import java.util.Set;
+import java.util.List;
+import java.util.stream.Stream;
 
 import static org.example.springjdbc.helper.QueryStatements.FIND_ALL_LIBRARIES_WITH_ASSOCIATIONS;
+import static org.example.springjdbc.helper.Streaming.cursor;
+import static org.example.springjdbc.helper.Streaming.forwardOnly;
+import static org.example.springjdbc.repository.implementation.library.LibraryAggregates.LIBRARY_WITH_BOOKS;
 
 @Component
-public class FindAllLibrariesQuery extends MappingSqlQuery<Library> {
+public class FindAllLibrariesQuery extends SqlOperation {
     FindAllLibrariesQuery(DataSource ds) {
-        super(ds, FIND_ALL_LIBRARIES_WITH_ASSOCIATIONS);
+        super.setDataSource(ds);
+        super.setSql(FIND_ALL_LIBRARIES_WITH_ASSOCIATIONS);
     }
 
-    @Override
-    protected Library mapRow(ResultSet rs, int rowNum) throws SQLException {
-        Long libraryId = rs.getLong("library_id");
-        String libraryName = rs.getString("library_name");
-
-        Long infoId = rs.getLong("library_info_id");
-        String address = rs.getString("library_address");
-        String phone = rs.getString("library_phone");
-
-        long bookId = rs.getLong("book_id");
-        String bookTitle = rs.getString("book_title");
-        Date releaseDate = rs.getDate("book_release_date");
-
-        LibraryInfo libraryInfo = new LibraryInfo(infoId, address, phone);
-
-        Set<Book> books = new HashSet<>();
-        if (!rs.wasNull() && bookId != 0) {
-            books.add(new Book(
-                    bookId,
-                    null,
-                    bookTitle,
-                    (releaseDate != null) ? releaseDate.toLocalDate() : null,
-                    Set.of()
-            ));
-        }
+    /**
+     * All libraries folded into aggregates in one pass over the join, rather than mapped one
+     * partial library per row and merged afterwards.
+     */
+    public List<Library> findAllAggregated() {
+        return getJdbcTemplate().query(getSql(), LIBRARY_WITH_BOOKS);
+    }
 
-        return new Library(libraryId, libraryName, libraryInfo, books);
+    /**
+     * Streams one aggregated library at a time instead of one partial library per join row.
+     */
+    public Stream<Library> stream(int fetchSize) {
+        return LIBRARY_WITH_BOOKS.stream(cursor(getJdbcTemplate(), forwardOnly(getSql(), fetchSize)));
     }
 }
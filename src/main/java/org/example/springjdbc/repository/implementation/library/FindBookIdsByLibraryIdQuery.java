@@ -0,0 +1,40 @@
+package org.example.springjdbc.repository.implementation.library;
+
+import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.object.MappingSqlQuery;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.stream.LongStream;
+
+import static org.example.springjdbc.helper.QueryStatements.FIND_BOOK_IDS_BY_LIBRARY_ID;
+
+/**
+ * Ids of the books currently linked to a library, the starting point of a link diff.
+ */
+@Component
+public class FindBookIdsByLibraryIdQuery extends MappingSqlQuery<Long> {
+    FindBookIdsByLibraryIdQuery(DataSource ds) {
+        super(ds, FIND_BOOK_IDS_BY_LIBRARY_ID);
+        super.declareParameter(new SqlParameter(Types.BIGINT));
+    }
+
+    @Override
+    protected Long mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return rs.getLong(1);
+    }
+
+    /**
+     * Same query without boxing: the ids in ascending order as a primitive array.
+     */
+    public long[] findBookIds(long libraryId) {
+        LongStream.Builder bookIds = LongStream.builder();
+        getJdbcTemplate().query(getSql(), rs -> {
+            bookIds.add(rs.getLong(1));
+        }, libraryId);
+        return bookIds.build().toArray();
+    }
+}
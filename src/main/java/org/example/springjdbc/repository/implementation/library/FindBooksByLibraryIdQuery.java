@@ -0,0 +1,46 @@
+package org.example.springjdbc.repository.implementation.library;
+
+import org.example.springjdbc.helper.Columns;
+import org.example.springjdbc.model.Book;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.object.SqlQuery;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Map;
+import java.util.Set;
+
+import static org.example.springjdbc.helper.Columns.localDate;
+import static org.example.springjdbc.helper.QueryStatements.FIND_BOOKS_BY_LIBRARY_ID;
+
+/**
+ * Association half of the multi-query fetch: one narrow row per linked book.
+ */
+@Component
+public class FindBooksByLibraryIdQuery extends SqlQuery<Book> {
+    private static final Columns COLUMNS = Columns.of("book_id", "book_title", "book_release_date", "book_author_id");
+
+    FindBooksByLibraryIdQuery(DataSource ds) {
+        super(ds, FIND_BOOKS_BY_LIBRARY_ID);
+        super.declareParameter(new SqlParameter(Types.BIGINT));
+    }
+
+    @Override
+    protected RowMapper<Book> newRowMapper(Object[] parameters, Map<?, ?> context) {
+        return COLUMNS.mapper(FindBooksByLibraryIdQuery::map);
+    }
+
+    private static Book map(ResultSet rs, int[] col) throws SQLException {
+        return new Book(
+                rs.getLong(col[0]),
+                rs.getLong(col[3]),
+                rs.getString(col[1]),
+                localDate(rs, col[2]),
+                Set.of()
+        );
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.springjdbc.repository.implementation.library;
+
+import org.springframework.jdbc.object.MappingSqlQuery;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.example.springjdbc.helper.Batches.withInList;
+import static org.example.springjdbc.helper.QueryStatements.FIND_EXISTING_LIBRARY_IDS;
+
+/**
+ * Pre-flight read of an upsert: which of the ids are already present.
+ */
+@Component
+public class FindExistingLibraryIdsQuery extends MappingSqlQuery<Long> {
+    FindExistingLibraryIdsQuery(DataSource ds) {
+        super(ds, FIND_EXISTING_LIBRARY_IDS);
+    }
+
+    @Override
+    protected Long mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return rs.getLong(1);
+    }
+
+    /**
+     * The IN list varies with the chunk, so the statement goes straight through the underlying
+     * JdbcTemplate.
+     */
+    public Set<Long> findExisting(List<Long> ids) {
+        return new HashSet<>(getJdbcTemplate().query(withInList(getSql(), ids.size()), this::mapRow, ids.toArray()));
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.springjdbc.repository.implementation.library;
+
+import org.example.springjdbc.model.Library;
+import org.springframework.jdbc.object.SqlOperation;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.example.springjdbc.helper.Batches.withInList;
+import static org.example.springjdbc.helper.QueryStatements.FIND_LIBRARIES_WITH_ASSOCIATIONS_BY_IDS;
+import static org.example.springjdbc.repository.implementation.library.LibraryAggregates.LIBRARY_WITH_BOOKS;
+
+/**
+ * Libraries with their info and books for a list of ids, in one joined query ordered by id.
+ */
+@Component
+public class FindLibrariesByIdsQuery extends SqlOperation {
+    FindLibrariesByIdsQuery(DataSource ds) {
+        super.setDataSource(ds);
+        super.setSql(FIND_LIBRARIES_WITH_ASSOCIATIONS_BY_IDS);
+    }
+
+    /**
+     * The IN list varies with the chunk, so the statement goes straight through the underlying
+     * JdbcTemplate.
+     */
+    public List<Library> findByIds(List<Long> ids) {
+        return getJdbcTemplate().query(withInList(getSql(), ids.size()), LIBRARY_WITH_BOOKS, ids.toArray());
+    }
+}
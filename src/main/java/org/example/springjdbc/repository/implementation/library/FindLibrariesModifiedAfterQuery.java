@@ -0,0 +1,42 @@
+package org.example.springjdbc.repository.implementation.library;
+
+import org.example.springjdbc.repository.declaration.Delta;
+import org.example.springjdbc.repository.tracking.Modification;
+import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.object.MappingSqlQuery;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+import static org.example.springjdbc.helper.QueryStatements.FIND_LIBRARIES_MODIFIED_AFTER;
+
+/**
+ * Ids and updated_at of the libraries written after a cursor, through the (updated_at, id) index.
+ */
+@Component
+public class FindLibrariesModifiedAfterQuery extends MappingSqlQuery<Modification> {
+
+    FindLibrariesModifiedAfterQuery(DataSource ds) {
+        super(ds, FIND_LIBRARIES_MODIFIED_AFTER);
+        super.declareParameter(new SqlParameter("modifiedAt", Types.TIMESTAMP));
+        super.declareParameter(new SqlParameter("modifiedAfter", Types.TIMESTAMP));
+        super.declareParameter(new SqlParameter("afterId", Types.BIGINT));
+        super.declareParameter(new SqlParameter("horizonMicros", Types.BIGINT));
+        super.declareParameter(new SqlParameter("limit", Types.INTEGER));
+    }
+
+    @Override
+    protected Modification mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return Modification.MAPPER.mapRow(rs, rowNum);
+    }
+
+    public List<Modification> findAfter(Delta.Cursor after, long horizonMicros, int limit) {
+        Timestamp at = Timestamp.from(after.modifiedAt());
+        return execute(at, at, after.id(), horizonMicros, limit);
+    }
+}
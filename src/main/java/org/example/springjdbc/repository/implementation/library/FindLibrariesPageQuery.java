@@ -0,0 +1,34 @@
+package org.example.springjdbc.repository.implementation.library;
+
+import org.example.springjdbc.model.Library;
+import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.object.SqlOperation;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Types;
+import java.util.List;
+
+import static org.example.springjdbc.helper.QueryStatements.FIND_LIBRARIES_PAGE_WITH_ASSOCIATIONS;
+import static org.example.springjdbc.repository.implementation.library.LibraryAggregates.LIBRARY_WITH_BOOKS;
+
+/**
+ * Keyset page of libraries. The LIMIT is applied to library rows in a derived table before
+ * joining, so a page never splits a library's books; rows are folded into aggregates directly
+ * rather than mapped one partial library per row.
+ */
+@Component
+public class FindLibrariesPageQuery extends SqlOperation {
+    FindLibrariesPageQuery(DataSource ds) {
+        super.setDataSource(ds);
+        super.setSql(FIND_LIBRARIES_PAGE_WITH_ASSOCIATIONS);
+        super.declareParameter(new SqlParameter("afterId", Types.BIGINT));
+        super.declareParameter(new SqlParameter("limit", Types.INTEGER));
+    }
+
+    public List<Library> findPage(long afterId, int limit) {
+        Object[] params = {afterId, limit};
+        validateParameters(params);
+        return getJdbcTemplate().query(newPreparedStatementCreator(params), LIBRARY_WITH_BOOKS);
+    }
+}
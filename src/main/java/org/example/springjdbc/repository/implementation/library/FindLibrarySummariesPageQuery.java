@@ -0,0 +1,49 @@
+package org.example.springjdbc.repository.implementation.library;
+
+import org.example.springjdbc.helper.Columns;
+import org.example.springjdbc.model.LibrarySummary;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.object.SqlQuery;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+
+import static org.example.springjdbc.helper.QueryStatements.FIND_LIBRARY_SUMMARIES_PAGE;
+
+/**
+ * Keyset page of library listings. Books are counted by the database, one row per library,
+ * so neither books nor library_info are read.
+ */
+@Component
+public class FindLibrarySummariesPageQuery extends SqlQuery<LibrarySummary> {
+    private static final Columns COLUMNS = Columns.of("id", "name", "book_count");
+
+    FindLibrarySummariesPageQuery(DataSource ds) {
+        super(ds, FIND_LIBRARY_SUMMARIES_PAGE);
+        super.declareParameter(new SqlParameter("afterId", Types.BIGINT));
+        super.declareParameter(new SqlParameter("limit", Types.INTEGER));
+    }
+
+    @Override
+    protected RowMapper<LibrarySummary> newRowMapper(Object[] parameters, Map<?, ?> context) {
+        return COLUMNS.mapper(FindLibrarySummariesPageQuery::map);
+    }
+
+    private static LibrarySummary map(ResultSet rs, int[] col) throws SQLException {
+        return new LibrarySummary(
+                rs.getLong(col[0]),
+                rs.getString(col[1]),
+                rs.getLong(col[2])
+        );
+    }
+
+    public List<LibrarySummary> findPage(long afterId, int limit) {
+        return execute(afterId, limit);
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.springjdbc.repository.implementation.library;
+
+import org.example.springjdbc.helper.Columns;
+import org.example.springjdbc.model.Library;
+import org.example.springjdbc.model.LibraryInfo;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.object.SqlQuery;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.example.springjdbc.helper.QueryStatements.FIND_LIBRARY_WITH_INFO_BY_ID;
+
+/**
+ * Root half of the multi-query fetch: library and library_info only, with an empty, mutable
+ * book set for {@link FindBooksByLibraryIdQuery} results to be added to.
+ */
+@Component
+public class FindLibraryWithInfoByIdQuery extends SqlQuery<Library> {
+    private static final Columns COLUMNS = Columns.of(
+            "library_id", "library_name", "library_info_id", "library_address", "library_phone",
+            "library_version"
+    );
+
+    FindLibraryWithInfoByIdQuery(DataSource ds) {
+        super(ds, FIND_LIBRARY_WITH_INFO_BY_ID);
+        super.declareParameter(new SqlParameter(Types.BIGINT));
+    }
+
+    @Override
+    protected RowMapper<Library> newRowMapper(Object[] parameters, Map<?, ?> context) {
+        return COLUMNS.mapper(FindLibraryWithInfoByIdQuery::map);
+    }
+
+    private static Library map(ResultSet rs, int[] col) throws SQLException {
+        return new Library(
+                rs.getLong(col[0]),
+                rs.getString(col[1]),
+                new LibraryInfo(
+                        rs.getLong(col[2]),
+                        rs.getString(col[3]),
+                        rs.getString(col[4])
+                ),
+                new HashSet<>(),
+                rs.getLong(col[5])
+        );
+    }
+}
@@ -1,13 +1,20 @@
 package org.example.springjdbc.repository.implementation.library;
 
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.SqlParameter;
 import org.springframework.jdbc.object.SqlUpdate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
 
 import javax.sql.DataSource;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.sql.Types;
+import java.util.List;
 
+import static org.example.springjdbc.helper.Batches.generatedIds;
 import static org.example.springjdbc.helper.QueryStatements.INSERT_LIBRARY;
 
 @Component
@@ -18,4 +25,30 @@ public class InsertLibrary extends SqlUpdate {
         super.setGeneratedKeysColumnNames("id");
         super.setReturnGeneratedKeys(true);
     }
+
+    /**
+     * BatchSqlUpdate cannot hand back generated keys, so the batch goes straight through
+     * the underlying JdbcTemplate with a KeyHolder. Ids are returned in the order of names.
+     */
+    public List<Long> updateBatch(List<String> names) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+
+        getJdbcTemplate().batchUpdate(
+                connection -> connection.prepareStatement(getSql(), getGeneratedKeysColumnNames()),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setString(1, names.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return names.size();
+                    }
+                },
+                keyHolder
+        );
+
+        return generatedIds(keyHolder);
+    }
 }
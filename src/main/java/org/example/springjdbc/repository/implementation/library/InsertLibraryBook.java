@@ -0,0 +1,59 @@
+package org.example.springjdbc.repository.implementation.library;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static org.example.springjdbc.helper.Batches.withInList;
+import static org.example.springjdbc.helper.QueryStatements.INSERT_LIBRARY_BOOK;
+import static org.example.springjdbc.helper.QueryStatements.INSERT_LIBRARY_BOOKS;
+
+/**
+ * Links books to libraries. Links that already exist and ids of missing books or libraries are
+ * skipped. The IN list varies with the chunk, so this is a plain JdbcTemplate collaborator rather
+ * than an SqlUpdate with a fixed statement; ids are bound as primitives.
+ */
+@Component
+public class InsertLibraryBook {
+    private final JdbcTemplate jdbcTemplate;
+
+    InsertLibraryBook(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Links a chunk of books to one library in one multi-row statement. Returns the number of
+     * links added.
+     */
+    public int update(long libraryId, long[] bookIds, int from, int to) {
+        return jdbcTemplate.update(withInList(INSERT_LIBRARY_BOOKS, to - from), ps -> {
+            int index = 1;
+            for (int i = from; i < to; i++) {
+                ps.setLong(index++, bookIds[i]);
+            }
+            ps.setLong(index, libraryId);
+        });
+    }
+
+    /**
+     * Links a chunk of (library, book) pairs spanning any number of libraries as one JDBC batch.
+     * Returns the update count per pair, which may be Statement.SUCCESS_NO_INFO.
+     */
+    public int[] updateBatch(long[] libraryIds, long[] bookIds, int from, int to) {
+        return jdbcTemplate.batchUpdate(INSERT_LIBRARY_BOOK, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, bookIds[from + i]);
+                ps.setLong(2, libraryIds[from + i]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return to - from;
+            }
+        });
+    }
+}
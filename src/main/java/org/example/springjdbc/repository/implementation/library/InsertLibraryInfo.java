@@ -1,6 +1,7 @@
 package org.example.springjdbc.repository.implementation.library;
 
 import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.object.BatchSqlUpdate;
 import org.springframework.jdbc.object.SqlUpdate;
 import org.springframework.stereotype.Component;
 
@@ -20,4 +21,17 @@ public class InsertLibraryInfo extends SqlUpdate {
         super.setGeneratedKeysColumnNames("id");
         super.setReturnGeneratedKeys(true);
     }
+
+    /**
+     * BatchSqlUpdate queues parameters and is therefore not thread-safe,
+     * so every caller gets its own instance sharing this statement's SQL.
+     */
+    public BatchSqlUpdate newBatch(int batchSize) {
+        return new BatchSqlUpdate(
+                getJdbcTemplate().getDataSource(),
+                getSql(),
+                new int[]{Types.BIGINT, Types.VARCHAR, Types.VARCHAR},
+                batchSize
+        );
+    }
 }
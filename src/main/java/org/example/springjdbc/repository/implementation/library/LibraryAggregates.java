@@ -0,0 +1,88 @@
+package org.example.springjdbc.repository.implementation.library;
+
+import org.example.springjdbc.helper.Columns;
+import org.example.springjdbc.helper.RowAggregator;
+import org.example.springjdbc.model.Book;
+import org.example.springjdbc.model.Library;
+import org.example.springjdbc.model.LibraryInfo;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.example.springjdbc.helper.Columns.localDate;
+
+enum LibraryAggregates {
+    ;
+
+    /**
+     * Columns shared by every library ⨝ library_info ⨝ library_book ⨝ book query.
+     */
+    static final Columns LIBRARY_COLUMNS = Columns.of(
+            "library_id", "library_name",
+            "library_info_id", "library_address", "library_phone",
+            "book_id", "book_title", "book_release_date",
+            "library_version", "book_author_id"
+    );
+
+    /**
+     * Folds library ⨝ library_info ⨝ library_book ⨝ book rows ordered by library id in a single
+     * pass: each library collects its books into one mutable set, frozen once the library is
+     * complete.
+     */
+    static final RowAggregator<Library> LIBRARY_WITH_BOOKS = new RowAggregator<>(
+            LIBRARY_COLUMNS,
+            (rs, col) -> library(rs, col, new HashSet<>()),
+            (library, rs, col) -> {
+                Book book = book(rs, col);
+                if (book != null) {
+                    library.books().add(book);
+                }
+            },
+            LibraryAggregates::freeze
+    );
+
+    static Library library(ResultSet rs, int[] col, Set<Book> books) throws SQLException {
+        return new Library(
+                rs.getLong(col[0]),
+                rs.getString(col[1]),
+                new LibraryInfo(
+                        rs.getLong(col[2]),
+                        rs.getString(col[3]),
+                        rs.getString(col[4])
+                ),
+                books,
+                rs.getLong(col[8])
+        );
+    }
+
+    static Library freeze(Library library) {
+        return new Library(
+                library.id(),
+                library.name(),
+                library.libraryInfo(),
+                Collections.unmodifiableSet(library.books()),
+                library.version()
+        );
+    }
+
+    /**
+     * The book of a joined row, or null for a library without books.
+     */
+    static Book book(ResultSet rs, int[] col) throws SQLException {
+        long bookId = rs.getLong(col[5]);
+        if (rs.wasNull()) {
+            return null;
+        }
+        long authorId = rs.getLong(col[9]);
+        return new Book(
+                bookId,
+                rs.wasNull() ? null : authorId,
+                rs.getString(col[6]),
+                localDate(rs, col[7]),
+                Set.of()
+        );
+    }
+}
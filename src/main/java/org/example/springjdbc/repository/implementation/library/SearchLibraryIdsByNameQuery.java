@@ -0,0 +1,49 @@
+package org.example.springjdbc.repository.implementation.library;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.object.MappingSqlQuery;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+import static org.example.springjdbc.helper.QueryStatements.SEARCH_LIBRARY_IDS_BY_NAME;
+import static org.example.springjdbc.helper.QueryStatements.SEARCH_LIBRARY_IDS_BY_NAME_FULL_TEXT;
+import static org.example.springjdbc.helper.TextSearch.fullTextPrefixes;
+import static org.example.springjdbc.helper.TextSearch.likePrefix;
+
+/**
+ * Ids of the libraries whose name starts with a prefix, through the name index, or with
+ * repository.search.full-text set, through the FULLTEXT index on MySQL.
+ */
+@Component
+public class SearchLibraryIdsByNameQuery extends MappingSqlQuery<Long> {
+    private final boolean fullText;
+
+    SearchLibraryIdsByNameQuery(DataSource ds, @Value("${repository.search.full-text:false}") boolean fullText) {
+        super(ds, fullText ? SEARCH_LIBRARY_IDS_BY_NAME_FULL_TEXT : SEARCH_LIBRARY_IDS_BY_NAME);
+        this.fullText = fullText;
+        super.declareParameter(new SqlParameter("name", Types.VARCHAR));
+        if (fullText) {
+            super.declareParameter(new SqlParameter("rankedName", Types.VARCHAR));
+        }
+        super.declareParameter(new SqlParameter("limit", Types.INTEGER));
+    }
+
+    @Override
+    protected Long mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return rs.getLong("id");
+    }
+
+    public List<Long> search(String prefix, int limit) {
+        if (!fullText) {
+            return execute(likePrefix(prefix), limit);
+        }
+        String terms = fullTextPrefixes(prefix);
+        return terms.isEmpty() ? List.of() : execute(terms, terms, limit);
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.springjdbc.repository.implementation.library;
+
+import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.object.BatchSqlUpdate;
+import org.springframework.jdbc.object.SqlUpdate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+import java.sql.Types;
+
+import static org.example.springjdbc.helper.QueryStatements.UPDATE_LIBRARY_IF_VERSION;
+
+/**
+ * Conditional update of the library name: matches no row once another writer has bumped the version.
+ */
+@Component
+public class UpdateLibraryIfVersion extends SqlUpdate {
+    UpdateLibraryIfVersion(DataSource ds) {
+        super(ds, UPDATE_LIBRARY_IF_VERSION);
+        super.declareParameter(new SqlParameter("name", Types.VARCHAR));
+        super.declareParameter(new SqlParameter("id", Types.BIGINT));
+        super.declareParameter(new SqlParameter("version", Types.BIGINT));
+    }
+
+    /**
+     * See {@link InsertLibraryInfo#newBatch}.
+     */
+    public BatchSqlUpdate newBatch(int batchSize) {
+        return new BatchSqlUpdate(
+                getJdbcTemplate().getDataSource(),
+                getSql(),
+                new int[]{Types.VARCHAR, Types.BIGINT, Types.BIGINT},
+                batchSize
+        );
+    }
+}
@@ -1,6 +1,7 @@
 package org.example.springjdbc.repository.implementation.library;
 
 import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.object.BatchSqlUpdate;
 import org.springframework.jdbc.object.SqlUpdate;
 import org.springframework.stereotype.Component;
 
@@ -18,4 +19,16 @@ public class UpdateLibraryInfo extends SqlUpdate {
         super.declareParameter(new SqlParameter("phone", Types.VARCHAR));
         super.declareParameter(new SqlParameter("id", Types.BIGINT));
     }
+
+    /**
+     * See {@link InsertLibraryInfo#newBatch}.
+     */
+    public BatchSqlUpdate newBatch(int batchSize) {
+        return new BatchSqlUpdate(
+                getJdbcTemplate().getDataSource(),
+                getSql(),
+                new int[]{Types.VARCHAR, Types.VARCHAR, Types.BIGINT},
+                batchSize
+        );
+    }
 }
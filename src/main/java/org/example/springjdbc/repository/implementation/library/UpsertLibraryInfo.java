@@ -0,0 +1,34 @@
+package org.example.springjdbc.repository.implementation.library;
+
+import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.object.BatchSqlUpdate;
+import org.springframework.jdbc.object.SqlUpdate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+import java.sql.Types;
+
+import static org.example.springjdbc.helper.QueryStatements.UPSERT_LIBRARY_INFO;
+
+@Component
+public class UpsertLibraryInfo extends SqlUpdate {
+    UpsertLibraryInfo(DataSource ds) {
+        super(ds, UPSERT_LIBRARY_INFO);
+        super.declareParameter(new SqlParameter("id", Types.BIGINT));
+        super.declareParameter(new SqlParameter("address", Types.VARCHAR));
+        super.declareParameter(new SqlParameter("phone", Types.VARCHAR));
+    }
+
+    /**
+     * See {@link InsertLibraryInfo#newBatch}.
+     */
+    public BatchSqlUpdate newBatch(int batchSize) {
+        return new BatchSqlUpdate(
+                getJdbcTemplate().getDataSource(),
+                getSql(),
+                new int[]{Types.BIGINT, Types.VARCHAR, Types.VARCHAR},
+                batchSize
+        );
+    }
+}
@@ -0,0 +1,189 @@
+package org.example.springjdbc.repository.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.example.springjdbc.helper.QueryStatements;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Timers, row and aggregate count distributions and error counters for every statement a
+ * repository executes, tagged by repository, operation and the name of the statement's
+ * constant in {@link QueryStatements}:
+ * <ul>
+ *     <li>{@code repository.query} - execution time</li>
+ *     <li>{@code repository.query.rows} - rows read or affected</li>
+ *     <li>{@code repository.query.aggregates} - entities mapped from those rows</li>
+ *     <li>{@code repository.query.errors} - failures, additionally tagged by exception</li>
+ * </ul>
+ * Disabled, or without a MeterRegistry, {@link #record} just runs the statement.
+ */
+@Component
+public class RepositoryMetrics {
+    private static final ThreadLocal<Recording> CURRENT = new ThreadLocal<>();
+    private static final Map<String, String> QUERY_NAMES = queryNames();
+
+    private final MeterRegistry registry;
+    private final Map<Key, Meters> meters = new ConcurrentHashMap<>();
+
+    public RepositoryMetrics(ObjectProvider<MeterRegistry> registry,
+                             @Value("${repository.metrics.enabled:true}") boolean enabled) {
+        this.registry = enabled ? registry.getIfAvailable() : null;
+    }
+
+    /**
+     * Runs one statement and records it. Update counts (int, int[], int[][]) are recorded as rows;
+     * collections, optionals and single entities as aggregates, and also as rows unless the
+     * extractor reported the number of joined rows it folded through {@link #rowsRead}.
+     */
+    public <T> T record(String repository, String operation, String sql, Supplier<T> statement) {
+        if (registry == null) {
+            return statement.get();
+        }
+
+        Meters meters = this.meters.computeIfAbsent(new Key(repository, operation, sql), this::register);
+        Recording previous = CURRENT.get();
+        Recording recording = new Recording();
+        CURRENT.set(recording);
+        long start = System.nanoTime();
+        try {
+            T result = statement.get();
+            meters.timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            recordCounts(meters, recording, result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            meters.timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            Counter.builder("repository.query.errors")
+                    .tags(meters.tags)
+                    .tag("exception", e.getClass().getSimpleName())
+                    .register(registry)
+                    .increment();
+            throw e;
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public void record(String repository, String operation, String sql, Runnable statement) {
+        record(repository, operation, sql, () -> {
+            statement.run();
+            return null;
+        });
+    }
+
+    /**
+     * Reports the number of rows an aggregating extractor folded, for the statement being recorded
+     * on this thread. A no-op when nothing is being recorded.
+     */
+    public static void rowsRead(long rows) {
+        Recording recording = CURRENT.get();
+        if (recording != null) {
+            recording.rows += rows;
+        }
+    }
+
+    private void recordCounts(Meters meters, Recording recording, Object result) {
+        long rows = recording.rows;
+        long aggregates = -1;
+
+        switch (result) {
+            case Integer count -> rows += count;
+            case int[] counts -> rows += sum(counts);
+            case int[][] batches -> {
+                for (int[] counts : batches) {
+                    rows += sum(counts);
+                }
+            }
+            case Collection<?> collection -> aggregates = collection.size();
+            case Optional<?> optional -> aggregates = optional.isPresent() ? 1 : 0;
+            case Record entity -> aggregates = 1;
+            case null, default -> {
+            }
+        }
+
+        if (aggregates >= 0) {
+            meters.aggregates.record(aggregates);
+            if (recording.rows == 0) {
+                rows = aggregates;
+            }
+        }
+        meters.rows.record(rows);
+    }
+
+    /**
+     * Total of a batch's update counts. Statement.SUCCESS_NO_INFO entries carry no count and
+     * add nothing.
+     */
+    public static long sum(int[] counts) {
+        long sum = 0;
+        for (int count : counts) {
+            // Statement.SUCCESS_NO_INFO (-2) from rewritten batches carries no count
+            sum += Math.max(count, 0);
+        }
+        return sum;
+    }
+
+    private Meters register(Key key) {
+        Tags tags = Tags.of(
+                "repository", key.repository(),
+                "operation", key.operation(),
+                "query", QUERY_NAMES.getOrDefault(key.sql(), "unknown")
+        );
+        return new Meters(
+                tags,
+                Timer.builder("repository.query")
+                        .tags(tags)
+                        .publishPercentileHistogram()
+                        .register(registry),
+                DistributionSummary.builder("repository.query.rows")
+                        .tags(tags)
+                        .baseUnit("rows")
+                        .register(registry),
+                DistributionSummary.builder("repository.query.aggregates")
+                        .tags(tags)
+                        .register(registry)
+        );
+    }
+
+    private static Map<String, String> queryNames() {
+        Map<String, String> names = new HashMap<>();
+        for (Field field : QueryStatements.class.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && field.getType() == String.class) {
+                try {
+                    names.put((String) field.get(null), field.getName());
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+        return names;
+    }
+
+    private record Key(String repository, String operation, String sql) {
+    }
+
+    private record Meters(Tags tags, Timer timer, DistributionSummary rows, DistributionSummary aggregates) {
+    }
+
+    private static final class Recording {
+        private long rows;
+    }
+}
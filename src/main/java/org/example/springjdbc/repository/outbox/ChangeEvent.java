@@ -0,0 +1,12 @@
+package org.example.springjdbc.repository.outbox;
+
+import java.time.Instant;
+
+/**
+ * One outbox row: the id of a written row, without its state. Consumers re-read the entity, so
+ * an event that arrives twice or after a later one for the same id does no harm.
+ *
+ * @param sequence the outbox id, increasing in insertion order
+ */
+public record ChangeEvent(long sequence, EntityType entity, long entityId, ChangeType change, Instant recordedAt) {
+}
@@ -0,0 +1,19 @@
+package org.example.springjdbc.repository.outbox;
+
+import java.util.List;
+
+/**
+ * Receives committed repository writes from the {@link OutboxPublisher}. Every ChangeListener bean
+ * is called, in @Order, on the publisher thread.
+ */
+@FunctionalInterface
+public interface ChangeListener {
+
+    /**
+     * The next events in sequence order, at most repository.outbox.batch-size of them. An event
+     * that committed after the publisher passed its id comes in a later batch than events with
+     * higher ids. Throwing stops the publisher, which delivers the same batch to every listener
+     * again on its next poll.
+     */
+    void onChanges(List<ChangeEvent> events);
+}
@@ -0,0 +1,11 @@
+package org.example.springjdbc.repository.outbox;
+
+/**
+ * Stored by name in outbox.change_type. Links between libraries and books are reported as
+ * UPDATED on both sides.
+ */
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,10 @@
+package org.example.springjdbc.repository.outbox;
+
+/**
+ * The table a change event was recorded for, stored by name in outbox.entity.
+ */
+public enum EntityType {
+    AUTHOR,
+    BOOK,
+    LIBRARY
+}
@@ -0,0 +1,300 @@
+package org.example.springjdbc.repository.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.example.springjdbc.repository.metrics.RepositoryMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.example.springjdbc.helper.Batches.withInList;
+import static org.example.springjdbc.helper.QueryStatements.DELETE_OUTBOX_EVENTS_BEFORE;
+import static org.example.springjdbc.helper.QueryStatements.FIND_LAST_OUTBOX_ID;
+import static org.example.springjdbc.helper.QueryStatements.FIND_OUTBOX_EVENTS_AFTER;
+import static org.example.springjdbc.helper.QueryStatements.FIND_OUTBOX_EVENTS_BY_IDS;
+
+/**
+ * Polls the outbox by id and hands the new events to every {@link ChangeListener}, in batches and
+ * in sequence order. Starts at the end of the outbox, so events recorded before startup are not
+ * replayed, and purges delivered rows older than repository.outbox.retention. Each instance keeps
+ * its own position, so every instance sees every change.
+ * <p>
+ * Ids are allocated on insert but become visible on commit, so the poll moves past a hole in the
+ * sequence after repository.outbox.gap-timeout. The ids it skipped are looked up again on every
+ * poll and an event that commits late is delivered then, after events with higher ids. Ids still
+ * missing after repository.outbox.skipped-expiry are given up: a rolled-back write, or a write
+ * that is lost to the listeners. Skipped, late and expired ids are logged and counted, as
+ * outbox.ids.skipped, outbox.events.late and outbox.ids.expired, so delivery is at least once only
+ * for writes that commit within that expiry.
+ */
+@Component
+@ConditionalOnProperty(prefix = "repository.outbox", name = "enabled", havingValue = "true")
+public class OutboxPublisher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutboxPublisher.class);
+    private static final String REPOSITORY = "outbox";
+    private static final long PURGE_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+    // a larger hole is not a transaction in flight, e.g. an id range left by a restart
+    private static final int MAX_SKIPPED = 10_000;
+
+    private static final RowMapper<ChangeEvent> EVENT_MAPPER = (rs, rowNum) -> new ChangeEvent(
+            rs.getLong("id"),
+            EntityType.valueOf(rs.getString("entity")),
+            rs.getLong("entity_id"),
+            ChangeType.valueOf(rs.getString("change_type")),
+            rs.getTimestamp("created_at").toInstant()
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RepositoryMetrics metrics;
+    private final ObjectProvider<ChangeListener> listeners;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final Duration gapTimeout;
+    private final Duration skippedExpiry;
+    private final Duration retention;
+    private final Counter skippedIds;
+    private final Counter lateEvents;
+    private final Counter expiredIds;
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("outbox-publisher").daemon().factory());
+
+    // guarded by this; -1 until the end of the outbox has been read
+    private long position = -1;
+    private long gapAt = -1;
+    private long gapSeenAt;
+    // skipped ids still being looked for, with the System.nanoTime() they were skipped at
+    private final NavigableMap<Long, Long> skipped = new TreeMap<>();
+    private long lastPurge = System.nanoTime();
+
+    public OutboxPublisher(JdbcTemplate jdbcTemplate,
+                           RepositoryMetrics metrics,
+                           ObjectProvider<ChangeListener> listeners,
+                           @Value("${repository.outbox.batch-size:500}") int batchSize,
+                           @Value("${repository.outbox.poll-interval:200ms}") Duration pollInterval,
+                           @Value("${repository.outbox.gap-timeout:2s}") Duration gapTimeout,
+                           @Value("${repository.outbox.skipped-expiry:15m}") Duration skippedExpiry,
+                           @Value("${repository.outbox.retention:1h}") Duration retention,
+                           ObjectProvider<MeterRegistry> registry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.metrics = metrics;
+        this.listeners = listeners;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.gapTimeout = gapTimeout;
+        this.skippedExpiry = skippedExpiry;
+        this.retention = retention;
+
+        MeterRegistry meters = registry.getIfAvailable();
+        this.skippedIds = meters == null ? null : Counter.builder("outbox.ids.skipped")
+                .description("Ids the publisher moved past after repository.outbox.gap-timeout")
+                .register(meters);
+        this.lateEvents = meters == null ? null : Counter.builder("outbox.events.late")
+                .description("Events delivered after the publisher had moved past their id")
+                .register(meters);
+        this.expiredIds = meters == null ? null : Counter.builder("outbox.ids.expired")
+                .description("Skipped ids given up after repository.outbox.skipped-expiry")
+                .register(meters);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startPolling() {
+        try {
+            seekToEnd();
+        } catch (Exception e) {
+            // retried by the first poll
+            LOGGER.error("Failed to read the end of the outbox", e);
+        }
+        poller.scheduleWithFixedDelay(this::poll, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        poller.shutdownNow();
+    }
+
+    /**
+     * Skips every event recorded so far; the next delivery starts with the next write.
+     */
+    public synchronized void seekToEnd() {
+        position = metrics.record(REPOSITORY, "seekToEnd", FIND_LAST_OUTBOX_ID,
+                () -> jdbcTemplate.queryForObject(FIND_LAST_OUTBOX_ID, Long.class));
+        gapAt = -1;
+        skipped.clear();
+    }
+
+    /**
+     * Delivers the next batch of events to every listener and returns its size: skipped ids that
+     * have committed since, then the events after the position. A listener that throws leaves the
+     * position and the skipped ids unchanged, so the batch is delivered again next time.
+     */
+    public synchronized int publishPending() {
+        if (position < 0) {
+            seekToEnd();
+        }
+        List<ChangeEvent> late = findSkipped();
+        long after = position;
+        int limit = batchSize - late.size();
+        List<ChangeEvent> events = limit == 0 ? List.of() : metrics.record(REPOSITORY, "publish", FIND_OUTBOX_EVENTS_AFTER,
+                () -> jdbcTemplate.query(FIND_OUTBOX_EVENTS_AFTER, EVENT_MAPPER, after, limit));
+
+        List<Long> passedOver = new ArrayList<>();
+        List<ChangeEvent> batch = new ArrayList<>(late);
+        batch.addAll(events.subList(0, deliverable(events, passedOver)));
+        if (!batch.isEmpty()) {
+            deliver(List.copyOf(batch));
+        }
+
+        long now = System.nanoTime();
+        for (ChangeEvent event : late) {
+            skipped.remove(event.sequence());
+            LOGGER.info("Delivered outbox event {} late, after the publisher had passed it", event.sequence());
+        }
+        increment(lateEvents, late.size());
+        skip(passedOver, now);
+        if (batch.size() > late.size()) {
+            position = batch.getLast().sequence();
+        }
+        expireSkipped(now);
+        return batch.size();
+    }
+
+    private void deliver(List<ChangeEvent> batch) {
+        try {
+            listeners.orderedStream().forEach(listener -> listener.onChanges(batch));
+        } catch (Exception e) {
+            LOGGER.error("A change listener failed on events {} to {}, they will be delivered again",
+                    batch.getFirst().sequence(), batch.getLast().sequence(), e);
+            throw new RuntimeException("Failed to publish outbox events", e);
+        }
+    }
+
+    /**
+     * The number of leading events that can be delivered. An id is allocated when its row is
+     * inserted but only becomes visible on commit, so a hole in the sequence is a transaction that
+     * is still running, or one that rolled back. Events after a hole wait for it to fill, until
+     * repository.outbox.gap-timeout has passed since the hole was first seen; the ids of a hole
+     * passed over are added to passedOver.
+     */
+    private int deliverable(List<ChangeEvent> events, List<Long> passedOver) {
+        long expected = position + 1;
+        for (int i = 0; i < events.size(); i++) {
+            long sequence = events.get(i).sequence();
+            if (sequence != expected) {
+                if (!gapExpired(expected)) {
+                    return i;
+                }
+                for (long missing = expected; missing < sequence; missing++) {
+                    passedOver.add(missing);
+                }
+            }
+            expected = sequence + 1;
+        }
+        return events.size();
+    }
+
+    private boolean gapExpired(long missing) {
+        long now = System.nanoTime();
+        if (gapAt != missing) {
+            gapAt = missing;
+            gapSeenAt = now;
+        }
+        return now - gapSeenAt >= gapTimeout.toNanos();
+    }
+
+    /**
+     * The skipped ids that have committed since, at most repository.outbox.batch-size of them.
+     */
+    private List<ChangeEvent> findSkipped() {
+        if (skipped.isEmpty()) {
+            return List.of();
+        }
+        Object[] ids = skipped.keySet().stream().limit(batchSize).toArray();
+        return metrics.record(REPOSITORY, "publishSkipped", FIND_OUTBOX_EVENTS_BY_IDS,
+                () -> jdbcTemplate.query(withInList(FIND_OUTBOX_EVENTS_BY_IDS, ids.length), EVENT_MAPPER, ids));
+    }
+
+    private void skip(List<Long> ids, long now) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        LOGGER.warn("Passed over outbox ids {} to {} after {}, looking for them until {} has passed",
+                ids.getFirst(), ids.getLast(), gapTimeout, skippedExpiry);
+        increment(skippedIds, ids.size());
+        for (Long id : ids) {
+            if (skipped.size() >= MAX_SKIPPED) {
+                LOGGER.error("More than {} outbox ids skipped, giving up on ids {} to {}",
+                        MAX_SKIPPED, id, ids.getLast());
+                increment(expiredIds, ids.getLast() - id + 1);
+                return;
+            }
+            skipped.put(id, now);
+        }
+    }
+
+    private void expireSkipped(long now) {
+        List<Long> expired = new ArrayList<>();
+        for (Iterator<Map.Entry<Long, Long>> it = skipped.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Long, Long> entry = it.next();
+            if (now - entry.getValue() >= skippedExpiry.toNanos()) {
+                expired.add(entry.getKey());
+                it.remove();
+            }
+        }
+        if (!expired.isEmpty()) {
+            LOGGER.warn("Gave up on outbox ids {} after {}: rolled back, or committed too late to be delivered",
+                    expired, skippedExpiry);
+            increment(expiredIds, expired.size());
+        }
+    }
+
+    private static void increment(Counter counter, long amount) {
+        if (counter != null && amount > 0) {
+            counter.increment(amount);
+        }
+    }
+
+    private void poll() {
+        try {
+            while (publishPending() == batchSize) {
+                // a full batch, there may be more behind it
+            }
+            purge();
+        } catch (Exception e) {
+            LOGGER.error("Failed to poll the outbox", e);
+        }
+    }
+
+    private synchronized void purge() {
+        if (System.nanoTime() - lastPurge < PURGE_INTERVAL_NANOS) {
+            return;
+        }
+        lastPurge = System.nanoTime();
+        Timestamp before = Timestamp.from(Instant.now().minus(retention));
+        // rows still being looked for are kept even when they are older than the retention
+        long upTo = skipped.isEmpty() ? position : Math.min(position, skipped.firstKey() - 1);
+        int purged = metrics.record(REPOSITORY, "purge", DELETE_OUTBOX_EVENTS_BEFORE,
+                () -> jdbcTemplate.update(DELETE_OUTBOX_EVENTS_BEFORE, upTo, before));
+        LOGGER.debug("Purged {} outbox events older than {}", purged, before);
+    }
+}
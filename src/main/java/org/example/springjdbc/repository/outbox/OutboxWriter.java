@@ -0,0 +1,104 @@
+package org.example.springjdbc.repository.outbox;
+
+import org.example.springjdbc.repository.metrics.RepositoryMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.example.springjdbc.helper.QueryStatements.INSERT_OUTBOX_BOOKS_BY_AUTHOR_ID;
+import static org.example.springjdbc.helper.QueryStatements.INSERT_OUTBOX_BOOKS_OF_RENAMED_LIBRARY;
+import static org.example.springjdbc.helper.QueryStatements.INSERT_OUTBOX_EVENT;
+
+/**
+ * Inserts outbox rows through the JdbcTemplate of the repositories, so they join the transaction
+ * of the write they describe and are committed or rolled back with it. A no-op unless
+ * repository.outbox.enabled is set.
+ */
+@Component
+public class OutboxWriter {
+    private static final String REPOSITORY = "outbox";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RepositoryMetrics metrics;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public OutboxWriter(JdbcTemplate jdbcTemplate,
+                        RepositoryMetrics metrics,
+                        @Value("${repository.outbox.enabled:false}") boolean enabled,
+                        @Value("${repository.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    public void record(EntityType entity, ChangeType change, long id) {
+        if (!enabled) {
+            return;
+        }
+        metrics.record(REPOSITORY, "record", INSERT_OUTBOX_EVENT, () -> jdbcTemplate.update(
+                INSERT_OUTBOX_EVENT, entity.name(), id, change.name(), Timestamp.from(Instant.now())));
+    }
+
+    public void recordAll(EntityType entity, ChangeType change, long[] ids) {
+        if (enabled) {
+            recordAll(entity, change, LongStream.of(ids).boxed().toList());
+        }
+    }
+
+    /**
+     * One row per id, in the order given, with batched inserts of up to repository.batch-size rows.
+     */
+    public void recordAll(EntityType entity, ChangeType change, Collection<Long> ids) {
+        if (!enabled || ids.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        metrics.record(REPOSITORY, "recordAll", INSERT_OUTBOX_EVENT, () -> jdbcTemplate.batchUpdate(
+                INSERT_OUTBOX_EVENT, ids, batchSize, (ps, id) -> {
+                    ps.setString(1, entity.name());
+                    ps.setLong(2, id);
+                    ps.setString(3, change.name());
+                    ps.setTimestamp(4, now);
+                }));
+    }
+
+    /**
+     * One row per book of the author, written by INSERT ... SELECT. Deleting an author removes its
+     * books through ON DELETE CASCADE, so this has to run before the author is deleted.
+     */
+    public void recordBooksOfAuthor(long authorId, ChangeType change) {
+        if (!enabled) {
+            return;
+        }
+        metrics.record(REPOSITORY, "recordBooksOfAuthor", INSERT_OUTBOX_BOOKS_BY_AUTHOR_ID, () -> jdbcTemplate.update(
+                INSERT_OUTBOX_BOOKS_BY_AUTHOR_ID, change.name(), Timestamp.from(Instant.now()), authorId));
+    }
+
+    /**
+     * One row per book of each library whose name differs from the new one, written by
+     * INSERT ... SELECT. A book lists the names of its libraries, so a rename changes it; this has
+     * to run before the libraries are renamed.
+     */
+    public void recordBooksOfRenamedLibraries(Map<Long, String> newNames, ChangeType change) {
+        if (!enabled || newNames.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        metrics.record(REPOSITORY, "recordBooksOfRenamedLibraries", INSERT_OUTBOX_BOOKS_OF_RENAMED_LIBRARY,
+                () -> jdbcTemplate.batchUpdate(INSERT_OUTBOX_BOOKS_OF_RENAMED_LIBRARY, newNames.entrySet(), batchSize,
+                        (ps, rename) -> {
+                            ps.setString(1, change.name());
+                            ps.setTimestamp(2, now);
+                            ps.setLong(3, rename.getKey());
+                            ps.setString(4, rename.getValue());
+                        }));
+    }
+}
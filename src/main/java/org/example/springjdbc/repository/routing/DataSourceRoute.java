@@ -0,0 +1,6 @@
+package org.example.springjdbc.repository.routing;
+
+public enum DataSourceRoute {
+    PRIMARY,
+    REPLICA
+}
@@ -0,0 +1,86 @@
+package org.example.springjdbc.repository.routing;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * Per-thread routing state read by {@link RoutingDataSource} when a physical connection is
+ * opened. Repository find* calls mark the thread for the replica; a read-write transaction or a
+ * {@link #readYourWrites} scope sends everything to the primary regardless.
+ */
+public enum DataSourceRouting {
+    ;
+
+    private static final ThreadLocal<DataSourceRoute> ROUTE = new ThreadLocal<>();
+    private static final ThreadLocal<Integer> PINNED = ThreadLocal.withInitial(() -> 0);
+
+    /**
+     * The route a connection opened now on this thread takes.
+     */
+    public static DataSourceRoute current() {
+        if (PINNED.get() > 0) {
+            return DataSourceRoute.PRIMARY;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // reads inside a write transaction must see its uncommitted rows
+            return TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                    ? DataSourceRoute.REPLICA
+                    : DataSourceRoute.PRIMARY;
+        }
+        DataSourceRoute route = ROUTE.get();
+        return route != null ? route : DataSourceRoute.PRIMARY;
+    }
+
+    /**
+     * Runs the work with every read on this thread going to the primary, e.g. to read back a
+     * write the replicas may not have applied yet. Scopes nest.
+     */
+    public static <T> T readYourWrites(Supplier<T> work) {
+        PINNED.set(PINNED.get() + 1);
+        try {
+            return work.get();
+        } finally {
+            PINNED.set(PINNED.get() - 1);
+        }
+    }
+
+    public static void readYourWrites(Runnable work) {
+        readYourWrites(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs the work on another thread with the route captured on the calling one, so work forked
+     * by a find* call still goes to the replica and a read-your-writes scope still holds.
+     */
+    public static <T> T callWith(DataSourceRoute route, Callable<T> work) throws Exception {
+        DataSourceRoute previousRoute = ROUTE.get();
+        Integer previousPinned = PINNED.get();
+        ROUTE.set(route);
+        PINNED.set(route == DataSourceRoute.PRIMARY ? previousPinned + 1 : previousPinned);
+        try {
+            return work.call();
+        } finally {
+            ROUTE.set(previousRoute);
+            PINNED.set(previousPinned);
+        }
+    }
+
+    static DataSourceRoute enter(DataSourceRoute route) {
+        DataSourceRoute previous = ROUTE.get();
+        ROUTE.set(route);
+        return previous;
+    }
+
+    static void restore(DataSourceRoute previous) {
+        if (previous == null) {
+            ROUTE.remove();
+        } else {
+            ROUTE.set(previous);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.springjdbc.repository.routing;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Marks the thread for the replica for the duration of a repository read method.
+ */
+class ReplicaReadInterceptor implements MethodInterceptor {
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        DataSourceRoute previous = DataSourceRouting.enter(DataSourceRoute.REPLICA);
+        try {
+            return invocation.proceed();
+        } finally {
+            DataSourceRouting.restore(previous);
+        }
+    }
+}
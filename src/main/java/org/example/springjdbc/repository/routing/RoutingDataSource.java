@@ -0,0 +1,15 @@
+package org.example.springjdbc.repository.routing;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Picks the primary or the replica pool per physical connection. It sits behind a
+ * LazyConnectionDataSourceProxy, so the choice is made at the first statement, once the
+ * transaction state of the thread is known.
+ */
+public class RoutingDataSource extends AbstractRoutingDataSource {
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return DataSourceRouting.current();
+    }
+}
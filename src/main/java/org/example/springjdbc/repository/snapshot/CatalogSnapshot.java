@@ -0,0 +1,117 @@
+package org.example.springjdbc.repository.snapshot;
+
+import org.example.springjdbc.model.Author;
+import org.example.springjdbc.model.Book;
+import org.example.springjdbc.model.Library;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Read-only, memory-mapped catalog file. Aggregates stay serialized off-heap and are decoded on
+ * each lookup; only the mapping itself is held on the heap.
+ *
+ * Layout: the encoded aggregates, then per section an index of (id, offset) entries sorted by id,
+ * then a fixed-size footer with each section's index offset and entry count, the creation time,
+ * the format version and a magic number. Offsets are ints, so a snapshot is capped at 2 GB.
+ */
+public final class CatalogSnapshot {
+    static final int MAGIC = 0x43534E50;
+    static final int FORMAT_VERSION = 1;
+    static final int INDEX_ENTRY_BYTES = Long.BYTES + Integer.BYTES;
+    static final int FOOTER_BYTES = Section.values().length * 2 * Integer.BYTES + Long.BYTES + 2 * Integer.BYTES;
+
+    enum Section {
+        AUTHORS,
+        BOOKS,
+        LIBRARIES
+    }
+
+    private final MappedByteBuffer buffer;
+    private final int[] indexOffsets;
+    private final int[] counts;
+    private final Instant createdAt;
+
+    private CatalogSnapshot(MappedByteBuffer buffer, int[] indexOffsets, int[] counts, Instant createdAt) {
+        this.buffer = buffer;
+        this.indexOffsets = indexOffsets;
+        this.counts = counts;
+        this.createdAt = createdAt;
+    }
+
+    public static CatalogSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < FOOTER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a catalog snapshot: " + path);
+            }
+            // the mapping stays valid once the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            SnapshotCursor footer = new SnapshotCursor(buffer, (int) size - FOOTER_BYTES);
+            int sections = Section.values().length;
+            int[] indexOffsets = new int[sections];
+            int[] counts = new int[sections];
+            for (int i = 0; i < sections; i++) {
+                indexOffsets[i] = footer.readInt();
+                counts[i] = footer.readInt();
+            }
+            Instant createdAt = Instant.ofEpochMilli(footer.readLong());
+            int formatVersion = footer.readInt();
+            if (footer.readInt() != MAGIC || formatVersion != FORMAT_VERSION) {
+                throw new IOException("Unsupported catalog snapshot format in " + path);
+            }
+            return new CatalogSnapshot(buffer, indexOffsets, counts, createdAt);
+        }
+    }
+
+    public Instant createdAt() {
+        return createdAt;
+    }
+
+    public Optional<Author> author(long id) {
+        int offset = find(Section.AUTHORS, id);
+        return offset < 0 ? Optional.empty() : Optional.of(SnapshotCodec.readAuthor(new SnapshotCursor(buffer, offset)));
+    }
+
+    public Optional<Book> book(long id) {
+        int offset = find(Section.BOOKS, id);
+        return offset < 0 ? Optional.empty() : Optional.of(SnapshotCodec.readBookWithLibraries(new SnapshotCursor(buffer, offset)));
+    }
+
+    public Optional<Library> library(long id) {
+        int offset = find(Section.LIBRARIES, id);
+        return offset < 0 ? Optional.empty() : Optional.of(SnapshotCodec.readLibrary(new SnapshotCursor(buffer, offset)));
+    }
+
+    int size(Section section) {
+        return counts[section.ordinal()];
+    }
+
+    /**
+     * Offset of the id's record, or -1, by binary search over the section index.
+     */
+    private int find(Section section, long id) {
+        int indexOffset = indexOffsets[section.ordinal()];
+        int low = 0;
+        int high = counts[section.ordinal()] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int entry = indexOffset + middle * INDEX_ENTRY_BYTES;
+            long middleId = buffer.getLong(entry);
+            if (middleId < id) {
+                low = middle + 1;
+            } else if (middleId > id) {
+                high = middle - 1;
+            } else {
+                return buffer.getInt(entry + Long.BYTES);
+            }
+        }
+        return -1;
+    }
+}
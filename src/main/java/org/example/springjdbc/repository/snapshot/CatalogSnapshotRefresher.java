@@ -0,0 +1,150 @@
+package org.example.springjdbc.repository.snapshot;
+
+import org.example.springjdbc.model.Author;
+import org.example.springjdbc.model.Book;
+import org.example.springjdbc.model.Library;
+import org.example.springjdbc.repository.declaration.AuthorRepository;
+import org.example.springjdbc.repository.declaration.BookRepository;
+import org.example.springjdbc.repository.declaration.LibraryRepository;
+import org.example.springjdbc.repository.snapshot.CatalogSnapshot.Section;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Re-reads the catalog from the database in keyset pages, which warms its buffer pool, hands
+ * each re-read id range over from the snapshot to the database, and writes the pages out as the
+ * snapshot for the next start. Runs once on a virtual thread after startup.
+ * <p>
+ * It reads through findPage and findAllWithAssociations, which throw on a failing query, so a
+ * failed pass stops before marking its section refreshed and leaves the previous file in place.
+ */
+@Component
+@ConditionalOnProperty(prefix = "repository.snapshot", name = "enabled", havingValue = "true")
+public class CatalogSnapshotRefresher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CatalogSnapshotRefresher.class);
+
+    private final AuthorRepository authorRepository;
+    private final BookRepository bookRepository;
+    private final LibraryRepository libraryRepository;
+    private final CatalogSnapshotStore store;
+    private final int pageSize;
+    private final boolean refreshOnStartup;
+
+    public CatalogSnapshotRefresher(AuthorRepository authorRepository,
+                                    BookRepository bookRepository,
+                                    LibraryRepository libraryRepository,
+                                    CatalogSnapshotStore store,
+                                    @Value("${repository.snapshot.page-size:500}") int pageSize,
+                                    @Value("${repository.snapshot.refresh-on-startup:true}") boolean refreshOnStartup) {
+        this.authorRepository = authorRepository;
+        this.bookRepository = bookRepository;
+        this.libraryRepository = libraryRepository;
+        this.store = store;
+        this.pageSize = pageSize;
+        this.refreshOnStartup = refreshOnStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void refreshInBackground() {
+        if (refreshOnStartup) {
+            Thread.ofVirtual().name("catalog-snapshot-refresh").start(this::refresh);
+        }
+    }
+
+    /**
+     * One full pass. Afterwards the snapshot is retired, whether or not the new one was written.
+     */
+    public void refresh() {
+        long started = System.nanoTime();
+        Optional<CatalogSnapshot> previous = store.current();
+        try (CatalogSnapshotWriter writer = new CatalogSnapshotWriter(store.path())) {
+            int stale = refreshAuthors(writer, previous)
+                    + refreshBooks(writer, previous)
+                    + refreshLibraries(writer, previous);
+            writer.commit(Instant.now());
+            LOGGER.info("Catalog snapshot refreshed in {} ms, {} served entries had changed",
+                    (System.nanoTime() - started) / 1_000_000, stale);
+        } catch (Exception e) {
+            LOGGER.error("Failed to refresh the catalog snapshot at {}", store.path(), e);
+        } finally {
+            store.retire();
+        }
+    }
+
+    private int refreshAuthors(CatalogSnapshotWriter writer, Optional<CatalogSnapshot> previous) throws IOException {
+        int stale = 0;
+        long afterId = 0;
+        List<Author> page;
+        do {
+            page = authorRepository.findPage(afterId, pageSize);
+            for (Author author : page) {
+                stale += changed(previous.flatMap(snapshot -> snapshot.author(author.id())), author);
+                writer.author(author);
+            }
+            if (!page.isEmpty()) {
+                afterId = page.getLast().id();
+                store.markRefreshed(Section.AUTHORS, afterId);
+            }
+        } while (page.size() == pageSize);
+        store.markRefreshed(Section.AUTHORS, Long.MAX_VALUE);
+        return stale;
+    }
+
+    private int refreshBooks(CatalogSnapshotWriter writer, Optional<CatalogSnapshot> previous) throws IOException {
+        int stale = 0;
+        long afterId = 0;
+        List<Book> page;
+        do {
+            page = bookRepository.findPage(afterId, pageSize);
+            List<Book> books = bookRepository.findAllWithAssociations(page.stream().map(Book::id).toList())
+                    .stream()
+                    .sorted(Comparator.comparing(Book::id))
+                    .toList();
+            for (Book book : books) {
+                stale += changed(previous.flatMap(snapshot -> snapshot.book(book.id())), book);
+                writer.book(book);
+            }
+            if (!page.isEmpty()) {
+                afterId = page.getLast().id();
+                store.markRefreshed(Section.BOOKS, afterId);
+            }
+        } while (page.size() == pageSize);
+        store.markRefreshed(Section.BOOKS, Long.MAX_VALUE);
+        return stale;
+    }
+
+    private int refreshLibraries(CatalogSnapshotWriter writer, Optional<CatalogSnapshot> previous) throws IOException {
+        int stale = 0;
+        long afterId = 0;
+        List<Library> page;
+        do {
+            page = libraryRepository.findPage(afterId, pageSize);
+            for (Library library : page) {
+                stale += changed(previous.flatMap(snapshot -> snapshot.library(library.id())), library);
+                writer.library(library);
+            }
+            if (!page.isEmpty()) {
+                afterId = page.getLast().id();
+                store.markRefreshed(Section.LIBRARIES, afterId);
+            }
+        } while (page.size() == pageSize);
+        store.markRefreshed(Section.LIBRARIES, Long.MAX_VALUE);
+        return stale;
+    }
+
+    private static <T> int changed(Optional<T> served, T fresh) {
+        return served.isPresent() && !Objects.equals(served.get(), fresh) ? 1 : 0;
+    }
+}
@@ -0,0 +1,232 @@
+package org.example.springjdbc.repository.snapshot;
+
+import jakarta.annotation.PostConstruct;
+import org.example.springjdbc.model.Author;
+import org.example.springjdbc.model.Book;
+import org.example.springjdbc.model.Library;
+import org.example.springjdbc.repository.cache.RepositoryCaches;
+import org.example.springjdbc.repository.snapshot.CatalogSnapshot.Section;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The snapshot mapped at startup and what of it may still be served. An entry is served until
+ * the refresh pass has re-read its id range from the database, or until a write through the
+ * repositories touches it or an aggregate embedding it. Once the pass completes the snapshot is
+ * retired and every read goes to the database again.
+ * <p>
+ * The repository caches sit in front of the snapshot and keep what it served, so retiring a
+ * served snapshot also clears them.
+ */
+@Component
+@ConditionalOnProperty(prefix = "repository.snapshot", name = "enabled", havingValue = "true")
+public final class CatalogSnapshotStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CatalogSnapshotStore.class);
+
+    private final Path path;
+    private final Duration maxAge;
+    private final ObjectProvider<RepositoryCaches> caches;
+
+    private volatile CatalogSnapshot snapshot;
+    // per section, the highest id the refresh pass has re-read from the database
+    private final AtomicLongArray refreshedThrough = new AtomicLongArray(Section.values().length);
+    private final Set<Long> dirtyAuthors = ConcurrentHashMap.newKeySet();
+    private final Set<Long> dirtyBooks = ConcurrentHashMap.newKeySet();
+    private final Set<Long> dirtyLibraries = ConcurrentHashMap.newKeySet();
+
+    public CatalogSnapshotStore(@Value("${repository.snapshot.path:catalog.snapshot}") Path path,
+                                @Value("${repository.snapshot.max-age:1d}") Duration maxAge,
+                                ObjectProvider<RepositoryCaches> caches) {
+        this.path = path;
+        this.maxAge = maxAge;
+        this.caches = caches;
+    }
+
+    @PostConstruct
+    void loadOnStartup() {
+        load();
+    }
+
+    /**
+     * Maps the snapshot file if there is a recent enough one, and starts serving it from scratch.
+     * Returns whether it is served.
+     */
+    public synchronized boolean load() {
+        retire();
+        if (!Files.exists(path)) {
+            LOGGER.info("No catalog snapshot at {}, reads go to the database", path);
+            return false;
+        }
+        try {
+            CatalogSnapshot loaded = CatalogSnapshot.open(path);
+            Duration age = Duration.between(loaded.createdAt(), Instant.now());
+            if (age.compareTo(maxAge) > 0) {
+                LOGGER.info("Catalog snapshot at {} is {} old, older than {}; not serving it", path, age, maxAge);
+                return false;
+            }
+            for (int i = 0; i < refreshedThrough.length(); i++) {
+                refreshedThrough.set(i, Long.MIN_VALUE);
+            }
+            snapshot = loaded;
+            LOGGER.info("Serving catalog snapshot from {}: {} authors, {} books, {} libraries, {} old",
+                    path, loaded.size(Section.AUTHORS), loaded.size(Section.BOOKS), loaded.size(Section.LIBRARIES), age);
+            return true;
+        } catch (Exception e) {
+            LOGGER.warn("Could not read the catalog snapshot at {}, reads go to the database", path, e);
+            return false;
+        }
+    }
+
+    public boolean serving() {
+        return snapshot != null;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    /**
+     * Empty when the database must answer: nothing is served, the id is missing from the
+     * snapshot, or its entry is no longer trusted.
+     */
+    Optional<Author> author(long id) {
+        CatalogSnapshot current = snapshot;
+        if (current == null || !trusted(Section.AUTHORS, id, dirtyAuthors)) {
+            return Optional.empty();
+        }
+        return current.author(id);
+    }
+
+    Optional<Book> book(long id) {
+        CatalogSnapshot current = snapshot;
+        if (current == null || !trusted(Section.BOOKS, id, dirtyBooks)) {
+            return Optional.empty();
+        }
+        return current.book(id);
+    }
+
+    Optional<Library> library(long id) {
+        CatalogSnapshot current = snapshot;
+        if (current == null || !trusted(Section.LIBRARIES, id, dirtyLibraries)) {
+            return Optional.empty();
+        }
+        return current.library(id);
+    }
+
+    /**
+     * The snapshot entry regardless of refresh progress, for comparing it with the database.
+     */
+    Optional<CatalogSnapshot> current() {
+        return Optional.ofNullable(snapshot);
+    }
+
+    void markRefreshed(Section section, long throughId) {
+        refreshedThrough.accumulateAndGet(section.ordinal(), throughId, Math::max);
+    }
+
+    void retire() {
+        boolean served = snapshot != null;
+        snapshot = null;
+        dirtyAuthors.clear();
+        dirtyBooks.clear();
+        dirtyLibraries.clear();
+        if (served) {
+            caches.ifAvailable(RepositoryCaches::invalidateAll);
+        }
+    }
+
+    /**
+     * Stops serving every snapshot entry a write may change: the entities named by its
+     * arguments, plus, by the relations recorded in the snapshot, the aggregates embedding them.
+     * Ids passed on their own are of the entity the repository manages.
+     */
+    void invalidate(Section repository, Object[] arguments) {
+        CatalogSnapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+        Set<Long> authors = new HashSet<>();
+        Set<Long> books = new HashSet<>();
+        Set<Long> libraries = new HashSet<>();
+        for (Object argument : arguments) {
+            collect(argument, repository, authors, books, libraries);
+        }
+
+        // deleting an author cascades to its books; a library aggregate lists its books by title
+        for (Long authorId : authors) {
+            current.author(authorId).ifPresent(author -> author.books().forEach(book -> books.add(book.id())));
+        }
+        for (Long libraryId : libraries) {
+            current.library(libraryId).ifPresent(library -> library.books().forEach(book -> books.add(book.id())));
+        }
+        for (Long bookId : books) {
+            current.book(bookId).ifPresent(book -> {
+                authors.add(book.authorId());
+                book.libraries().forEach(library -> libraries.add(library.id()));
+            });
+        }
+
+        dirtyAuthors.addAll(authors);
+        dirtyBooks.addAll(books);
+        dirtyLibraries.addAll(libraries);
+    }
+
+    private boolean trusted(Section section, long id, Set<Long> dirty) {
+        return id > refreshedThrough.get(section.ordinal()) && !dirty.contains(id);
+    }
+
+    private static void collect(Object argument, Section repository,
+                                Set<Long> authors, Set<Long> books, Set<Long> libraries) {
+        switch (argument) {
+            case Author author -> addIfPresent(authors, author.id());
+            case Book book -> {
+                addIfPresent(books, book.id());
+                addIfPresent(authors, book.authorId());
+            }
+            case Library library -> {
+                addIfPresent(libraries, library.id());
+                if (library.books() != null) {
+                    library.books().forEach(book -> addIfPresent(books, book.id()));
+                }
+            }
+            // addBooks, removeBooks and replaceBooks take book ids
+            case long[] bookIds -> {
+                for (long bookId : bookIds) {
+                    books.add(bookId);
+                }
+            }
+            case Long id -> {
+                switch (repository) {
+                    case AUTHORS -> authors.add(id);
+                    case BOOKS -> books.add(id);
+                    case LIBRARIES -> libraries.add(id);
+                }
+            }
+            case Collection<?> elements -> elements.forEach(element ->
+                    collect(element, repository, authors, books, libraries));
+            case null, default -> {
+            }
+        }
+    }
+
+    private static void addIfPresent(Set<Long> ids, Long id) {
+        if (id != null) {
+            ids.add(id);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.springjdbc.repository.snapshot;
+
+import org.example.springjdbc.model.Author;
+import org.example.springjdbc.model.Book;
+import org.example.springjdbc.model.Library;
+import org.example.springjdbc.repository.snapshot.CatalogSnapshot.Section;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Writes a {@link CatalogSnapshot} next to its target and moves it into place on commit, so a
+ * reader never sees a partial file. Each section takes its aggregates in ascending id order,
+ * the order of the keyset pages they are read from.
+ */
+final class CatalogSnapshotWriter implements Closeable {
+    private final Path target;
+    private final Path temporary;
+    private final DataOutputStream out;
+    private final SectionIndex[] indexes = new SectionIndex[Section.values().length];
+    private boolean committed;
+
+    CatalogSnapshotWriter(Path target) throws IOException {
+        this.target = target;
+        this.temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16));
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = new SectionIndex();
+        }
+    }
+
+    void author(Author author) throws IOException {
+        index(Section.AUTHORS, author.id());
+        SnapshotCodec.writeAuthor(out, author);
+    }
+
+    void book(Book book) throws IOException {
+        index(Section.BOOKS, book.id());
+        SnapshotCodec.writeBookWithLibraries(out, book);
+    }
+
+    void library(Library library) throws IOException {
+        index(Section.LIBRARIES, library.id());
+        SnapshotCodec.writeLibrary(out, library);
+    }
+
+    void commit(Instant createdAt) throws IOException {
+        int[] indexOffsets = new int[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            indexOffsets[i] = position();
+            indexes[i].writeTo(out);
+        }
+        for (int i = 0; i < indexes.length; i++) {
+            out.writeInt(indexOffsets[i]);
+            out.writeInt(indexes[i].size);
+        }
+        out.writeLong(createdAt.toEpochMilli());
+        out.writeInt(CatalogSnapshot.FORMAT_VERSION);
+        out.writeInt(CatalogSnapshot.MAGIC);
+        position();
+        out.close();
+
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        committed = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!committed) {
+            out.close();
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private void index(Section section, long id) throws IOException {
+        indexes[section.ordinal()].add(id, position());
+    }
+
+    private int position() throws IOException {
+        // DataOutputStream.size() saturates at Integer.MAX_VALUE
+        if (out.size() == Integer.MAX_VALUE) {
+            throw new IOException("Catalog snapshot exceeds 2 GB");
+        }
+        return out.size();
+    }
+
+    private static final class SectionIndex {
+        private long[] ids = new long[1024];
+        private int[] offsets = new int[1024];
+        private int size;
+
+        void add(long id, int offset) {
+            if (size > 0 && id <= ids[size - 1]) {
+                throw new IllegalStateException("Snapshot ids must ascend, got " + id + " after " + ids[size - 1]);
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            ids[size] = id;
+            offsets[size] = offset;
+            size++;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            for (int i = 0; i < size; i++) {
+                out.writeLong(ids[i]);
+                out.writeInt(offsets[i]);
+            }
+        }
+    }
+}
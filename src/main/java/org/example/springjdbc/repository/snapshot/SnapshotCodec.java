@@ -0,0 +1,134 @@
+package org.example.springjdbc.repository.snapshot;
+
+import org.example.springjdbc.model.Author;
+import org.example.springjdbc.model.Book;
+import org.example.springjdbc.model.Library;
+import org.example.springjdbc.model.LibraryInfo;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Binary form of the three aggregates. Decoding rebuilds them exactly as the JDBC repositories
+ * return them, down to the nulls and the mutability of the nested sets, so a snapshot read and
+ * a database read of an unchanged row compare equal.
+ */
+enum SnapshotCodec {
+    ;
+
+    static void writeAuthor(DataOutput out, Author author) throws IOException {
+        out.writeLong(author.id());
+        writeString(out, author.firstName());
+        writeString(out, author.lastName());
+        writeNullableLong(out, author.version());
+        writeBooks(out, author.books());
+    }
+
+    static Author readAuthor(SnapshotCursor in) {
+        long id = in.readLong();
+        String firstName = in.readString();
+        String lastName = in.readString();
+        Long version = in.readNullableLong();
+        return new Author(id, firstName, lastName, readBooks(in), version);
+    }
+
+    static void writeBookWithLibraries(DataOutput out, Book book) throws IOException {
+        writeBook(out, book);
+        Set<Library> libraries = book.libraries() == null ? Set.of() : book.libraries();
+        out.writeInt(libraries.size());
+        for (Library library : libraries) {
+            out.writeLong(library.id());
+            writeString(out, library.name());
+        }
+    }
+
+    static Book readBookWithLibraries(SnapshotCursor in) {
+        Book book = readBook(in);
+        int count = in.readInt();
+        Set<Library> libraries = new HashSet<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            libraries.add(new Library(in.readLong(), in.readString(), null, new HashSet<>()));
+        }
+        return new Book(book.id(), book.authorId(), book.title(), book.releaseDate(), libraries, book.version());
+    }
+
+    static void writeLibrary(DataOutput out, Library library) throws IOException {
+        out.writeLong(library.id());
+        writeString(out, library.name());
+        LibraryInfo info = library.libraryInfo();
+        out.writeBoolean(info != null);
+        if (info != null) {
+            writeNullableLong(out, info.id());
+            writeString(out, info.address());
+            writeString(out, info.phone());
+        }
+        writeNullableLong(out, library.version());
+        writeBooks(out, library.books());
+    }
+
+    static Library readLibrary(SnapshotCursor in) {
+        long id = in.readLong();
+        String name = in.readString();
+        LibraryInfo info = in.readBoolean()
+                ? new LibraryInfo(in.readNullableLong(), in.readString(), in.readString())
+                : null;
+        Long version = in.readNullableLong();
+        return new Library(id, name, info, Collections.unmodifiableSet(readBooks(in)), version);
+    }
+
+    /**
+     * Books embedded in an author or a library: no libraries of their own.
+     */
+    private static void writeBooks(DataOutput out, Set<Book> books) throws IOException {
+        Set<Book> written = books == null ? Set.of() : books;
+        out.writeInt(written.size());
+        for (Book book : written) {
+            writeBook(out, book);
+        }
+    }
+
+    private static Set<Book> readBooks(SnapshotCursor in) {
+        int count = in.readInt();
+        Set<Book> books = new HashSet<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            books.add(readBook(in));
+        }
+        return books;
+    }
+
+    private static void writeBook(DataOutput out, Book book) throws IOException {
+        out.writeLong(book.id());
+        writeNullableLong(out, book.authorId());
+        writeString(out, book.title());
+        LocalDate releaseDate = book.releaseDate();
+        out.writeLong(releaseDate == null ? SnapshotCursor.NULL_DATE : releaseDate.toEpochDay());
+        writeNullableLong(out, book.version());
+    }
+
+    private static Book readBook(SnapshotCursor in) {
+        return new Book(in.readLong(), in.readNullableLong(), in.readString(), in.readDate(), Set.of(),
+                in.readNullableLong());
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeNullableLong(DataOutput out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.springjdbc.repository.snapshot;
+
+import org.example.springjdbc.repository.implementation.AuthorRepositoryImpl;
+import org.example.springjdbc.repository.implementation.BookRepositoryImpl;
+import org.example.springjdbc.repository.implementation.LibraryRepositoryImpl;
+import org.springframework.aop.support.NameMatchMethodPointcutAdvisor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+
+/**
+ * Cold-start snapshot: the JDBC repositories answer findById reads from a memory-mapped catalog
+ * file while a background pass re-reads the database and writes the next file.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "repository.snapshot", name = "enabled", havingValue = "true")
+public class SnapshotConfiguration {
+
+    /**
+     * Applied to the JDBC implementations only, below any caching decorator, and ahead of
+     * @Transactional so a served read opens no transaction.
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static NameMatchMethodPointcutAdvisor snapshotReadAdvisor(ObjectProvider<CatalogSnapshotStore> store) {
+        NameMatchMethodPointcutAdvisor advisor = new NameMatchMethodPointcutAdvisor(new SnapshotReadInterceptor(store));
+        advisor.setMappedNames(
+                "findById", "findByIdWithAssociations", "findByIdWithoutAssociations",
+                "create*", "update*", "upsert*", "delete*", "addBooks", "removeBooks", "replaceBooks"
+        );
+        advisor.setClassFilter(type -> AuthorRepositoryImpl.class.isAssignableFrom(type)
+                || BookRepositoryImpl.class.isAssignableFrom(type)
+                || LibraryRepositoryImpl.class.isAssignableFrom(type));
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.springjdbc.repository.snapshot;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * Sequential reader over a shared buffer. It only uses absolute gets, so any number of cursors
+ * can read the same mapped snapshot concurrently.
+ */
+final class SnapshotCursor {
+    static final long NULL_DATE = Long.MIN_VALUE;
+
+    private final ByteBuffer buffer;
+    private int position;
+
+    SnapshotCursor(ByteBuffer buffer, int position) {
+        this.buffer = buffer;
+        this.position = position;
+    }
+
+    int readInt() {
+        int value = buffer.getInt(position);
+        position += Integer.BYTES;
+        return value;
+    }
+
+    long readLong() {
+        long value = buffer.getLong(position);
+        position += Long.BYTES;
+        return value;
+    }
+
+    boolean readBoolean() {
+        return buffer.get(position++) != 0;
+    }
+
+    Long readNullableLong() {
+        return readBoolean() ? readLong() : null;
+    }
+
+    String readString() {
+        int length = readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(position, bytes);
+        position += length;
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    LocalDate readDate() {
+        long epochDay = readLong();
+        return epochDay == NULL_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+}
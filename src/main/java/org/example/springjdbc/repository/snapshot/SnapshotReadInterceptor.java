@@ -0,0 +1,70 @@
+package org.example.springjdbc.repository.snapshot;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.example.springjdbc.model.Author;
+import org.example.springjdbc.repository.declaration.AuthorRepository;
+import org.example.springjdbc.repository.declaration.BookRepository;
+import org.example.springjdbc.repository.declaration.LibraryRepository;
+import org.example.springjdbc.repository.snapshot.CatalogSnapshot.Section;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Sits in front of the JDBC repositories. findById reads are answered from the snapshot while
+ * it holds a trusted entry; writes invalidate the entries they may change, before they run.
+ */
+class SnapshotReadInterceptor implements MethodInterceptor {
+    // resolved on first use: advisors are created before the beans they advise
+    private final ObjectProvider<CatalogSnapshotStore> store;
+
+    SnapshotReadInterceptor(ObjectProvider<CatalogSnapshotStore> store) {
+        this.store = store;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        CatalogSnapshotStore snapshots = store.getObject();
+        if (!snapshots.serving()) {
+            return invocation.proceed();
+        }
+
+        Object repository = invocation.getThis();
+        String name = invocation.getMethod().getName();
+        Object[] arguments = invocation.getArguments();
+        if (name.startsWith("find")) {
+            Optional<?> served = serve(snapshots, repository, name, arguments);
+            return served.isPresent() ? served : invocation.proceed();
+        }
+
+        snapshots.invalidate(section(repository), arguments);
+        return invocation.proceed();
+    }
+
+    private static Optional<?> serve(CatalogSnapshotStore snapshots, Object repository, String name,
+                                     Object[] arguments) {
+        if (arguments.length == 0 || arguments[0] == null) {
+            return Optional.empty();
+        }
+        long id = (Long) arguments[0];
+        return switch (repository) {
+            case AuthorRepository ignored when name.equals("findByIdWithoutAssociations") ->
+                    snapshots.author(id).map(author ->
+                            new Author(author.id(), author.firstName(), author.lastName(), Set.of(), author.version()));
+            case AuthorRepository ignored -> snapshots.author(id);
+            case BookRepository ignored -> snapshots.book(id);
+            case LibraryRepository ignored -> snapshots.library(id);
+            default -> Optional.empty();
+        };
+    }
+
+    private static Section section(Object repository) {
+        return switch (repository) {
+            case AuthorRepository ignored -> Section.AUTHORS;
+            case BookRepository ignored -> Section.BOOKS;
+            default -> Section.LIBRARIES;
+        };
+    }
+}
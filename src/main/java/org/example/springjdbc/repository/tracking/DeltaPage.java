@@ -0,0 +1,69 @@
+package org.example.springjdbc.repository.tracking;
+
+import org.example.springjdbc.repository.declaration.Delta;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The ids of one findModifiedSince page, before the changed aggregates are loaded.
+ */
+public record DeltaPage(List<Long> changed, List<Long> deleted, Delta.Cursor next, boolean hasMore) {
+
+    /**
+     * Merges written and deleted ids, each selected after the cursor with limit + 1 rows, into
+     * the first limit modifications. A deletion sorts before a write of the same id at the same
+     * time, and the two are never split across pages, since the next cursor skips both.
+     */
+    public static DeltaPage of(List<Modification> written, List<Modification> tombstones,
+                               Delta.Cursor after, int limit) {
+        List<Long> changed = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        Modification last = null;
+        Delta.Cursor cursor = after;
+        int w = 0;
+        int t = 0;
+        while (w < written.size() || t < tombstones.size()) {
+            boolean tombstone = w == written.size()
+                    || (t < tombstones.size() && !tombstones.get(t).isAfter(written.get(w)));
+            Modification next = tombstone ? tombstones.get(t) : written.get(w);
+            if (changed.size() + deleted.size() >= limit && !next.equals(last)) {
+                return new DeltaPage(changed, deleted, cursor, true);
+            }
+            if (tombstone) {
+                deleted.add(next.id());
+                t++;
+            } else {
+                changed.add(next.id());
+                w++;
+            }
+            last = next;
+            cursor = new Delta.Cursor(next.modifiedAt(), next.id());
+        }
+        boolean hasMore = written.size() > limit || tombstones.size() > limit;
+        return new DeltaPage(changed, deleted, cursor, hasMore);
+    }
+
+    /**
+     * The loaded aggregates in the order of the changed ids. Ids deleted since they were selected
+     * are left out; their tombstones come in a later page.
+     */
+    public <T> Delta<T> toDelta(Collection<T> aggregates, Function<T, Long> id) {
+        Map<Long, T> byId = new HashMap<>();
+        for (T aggregate : aggregates) {
+            byId.put(id.apply(aggregate), aggregate);
+        }
+        List<T> ordered = new ArrayList<>(changed.size());
+        for (Long changedId : changed) {
+            T aggregate = byId.get(changedId);
+            if (aggregate != null) {
+                ordered.add(aggregate);
+            }
+        }
+        return new Delta<>(ordered, deleted, next, hasMore);
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.springjdbc.repository.tracking;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.Instant;
+
+/**
+ * An id and when it was last written or deleted, as selected by the *_MODIFIED_AFTER and
+ * FIND_TOMBSTONES_AFTER queries.
+ */
+public record Modification(long id, Instant modifiedAt) {
+
+    public static final RowMapper<Modification> MAPPER = (rs, rowNum) ->
+            new Modification(rs.getLong(1), rs.getTimestamp(2).toInstant());
+
+    boolean isAfter(Modification other) {
+        int byTime = modifiedAt.compareTo(other.modifiedAt);
+        return byTime > 0 || (byTime == 0 && id > other.id);
+    }
+}
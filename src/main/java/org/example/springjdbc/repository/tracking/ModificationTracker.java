@@ -0,0 +1,162 @@
+package org.example.springjdbc.repository.tracking;
+
+import org.example.springjdbc.repository.declaration.Delta;
+import org.example.springjdbc.repository.metrics.RepositoryMetrics;
+import org.example.springjdbc.repository.outbox.EntityType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.example.springjdbc.helper.Batches.chunk;
+import static org.example.springjdbc.helper.Batches.withInList;
+import static org.example.springjdbc.helper.QueryStatements.*;
+
+/**
+ * Keeps updated_at meaningful for aggregates and records deletes for findModifiedSince.
+ * <p>
+ * A row's own writes set updated_at through ON UPDATE CURRENT_TIMESTAMP(3). The write methods
+ * here touch the rows whose aggregate embeds a written row: the author and libraries of a book,
+ * and the books of an unlinked or renamed library. Deleted ids go to the tombstone table,
+ * including those removed by ON DELETE CASCADE. Everything runs in the caller's transaction.
+ * <p>
+ * Touches are extra writes: a book write also updates its author row and every library row listing
+ * it, and holds their row locks until the transaction commits. Concurrent book writes to one
+ * large library therefore queue on the library row.
+ * <p>
+ * updated_at and deleted_at are taken when the statement runs, not when it commits, so a
+ * transaction still open when a feed is read can commit rows behind the returned cursor.
+ * findModifiedSince therefore only returns rows older than repository.delta.margin by the database
+ * clock; the margin has to cover the longest write transaction, and replica lag for reads routed
+ * to a replica.
+ */
+@Component
+public class ModificationTracker {
+    private static final String REPOSITORY = "tracking";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RepositoryMetrics metrics;
+    private final int batchSize;
+    private final int inClauseSize;
+    private final Duration margin;
+
+    public ModificationTracker(JdbcTemplate jdbcTemplate,
+                               RepositoryMetrics metrics,
+                               @Value("${repository.batch-size:500}") int batchSize,
+                               @Value("${repository.in-clause-size:1000}") int inClauseSize,
+                               @Value("${repository.delta.margin:5s}") Duration margin) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.metrics = metrics;
+        this.batchSize = batchSize;
+        this.inClauseSize = inClauseSize;
+        this.margin = margin;
+    }
+
+    /**
+     * The TIMESTAMPADD offset, in microseconds, from the database clock to the newest
+     * modification the *_MODIFIED_AFTER queries may return.
+     */
+    public long horizonMicros() {
+        return -margin.toNanos() / 1000;
+    }
+
+    /**
+     * Up to limit tombstones of the entity after the cursor, oldest first.
+     */
+    public List<Modification> tombstonesAfter(EntityType entity, Delta.Cursor after, int limit) {
+        Timestamp at = Timestamp.from(after.modifiedAt());
+        return metrics.record(REPOSITORY, "tombstonesAfter", FIND_TOMBSTONES_AFTER, () -> jdbcTemplate.query(
+                FIND_TOMBSTONES_AFTER, Modification.MAPPER, entity.name(), at, at, after.id(), horizonMicros(), limit));
+    }
+
+    public void tombstone(EntityType entity, long id) {
+        metrics.record(REPOSITORY, "tombstone", INSERT_TOMBSTONE,
+                () -> jdbcTemplate.update(INSERT_TOMBSTONE, entity.name(), id));
+    }
+
+    public void tombstoneAll(EntityType entity, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        metrics.record(REPOSITORY, "tombstoneAll", INSERT_TOMBSTONE, () -> jdbcTemplate.batchUpdate(
+                INSERT_TOMBSTONE, ids, batchSize, (ps, id) -> {
+                    ps.setString(1, entity.name());
+                    ps.setLong(2, id);
+                }));
+    }
+
+    /**
+     * Has to run before the author is deleted, while its books still exist.
+     */
+    public void tombstoneBooksOfAuthor(long authorId) {
+        metrics.record(REPOSITORY, "tombstoneBooksOfAuthor", INSERT_TOMBSTONES_FOR_BOOKS_BY_AUTHOR_ID,
+                () -> jdbcTemplate.update(INSERT_TOMBSTONES_FOR_BOOKS_BY_AUTHOR_ID, authorId));
+    }
+
+    public void touchAuthors(Collection<Long> authorIds) {
+        touch("touchAuthors", TOUCH_AUTHORS, authorIds);
+    }
+
+    /**
+     * The current authors of the books; run it before a write that may move or delete them too.
+     */
+    public void touchAuthorsOfBooks(Collection<Long> bookIds) {
+        touch("touchAuthorsOfBooks", TOUCH_AUTHORS_BY_BOOK_IDS, bookIds);
+    }
+
+    public void touchBooks(long[] bookIds) {
+        touch("touchBooks", TOUCH_BOOKS, LongStream.of(bookIds).boxed().toList());
+    }
+
+    /**
+     * The books linked to the libraries; run it before the libraries are deleted.
+     */
+    public void touchBooksOfLibraries(Collection<Long> libraryIds) {
+        touch("touchBooksOfLibraries", TOUCH_BOOKS_BY_LIBRARY_IDS, libraryIds);
+    }
+
+    /**
+     * The books of each library whose name differs from the new one, since a book lists the names
+     * of its libraries; run it before the libraries are renamed.
+     */
+    public void touchBooksOfRenamedLibraries(Map<Long, String> newNames) {
+        if (newNames.isEmpty()) {
+            return;
+        }
+        metrics.record(REPOSITORY, "touchBooksOfRenamedLibraries", TOUCH_BOOKS_OF_RENAMED_LIBRARY,
+                () -> jdbcTemplate.batchUpdate(TOUCH_BOOKS_OF_RENAMED_LIBRARY, newNames.entrySet(), batchSize,
+                        (ps, rename) -> {
+                            ps.setLong(1, rename.getKey());
+                            ps.setString(2, rename.getValue());
+                        }));
+    }
+
+    public void touchLibrary(long libraryId) {
+        touch("touchLibrary", TOUCH_LIBRARIES, List.of(libraryId));
+    }
+
+    public void touchLibrariesOfBooks(Collection<Long> bookIds) {
+        touch("touchLibrariesOfBooks", TOUCH_LIBRARIES_BY_BOOK_IDS, bookIds);
+    }
+
+    /**
+     * The libraries listing any book of the author; run it before the author is deleted.
+     */
+    public void touchLibrariesOfAuthor(long authorId) {
+        metrics.record(REPOSITORY, "touchLibrariesOfAuthor", TOUCH_LIBRARIES_BY_AUTHOR_ID,
+                () -> jdbcTemplate.update(TOUCH_LIBRARIES_BY_AUTHOR_ID, authorId));
+    }
+
+    private void touch(String operation, String sqlTemplate, Collection<Long> ids) {
+        for (List<Long> batch : chunk(ids.stream().distinct().toList(), inClauseSize)) {
+            metrics.record(REPOSITORY, operation, sqlTemplate,
+                    () -> jdbcTemplate.update(withInList(sqlTemplate, batch.size()), batch.toArray()));
+        }
+    }
+}
@@ -2,15 +2,20 @@ package org.example.springjdbc;
 
 import org.example.springjdbc.model.Author;
 import org.example.springjdbc.repository.declaration.AuthorRepository;
+import org.example.springjdbc.repository.declaration.UpsertResult;
+import org.example.springjdbc.repository.declaration.VersionConflictException;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -19,6 +24,7 @@ import static org.junit.jupiter.api.Assertions.*;
  * production properties and static SQL scripts.
  */
 
+@ActiveProfiles(resolver = EmbeddedProfileResolver.class)
 @SpringBootTest
 public class AuthorRepositoryTest {
     private static final Logger LOGGER = LoggerFactory.getLogger(AuthorRepositoryTest.class);
@@ -110,6 +116,21 @@ public class AuthorRepositoryTest {
         ));
     }
 
+    @SqlSetupAuthorBook
+    @DisplayName("TEST findAllWithAssociations - Should load requested Authors with Books, skipping unknown ids")
+    @Test
+    void testFindAllWithAssociations() {
+        var result = authorRepository.findAllWithAssociations(List.of(1L, 3L, 999L));
+
+        assertEquals(2, result.size());
+        var john = result.stream().filter(author -> author.id() == 1L).findFirst().orElseThrow();
+        assertEquals("Doe", john.lastName());
+        assertEquals(2, john.books().size());
+        var emily = result.stream().filter(author -> author.id() == 3L).findFirst().orElseThrow();
+        assertEquals(1, emily.books().size());
+        assertTrue(emily.books().stream().anyMatch(book -> book.id() == 4L && "Emily's Adventures".equals(book.title())));
+    }
+
     @DisplayName("TEST findAll - Should return empty Set")
     @Test
     void testFindAllEmpty() {
@@ -117,6 +138,45 @@ public class AuthorRepositoryTest {
         assertTrue(result.isEmpty());
     }
 
+    @SqlSetupAuthorBook
+    @DisplayName("TEST streamAll - Should stream every Author once with all its Books")
+    @Test
+    void testStreamAll() {
+        List<Author> result;
+        try (Stream<Author> authors = authorRepository.streamAll()) {
+            result = authors.toList();
+        }
+
+        assertEquals(List.of(1L, 2L, 3L), result.stream().map(Author::id).toList());
+        assertEquals(2, result.get(0).books().size());
+        assertEquals(1, result.get(1).books().size());
+        assertEquals(1, result.get(2).books().size());
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST findPage - Should page Authors by id without splitting their Books")
+    @Test
+    void testFindPage() {
+        var firstPage = authorRepository.findPage(0L, 2);
+        assertEquals(List.of(1L, 2L), firstPage.stream().map(Author::id).toList());
+        assertEquals(2, firstPage.get(0).books().size());
+        assertEquals(1, firstPage.get(1).books().size());
+
+        var secondPage = authorRepository.findPage(2L, 2);
+        assertEquals(List.of(3L), secondPage.stream().map(Author::id).toList());
+
+        assertTrue(authorRepository.findPage(3L, 2).isEmpty());
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST existsById/count - Should probe and count Authors without loading them")
+    @Test
+    void testExistsByIdAndCount() {
+        assertTrue(authorRepository.existsById(1L));
+        assertFalse(authorRepository.existsById(999L));
+        assertEquals(3, authorRepository.count());
+    }
+
     @SqlSetupAuthorBook
     @DisplayName("TEST create - Should create and return Author")
     @Test
@@ -131,6 +191,26 @@ public class AuthorRepositoryTest {
         assertTrue(createdAuthor.books().isEmpty());
     }
 
+    @SqlSetupAuthorBook
+    @DisplayName("TEST createAll - Should create Authors and return ids in input order")
+    @Test
+    void testCreateAll() {
+        var newAuthors = List.of(
+                new Author(null, "Alice", "Walker", Set.of()),
+                new Author(null, "Toni", "Morrison", Set.of()),
+                new Author(null, "Zadie", "Smith", Set.of())
+        );
+        var ids = authorRepository.createAll(newAuthors);
+
+        assertEquals(3, ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            var created = authorRepository.findByIdWithoutAssociations(ids.get(i));
+            assertTrue(created.isPresent());
+            assertEquals(newAuthors.get(i).firstName(), created.get().firstName());
+            assertEquals(newAuthors.get(i).lastName(), created.get().lastName());
+        }
+    }
+
     @DisplayName("TEST create - Should fail for missing fields")
     @Test
     void testCreateWithMissingFields() {
@@ -139,6 +219,48 @@ public class AuthorRepositoryTest {
         assertThrows(Exception.class, () -> authorRepository.create(incompleteAuthor));
     }
 
+    @SqlSetupAuthorBook
+    @DisplayName("TEST upsertAll - Should insert new ids, update existing ones and count both")
+    @Test
+    void testUpsertAll() {
+        var result = authorRepository.upsertAll(List.of(
+                new Author(1L, "Johnny", "Doe", Set.of()),
+                new Author(10L, "New", "Author", Set.of()),
+                new Author(10L, "Newer", "Author", Set.of())
+        ));
+
+        assertEquals(new UpsertResult(1, 1), result);
+        assertEquals("Johnny", authorRepository.findByIdWithoutAssociations(1L).orElseThrow().firstName());
+        assertEquals("Newer", authorRepository.findByIdWithoutAssociations(10L).orElseThrow().firstName());
+        assertEquals(4, authorRepository.count());
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST upsert - Should reject an Author without id")
+    @Test
+    void testUpsertWithoutId() {
+        assertThrows(IllegalArgumentException.class, () ->
+                authorRepository.upsert(new Author(null, "No", "Id", Set.of())));
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST update - Should bump the version and reject an update carrying a stale one")
+    @Test
+    void testUpdateWithVersion() {
+        Author loaded = authorRepository.findByIdWithoutAssociations(1L).orElseThrow();
+        assertEquals(0L, loaded.version());
+
+        Author updated = authorRepository.update(1L,
+                new Author(1L, "Johnny", "Doe", Set.of(), loaded.version()));
+        assertEquals(1L, updated.version());
+        assertEquals(1L, authorRepository.findByIdWithoutAssociations(1L).orElseThrow().version());
+
+        var conflict = assertThrows(VersionConflictException.class, () -> authorRepository.update(1L,
+                new Author(1L, "Stale", "Write", Set.of(), loaded.version())));
+        assertEquals(0L, conflict.getExpectedVersion());
+        assertEquals("Johnny", authorRepository.findByIdWithoutAssociations(1L).orElseThrow().firstName());
+    }
+
     @SqlSetupAuthorBook
     @DisplayName("TEST update - Should update and return Author")
     @Test
@@ -1,7 +1,10 @@
 package org.example.springjdbc;
 
 import org.example.springjdbc.model.Book;
+import org.example.springjdbc.model.BookSummary;
 import org.example.springjdbc.repository.declaration.BookRepository;
+import org.example.springjdbc.repository.declaration.UpsertResult;
+import org.example.springjdbc.repository.declaration.VersionConflictException;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
@@ -13,8 +16,11 @@ import org.springframework.test.context.jdbc.Sql;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -22,7 +28,7 @@ import static org.junit.jupiter.api.Assertions.*;
  * This class tests the BookRepository class using testcontainers
  */
 
-@ActiveProfiles("test")
+@ActiveProfiles(value = "test", resolver = EmbeddedProfileResolver.class)
 @Sql(
         scripts = {
                 "classpath:/schema/drop-schema.sql",
@@ -110,6 +116,22 @@ public class BookRepositoryTest {
         ));
     }
 
+    @SqlSetupAuthorBook
+    @DisplayName("TEST findAllWithAssociations - Should load requested Books with their Libraries")
+    @Test
+    void testFindAllWithAssociations() {
+        var result = bookRepository.findAllWithAssociations(List.of(1L, 2L, 4L, 999L));
+
+        assertEquals(3, result.size());
+        var bookTwo = result.stream().filter(book -> book.id() == 2L).findFirst().orElseThrow();
+        assertEquals("Book Two by John", bookTwo.title());
+        assertEquals(Set.of(1L, 2L), bookTwo.libraries().stream().map(library -> library.id()).collect(Collectors.toSet()));
+        var bookOne = result.stream().filter(book -> book.id() == 1L).findFirst().orElseThrow();
+        assertEquals("Central Library", bookOne.libraries().iterator().next().name());
+        var bookFour = result.stream().filter(book -> book.id() == 4L).findFirst().orElseThrow();
+        assertTrue(bookFour.libraries().isEmpty());
+    }
+
     @DisplayName("TEST findAll - Should return empty Set")
     @Test
     void testFindAllEmpty() {
@@ -117,6 +139,52 @@ public class BookRepositoryTest {
         assertTrue(result.isEmpty());
     }
 
+    @SqlSetupAuthorBook
+    @DisplayName("TEST streamAll - Should stream all Books")
+    @Test
+    void testStreamAll() {
+        Set<Long> ids;
+        try (Stream<Book> books = bookRepository.streamAll()) {
+            ids = books.map(Book::id).collect(Collectors.toSet());
+        }
+
+        assertEquals(Set.of(1L, 2L, 3L, 4L), ids);
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST findPage - Should return Books after the given id in id order")
+    @Test
+    void testFindPage() {
+        var page = bookRepository.findPage(1L, 2);
+
+        assertEquals(List.of(2L, 3L), page.stream().map(Book::id).toList());
+        assertEquals("Book Two by John", page.get(0).title());
+        assertTrue(bookRepository.findPage(4L, 2).isEmpty());
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST findSummaryPage - Should return id and title of Books after the given id")
+    @Test
+    void testFindSummaryPage() {
+        var page = bookRepository.findSummaryPage(2L, 10);
+
+        assertEquals(List.of(
+                new BookSummary(3L, "Jane's Journey"),
+                new BookSummary(4L, "Emily's Adventures")
+        ), page);
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST existsById/count - Should probe and count Books without loading them")
+    @Test
+    void testExistsByIdAndCount() {
+        assertTrue(bookRepository.existsById(4L));
+        assertFalse(bookRepository.existsById(999L));
+        assertEquals(4, bookRepository.count());
+        assertEquals(2, bookRepository.countBooksByAuthor(1L));
+        assertEquals(0, bookRepository.countBooksByAuthor(999L));
+    }
+
     @SqlSetupAuthorBook
     @DisplayName("TEST create - Should create and return Book")
     @Test
@@ -131,6 +199,27 @@ public class BookRepositoryTest {
         assertEquals(LocalDate.of(2023, 10, 10), createdBook.releaseDate());
     }
 
+    @SqlSetupAuthorBook
+    @DisplayName("TEST createAll - Should create Books and return ids in input order")
+    @Test
+    void testCreateAll() {
+        var newBooks = List.of(
+                new Book(null, 1L, "First Batch Book", LocalDate.of(2024, 1, 1), Set.of()),
+                new Book(null, 2L, "Second Batch Book", null, Set.of()),
+                new Book(null, 3L, "Third Batch Book", LocalDate.of(2024, 3, 3), Set.of())
+        );
+        var ids = bookRepository.createAll(newBooks);
+
+        assertEquals(3, ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            var created = bookRepository.findByIdWithAssociations(ids.get(i));
+            assertTrue(created.isPresent());
+            assertEquals(newBooks.get(i).authorId(), created.get().authorId());
+            assertEquals(newBooks.get(i).title(), created.get().title());
+            assertEquals(newBooks.get(i).releaseDate(), created.get().releaseDate());
+        }
+    }
+
     @DisplayName("TEST create - Should fail for missing fields")
     @Test
     void testCreateWithMissingFields() {
@@ -139,6 +228,36 @@ public class BookRepositoryTest {
         assertThrows(Exception.class, () -> bookRepository.create(incompleteBook));
     }
 
+    @SqlSetupAuthorBook
+    @DisplayName("TEST upsertAll - Should insert new ids, update existing ones and count both")
+    @Test
+    void testUpsertAll() {
+        var result = bookRepository.upsertAll(List.of(
+                new Book(1L, 2L, "Book One, revised", LocalDate.of(2024, 1, 1), Set.of()),
+                new Book(20L, 3L, "Brand New", null, Set.of())
+        ));
+
+        assertEquals(new UpsertResult(1, 1), result);
+        var revised = bookRepository.findByIdWithAssociations(1L).orElseThrow();
+        assertEquals("Book One, revised", revised.title());
+        assertEquals(2L, revised.authorId());
+        assertEquals("Brand New", bookRepository.findByIdWithAssociations(20L).orElseThrow().title());
+        assertEquals(new UpsertResult(0, 1), bookRepository.upsert(
+                new Book(20L, 3L, "Brand New", null, Set.of())));
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST update - Should bump the version and reject an update carrying a stale one")
+    @Test
+    void testUpdateWithVersion() {
+        Book loaded = bookRepository.findByIdWithAssociations(2L).orElseThrow();
+        Book changed = new Book(2L, 1L, "Book Two, 2nd ed.", loaded.releaseDate(), Set.of(), loaded.version());
+
+        assertEquals(loaded.version() + 1, bookRepository.update(2L, changed).version());
+        assertThrows(VersionConflictException.class, () -> bookRepository.update(2L, changed));
+        assertEquals("Book Two, 2nd ed.", bookRepository.findByIdWithAssociations(2L).orElseThrow().title());
+    }
+
     @SqlSetupAuthorBook
     @DisplayName("TEST update - Should update and return Book")
     @Test
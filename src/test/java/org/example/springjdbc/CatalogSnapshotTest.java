@@ -0,0 +1,179 @@
+package org.example.springjdbc;
+
+import org.example.springjdbc.model.Author;
+import org.example.springjdbc.model.Book;
+import org.example.springjdbc.model.Library;
+import org.example.springjdbc.repository.cache.RepositoryCaches;
+import org.example.springjdbc.repository.declaration.AuthorRepository;
+import org.example.springjdbc.repository.declaration.BookRepository;
+import org.example.springjdbc.repository.declaration.LibraryRepository;
+import org.example.springjdbc.repository.snapshot.CatalogSnapshot;
+import org.example.springjdbc.repository.snapshot.CatalogSnapshotRefresher;
+import org.example.springjdbc.repository.snapshot.CatalogSnapshotStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the cold-start snapshot: a refresh pass writes what the repositories read, reads are
+ * served from the mapped file until the pass has re-read the database, and writes stop serving
+ * the entries they touch. The caches are enabled too, so reads the snapshot served must not outlive
+ * it there.
+ */
+@ActiveProfiles(value = "test", resolver = EmbeddedProfileResolver.class)
+@Sql(
+        scripts = {
+                "classpath:/schema/drop-schema.sql",
+                "classpath:/schema/create-schema.sql"
+        }
+)
+@Testcontainers
+@SpringBootTest(properties = {
+        "repository.snapshot.enabled=true",
+        "repository.snapshot.refresh-on-startup=false",
+        "repository.cache.enabled=true"
+})
+public class CatalogSnapshotTest {
+    private static final Path SNAPSHOT = snapshotPath();
+
+    private final AuthorRepository authorRepository;
+    private final BookRepository bookRepository;
+    private final LibraryRepository libraryRepository;
+    private final CatalogSnapshotStore snapshotStore;
+    private final CatalogSnapshotRefresher snapshotRefresher;
+    private final RepositoryCaches repositoryCaches;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public CatalogSnapshotTest(AuthorRepository authorRepository,
+                               BookRepository bookRepository,
+                               LibraryRepository libraryRepository,
+                               CatalogSnapshotStore snapshotStore,
+                               CatalogSnapshotRefresher snapshotRefresher,
+                               RepositoryCaches repositoryCaches,
+                               JdbcTemplate jdbcTemplate) {
+        this.authorRepository = authorRepository;
+        this.bookRepository = bookRepository;
+        this.libraryRepository = libraryRepository;
+        this.snapshotStore = snapshotStore;
+        this.snapshotRefresher = snapshotRefresher;
+        this.repositoryCaches = repositoryCaches;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @DynamicPropertySource
+    static void snapshotProperties(DynamicPropertyRegistry registry) {
+        registry.add("repository.snapshot.path", SNAPSHOT::toString);
+    }
+
+    private static Path snapshotPath() {
+        try {
+            return Files.createTempDirectory("catalog-snapshot").resolve("catalog.snapshot");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(SNAPSHOT);
+        snapshotStore.load();
+        repositoryCaches.invalidateAll();
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST refresh - Should write the aggregates exactly as the repositories read them")
+    @Test
+    void testRefreshWritesSnapshot() throws IOException {
+        snapshotRefresher.refresh();
+
+        assertFalse(snapshotStore.serving());
+        CatalogSnapshot snapshot = CatalogSnapshot.open(SNAPSHOT);
+        for (long id = 1; id <= 3; id++) {
+            assertEquals(authorRepository.findByIdWithAssociations(id), snapshot.author(id));
+        }
+        for (long id = 1; id <= 4; id++) {
+            assertEquals(bookRepository.findByIdWithAssociations(id), snapshot.book(id));
+        }
+        for (long id = 1; id <= 2; id++) {
+            assertEquals(libraryRepository.findById(id), snapshot.library(id));
+        }
+        assertTrue(snapshot.author(99L).isEmpty());
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST refresh - A failing read should keep the previous snapshot")
+    @Test
+    void testFailedRefreshKeepsSnapshot() throws IOException {
+        snapshotRefresher.refresh();
+        byte[] previous = Files.readAllBytes(SNAPSHOT);
+
+        jdbcTemplate.execute("ALTER TABLE library ALTER COLUMN name RENAME TO gone");
+        try {
+            jdbcTemplate.update("UPDATE author SET first_name = 'Johnny' WHERE id = 1");
+            snapshotRefresher.refresh();
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE library ALTER COLUMN gone RENAME TO name");
+        }
+
+        assertArrayEquals(previous, Files.readAllBytes(SNAPSHOT));
+        assertFalse(Files.exists(SNAPSHOT.resolveSibling(SNAPSHOT.getFileName() + ".tmp")));
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST findById - Should serve the snapshot until the refresh pass re-reads the database")
+    @Test
+    void testServesSnapshotUntilRefreshed() {
+        snapshotRefresher.refresh();
+        assertTrue(snapshotStore.load());
+
+        jdbcTemplate.update("UPDATE library SET name = 'Renamed Elsewhere' WHERE id = 1");
+        jdbcTemplate.update("UPDATE author SET first_name = 'Johnny' WHERE id = 1");
+
+        assertEquals("Central Library", libraryRepository.findById(1L).orElseThrow().name());
+        assertEquals("John", authorRepository.findByIdWithoutAssociations(1L).orElseThrow().firstName());
+        assertTrue(authorRepository.findByIdWithoutAssociations(1L).orElseThrow().books().isEmpty());
+
+        snapshotRefresher.refresh();
+
+        assertFalse(snapshotStore.serving());
+        assertEquals("Renamed Elsewhere", libraryRepository.findById(1L).orElseThrow().name());
+        assertEquals("Johnny", authorRepository.findByIdWithoutAssociations(1L).orElseThrow().firstName());
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST update - Should stop serving the entries a write touches and the aggregates embedding them")
+    @Test
+    void testWriteInvalidatesEmbeddingAggregates() {
+        snapshotRefresher.refresh();
+        assertTrue(snapshotStore.load());
+
+        bookRepository.update(2L, new Book(2L, 1L, "Renamed Book", LocalDate.of(2023, 3, 10), Set.of()));
+
+        assertEquals("Renamed Book", bookRepository.findByIdWithAssociations(2L).orElseThrow().title());
+        Author author = authorRepository.findByIdWithAssociations(1L).orElseThrow();
+        assertTrue(author.books().stream().anyMatch(book -> book.title().equals("Renamed Book")));
+        for (long libraryId = 1; libraryId <= 2; libraryId++) {
+            Library library = libraryRepository.findById(libraryId).orElseThrow();
+            assertTrue(library.books().stream().anyMatch(book -> book.title().equals("Renamed Book")));
+        }
+        assertTrue(snapshotStore.serving());
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.springjdbc;
+
+import org.springframework.test.context.support.DefaultActiveProfilesResolver;
+
+import java.util.Arrays;
+
+/**
+ * Appends the embedded profile to the profiles a test declares when the build runs with
+ * -Pembedded, so application-embedded.yaml overrides the Testcontainers datasource.
+ */
+public class EmbeddedProfileResolver extends DefaultActiveProfilesResolver {
+    static final String PROFILE = "embedded";
+
+    @Override
+    public String[] resolve(Class<?> testClass) {
+        String[] profiles = super.resolve(testClass);
+        if (!Boolean.getBoolean("test.embedded")) {
+            return profiles;
+        }
+        String[] withEmbedded = Arrays.copyOf(profiles, profiles.length + 1);
+        withEmbedded[profiles.length] = PROFILE;
+        return withEmbedded;
+    }
+}
@@ -3,7 +3,11 @@ package org.example.springjdbc;
 import org.example.springjdbc.model.Book;
 import org.example.springjdbc.model.Library;
 import org.example.springjdbc.model.LibraryInfo;
+import org.example.springjdbc.model.LibrarySummary;
+import org.example.springjdbc.repository.declaration.FetchStrategy;
 import org.example.springjdbc.repository.declaration.LibraryRepository;
+import org.example.springjdbc.repository.declaration.UpsertResult;
+import org.example.springjdbc.repository.declaration.VersionConflictException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -17,15 +21,18 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.jdbc.Sql;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * Tests the LibraryRepository class with real SQL data loading.
  */
-@ActiveProfiles("test")
+@ActiveProfiles(value = "test", resolver = EmbeddedProfileResolver.class)
 @Sql(
         scripts = {
                 "classpath:/schema/drop-schema.sql",
@@ -67,7 +74,6 @@ public class LibraryRepositoryTest {
         jdbcTemplate.update("ALTER TABLE author AUTO_INCREMENT = 1");
         jdbcTemplate.update("ALTER TABLE book AUTO_INCREMENT = 1");
         jdbcTemplate.update("ALTER TABLE library AUTO_INCREMENT = 1");
-        jdbcTemplate.update("ALTER TABLE library_info AUTO_INCREMENT = 1");
     }
 
     private void seedDatabase() {
@@ -119,6 +125,39 @@ public class LibraryRepositoryTest {
         assertTrue(result.isEmpty());
     }
 
+    @DisplayName("TEST findById MULTI_QUERY - Should return the same aggregate as the join strategy")
+    @Test
+    void testFindByIdMultiQuery() {
+        Library joined = libraryRepository.findById(1L, FetchStrategy.JOIN).orElseThrow();
+        Library separate = libraryRepository.findById(1L, FetchStrategy.MULTI_QUERY).orElseThrow();
+
+        assertEquals(joined, separate);
+        assertEquals(2, separate.books().size());
+        assertEquals("555-1234", separate.libraryInfo().phone());
+
+        assertTrue(libraryRepository.findById(999L, FetchStrategy.MULTI_QUERY).isEmpty());
+    }
+
+    @DisplayName("TEST findAllById - Should load every existing id in request order")
+    @Test
+    void testFindAllById() {
+        List<Library> libraries = libraryRepository.findAllById(List.of(2L, 999L, 1L, 2L));
+
+        assertEquals(2, libraries.size());
+        assertEquals(2L, libraries.get(0).id());
+        assertEquals(1L, libraries.get(1).id());
+        assertEquals(libraryRepository.findById(1L).orElseThrow(), libraries.get(1));
+    }
+
+    @DisplayName("TEST findByIdAsync - Should complete with the same aggregate as findById")
+    @Test
+    void testFindByIdAsync() {
+        Optional<Library> library = libraryRepository.findByIdAsync(1L).join();
+
+        assertEquals(libraryRepository.findById(1L), library);
+        assertTrue(libraryRepository.findByIdAsync(999L).join().isEmpty());
+    }
+
     @DisplayName("TEST findAll - Should return all libraries with their books")
     @Test
     void testFindAll() {
@@ -147,6 +186,13 @@ public class LibraryRepositoryTest {
         assertEquals(2, community.books().size());
     }
 
+    @DisplayName("TEST findAll - Should return libraries with unmodifiable book sets")
+    @Test
+    void testFindAllFreezesBooks() {
+        var library = libraryRepository.findAll().iterator().next();
+        assertThrows(UnsupportedOperationException.class, () -> library.books().clear());
+    }
+
     @DisplayName("TEST findAll - Should return empty set if no libraries exist")
     @Test
     void testFindAllEmpty() {
@@ -155,6 +201,60 @@ public class LibraryRepositoryTest {
         assertTrue(libraries.isEmpty());
     }
 
+    @DisplayName("TEST streamAll - Should stream each library once with all its books")
+    @Test
+    void testStreamAll() {
+        List<Library> libraries;
+        try (Stream<Library> stream = libraryRepository.streamAll()) {
+            libraries = stream.toList();
+        }
+
+        assertEquals(2, libraries.size());
+        assertEquals(1L, libraries.get(0).id());
+        assertEquals("Central Library", libraries.get(0).name());
+        assertEquals("123 Main St, Springfield", libraries.get(0).libraryInfo().address());
+        assertEquals(2, libraries.get(0).books().size());
+        assertEquals(2L, libraries.get(1).id());
+        assertEquals(2, libraries.get(1).books().size());
+    }
+
+    @DisplayName("TEST findPage - Should limit pages by library, not by joined book rows")
+    @Test
+    void testFindPage() {
+        var firstPage = libraryRepository.findPage(0L, 1);
+        assertEquals(1, firstPage.size());
+        assertEquals(1L, firstPage.getFirst().id());
+        assertEquals(2, firstPage.getFirst().books().size());
+
+        var secondPage = libraryRepository.findPage(1L, 10);
+        assertEquals(1, secondPage.size());
+        assertEquals(2L, secondPage.getFirst().id());
+        assertEquals("456 Elm St, Springfield", secondPage.getFirst().libraryInfo().address());
+    }
+
+    @DisplayName("TEST findSummaryPage - Should count books per library, including libraries without books")
+    @Test
+    void testFindSummaryPage() {
+        jdbcTemplate.update("INSERT INTO library (id, name) VALUES (3, 'Empty Library')");
+
+        assertEquals(List.of(
+                new LibrarySummary(1L, "Central Library", 2),
+                new LibrarySummary(2L, "Community Library", 2),
+                new LibrarySummary(3L, "Empty Library", 0)
+        ), libraryRepository.findSummaryPage(0L, 10));
+        assertEquals(List.of(new LibrarySummary(3L, "Empty Library", 0)), libraryRepository.findSummaryPage(2L, 10));
+    }
+
+    @DisplayName("TEST existsById/count - Should probe and count libraries and their books without loading them")
+    @Test
+    void testExistsByIdAndCount() {
+        assertTrue(libraryRepository.existsById(2L));
+        assertFalse(libraryRepository.existsById(999L));
+        assertEquals(2, libraryRepository.count());
+        assertEquals(2, libraryRepository.countBooks(1L));
+        assertEquals(0, libraryRepository.countBooks(999L));
+    }
+
     @DisplayName("TEST create - Should return newly inserted library ID")
     @Test
     void testCreate() {
@@ -180,6 +280,45 @@ public class LibraryRepositoryTest {
         assertTrue(created.books().isEmpty());
     }
 
+    @DisplayName("TEST createAll - Should insert libraries with info and return ids in input order")
+    @Test
+    void testCreateAll() {
+        var newLibs = List.of(
+                new Library(null, "North Library", new LibraryInfo(null, "1 North St", "555-0001"), Set.of()),
+                new Library(null, "South Library", new LibraryInfo(null, "2 South St", null), Set.of())
+        );
+
+        var ids = libraryRepository.createAll(newLibs);
+        assertEquals(2, ids.size());
+
+        for (int i = 0; i < ids.size(); i++) {
+            Library created = libraryRepository.findById(ids.get(i)).orElseThrow();
+            assertEquals(newLibs.get(i).name(), created.name());
+            assertNotNull(created.libraryInfo());
+            assertEquals(newLibs.get(i).libraryInfo().address(), created.libraryInfo().address());
+            assertEquals(newLibs.get(i).libraryInfo().phone(), created.libraryInfo().phone());
+            assertTrue(created.books().isEmpty());
+        }
+    }
+
+    @DisplayName("TEST createAll - Should link each library's books and skip missing ones")
+    @Test
+    void testCreateAllLinksBooks() {
+        var newLibs = List.of(
+                new Library(null, "North Library", new LibraryInfo(null, "1 North St", "555-0001"),
+                        Set.of(bookWithId(1L), bookWithId(3L))),
+                new Library(null, "South Library", new LibraryInfo(null, "2 South St", null),
+                        Set.of(bookWithId(3L), bookWithId(999L))),
+                new Library(null, "East Library", new LibraryInfo(null, "3 East St", null), Set.of())
+        );
+
+        var ids = libraryRepository.createAll(newLibs);
+
+        assertEquals(Set.of(1L, 3L), bookIds(libraryRepository.findById(ids.get(0)).orElseThrow()));
+        assertEquals(Set.of(3L), bookIds(libraryRepository.findById(ids.get(1)).orElseThrow()));
+        assertTrue(libraryRepository.findById(ids.get(2)).orElseThrow().books().isEmpty());
+    }
+
     @DisplayName("TEST update - Should update library name, address, phone")
     @Test
     void testUpdate() {
@@ -202,6 +341,37 @@ public class LibraryRepositoryTest {
         assertEquals("555-0000", libAfterUpdate.libraryInfo().phone());
     }
 
+    @DisplayName("TEST update - Should reject a stale version without touching library or info")
+    @Test
+    void testUpdateWithStaleVersion() {
+        Library loaded = libraryRepository.findById(1L).orElseThrow();
+        assertEquals(0L, loaded.version());
+
+        libraryRepository.update(1L, new Library(1L, "First Writer",
+                new LibraryInfo(1L, "1 First St", null), Set.of(), loaded.version()));
+        assertThrows(VersionConflictException.class, () -> libraryRepository.update(1L, new Library(1L,
+                "Second Writer", new LibraryInfo(1L, "2 Second St", null), Set.of(), loaded.version())));
+
+        Library current = libraryRepository.findById(1L).orElseThrow();
+        assertEquals("First Writer", current.name());
+        assertEquals("1 First St", current.libraryInfo().address());
+        assertEquals(1L, current.version());
+    }
+
+    @DisplayName("TEST updateAll - Should roll back the whole batch on one stale version")
+    @Test
+    void testUpdateAllWithStaleVersion() {
+        var updatedLibs = List.of(
+                new Library(1L, "Central Updated", new LibraryInfo(1L, "1 New St", null), Set.of(), 0L),
+                new Library(2L, "Community Updated", new LibraryInfo(2L, "2 New St", null), Set.of(), 7L)
+        );
+
+        assertThrows(VersionConflictException.class, () -> libraryRepository.updateAll(updatedLibs));
+
+        assertEquals("Central Library", libraryRepository.findById(1L).orElseThrow().name());
+        assertEquals("123 Main St, Springfield", libraryRepository.findById(1L).orElseThrow().libraryInfo().address());
+    }
+
     @DisplayName("TEST update - Non-existing library should not throw exception but not update anything")
     @Test
     void testUpdateNotFound() {
@@ -218,6 +388,26 @@ public class LibraryRepositoryTest {
         assertTrue(result.isEmpty());
     }
 
+    @DisplayName("TEST upsertAll - Should write library and info together and count inserts and updates")
+    @Test
+    void testUpsertAll() {
+        var result = libraryRepository.upsertAll(List.of(
+                new Library(1L, "Central Upserted", new LibraryInfo(1L, "1 Upsert St", "555-1010"), Set.of()),
+                new Library(5L, "Fifth Library", new LibraryInfo(5L, "5 Fifth Ave", null), Set.of())
+        ));
+
+        assertEquals(new UpsertResult(1, 1), result);
+
+        Library central = libraryRepository.findById(1L).orElseThrow();
+        assertEquals("Central Upserted", central.name());
+        assertEquals("1 Upsert St", central.libraryInfo().address());
+        assertEquals(Set.of(1L, 2L), bookIds(central));
+
+        Library fifth = libraryRepository.findById(5L).orElseThrow();
+        assertEquals("Fifth Library", fifth.name());
+        assertEquals("5 Fifth Ave", fifth.libraryInfo().address());
+    }
+
     @DisplayName("TEST delete - Should delete library (and library_info) and return true")
     @Test
     void testDelete() {
@@ -234,4 +424,98 @@ public class LibraryRepositoryTest {
         boolean deleted = libraryRepository.delete(999L);
         assertFalse(deleted);
     }
+
+    @DisplayName("TEST create - Should link the books of the library")
+    @Test
+    void testCreateLinksBooks() {
+        Set<Book> books = Set.of(
+                new Book(3L, null, null, null, Set.of()),
+                new Book(4L, null, null, null, Set.of())
+        );
+        long newId = libraryRepository.create(
+                new Library(null, "Linked Library", new LibraryInfo(null, "3 Link St", "555-3333"), books));
+
+        Library created = libraryRepository.findById(newId).orElseThrow();
+        assertEquals(Set.of(3L, 4L), bookIds(created));
+    }
+
+    @DisplayName("TEST create - Should roll back the library if its info can't be inserted")
+    @Test
+    void testCreateRollsBack() {
+        Library newLib = new Library(null, "Broken Library", new LibraryInfo(null, null, null), Set.of());
+
+        assertThrows(RuntimeException.class, () -> libraryRepository.create(newLib));
+
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM library", Integer.class));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM library_info", Integer.class));
+    }
+
+    @DisplayName("TEST updateAll - Should update every library and return the updated count")
+    @Test
+    void testUpdateAll() {
+        var updatedLibs = List.of(
+                new Library(1L, "Central Updated", new LibraryInfo(1L, "1 New St", "555-1111"), Set.of()),
+                new Library(2L, "Community Updated", new LibraryInfo(2L, "2 New St", "555-2222"), Set.of()),
+                new Library(999L, "Ghost Library", new LibraryInfo(999L, "NoWhere St", null), Set.of())
+        );
+
+        assertEquals(2, libraryRepository.updateAll(updatedLibs));
+
+        Library central = libraryRepository.findById(1L).orElseThrow();
+        assertEquals("Central Updated", central.name());
+        assertEquals("1 New St", central.libraryInfo().address());
+        assertEquals(Set.of(1L, 2L), bookIds(central));
+
+        Library community = libraryRepository.findById(2L).orElseThrow();
+        assertEquals("Community Updated", community.name());
+        assertEquals("555-2222", community.libraryInfo().phone());
+    }
+
+    @DisplayName("TEST deleteAll - Should delete libraries with their info and links")
+    @Test
+    void testDeleteAll() {
+        assertEquals(2, libraryRepository.deleteAll(List.of(1L, 2L, 999L)));
+
+        assertTrue(libraryRepository.findAll().isEmpty());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM library_info", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM library_book", Integer.class));
+    }
+
+    @DisplayName("TEST addBooks/removeBooks - Should link and unlink books in bulk and count the changes")
+    @Test
+    void testAddAndRemoveBooks() {
+        assertEquals(2, libraryRepository.addBooks(2L, new long[]{1L, 2L, 4L, 4L}));
+        assertEquals(Set.of(1L, 2L, 3L, 4L), bookIds(libraryRepository.findById(2L).orElseThrow()));
+
+        assertEquals(2, libraryRepository.removeBooks(2L, new long[]{2L, 3L, 999L}));
+        assertEquals(Set.of(1L, 4L), bookIds(libraryRepository.findById(2L).orElseThrow()));
+    }
+
+    @DisplayName("TEST addBooks - Should skip books and libraries that don't exist")
+    @Test
+    void testAddBooksSkipsMissing() {
+        assertEquals(1, libraryRepository.addBooks(2L, new long[]{4L, 999L}));
+        assertEquals(0, libraryRepository.addBooks(999L, new long[]{1L}));
+
+        assertEquals(Set.of(2L, 3L, 4L), bookIds(libraryRepository.findById(2L).orElseThrow()));
+    }
+
+    @DisplayName("TEST replaceBooks - Should only touch the links that differ")
+    @Test
+    void testReplaceBooks() {
+        assertEquals(3, libraryRepository.replaceBooks(1L, new long[]{4L, 2L, 3L, 3L}));
+        assertEquals(Set.of(2L, 3L, 4L), bookIds(libraryRepository.findById(1L).orElseThrow()));
+
+        assertEquals(0, libraryRepository.replaceBooks(1L, new long[]{2L, 3L, 4L}));
+        assertEquals(3, libraryRepository.replaceBooks(1L, new long[0]));
+        assertTrue(libraryRepository.findById(1L).orElseThrow().books().isEmpty());
+    }
+
+    private static Book bookWithId(long id) {
+        return new Book(id, null, null, null, Set.of());
+    }
+
+    private static Set<Long> bookIds(Library library) {
+        return library.books().stream().map(Book::id).collect(Collectors.toSet());
+    }
 }
@@ -0,0 +1,232 @@
+package org.example.springjdbc;
+
+import org.example.springjdbc.model.Author;
+import org.example.springjdbc.model.Book;
+import org.example.springjdbc.model.Library;
+import org.example.springjdbc.model.LibraryInfo;
+import org.example.springjdbc.repository.declaration.AuthorRepository;
+import org.example.springjdbc.repository.declaration.BookRepository;
+import org.example.springjdbc.repository.declaration.Delta;
+import org.example.springjdbc.repository.declaration.LibraryRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests findModifiedSince: each feed starts from a cursor taken after the seed data, so only the
+ * test's own writes, and the aggregates they reach, show up. Reads wait out repository.delta.margin
+ * after the writes they expect.
+ */
+@ActiveProfiles(value = "test", resolver = EmbeddedProfileResolver.class)
+@Sql(
+        scripts = {
+                "classpath:/schema/drop-schema.sql",
+                "classpath:/schema/create-schema.sql"
+        }
+)
+@Testcontainers
+@SpringBootTest(properties = "repository.delta.margin=200ms")
+public class ModifiedSinceTest {
+    private final AuthorRepository authorRepository;
+    private final BookRepository bookRepository;
+    private final LibraryRepository libraryRepository;
+
+    @Autowired
+    public ModifiedSinceTest(AuthorRepository authorRepository,
+                             BookRepository bookRepository,
+                             LibraryRepository libraryRepository) {
+        this.authorRepository = authorRepository;
+        this.bookRepository = bookRepository;
+        this.libraryRepository = libraryRepository;
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST findModifiedSince - Should return every seeded aggregate from the epoch")
+    @Test
+    void testFindModifiedSinceEpoch() throws InterruptedException {
+        settle();
+        Delta<Author> authors = authorRepository.findModifiedSince(Instant.EPOCH, 100);
+
+        assertEquals(Set.of(1L, 2L, 3L), ids(authors.changed().stream().map(Author::id).toList()));
+        assertEquals(2, authors.changed().stream().filter(a -> a.id() == 1L).findFirst().orElseThrow().books().size());
+        assertTrue(authors.deleted().isEmpty());
+        assertFalse(authors.hasMore());
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST findModifiedSince - Should page through the feed with the returned cursor")
+    @Test
+    void testFindModifiedSincePages() throws InterruptedException {
+        settle();
+        Delta<Book> first = bookRepository.findModifiedSince(Instant.EPOCH, 3);
+        Delta<Book> second = bookRepository.findModifiedSince(first.next(), 3);
+
+        assertEquals(3, first.changed().size());
+        assertTrue(first.hasMore());
+        assertEquals(1, second.changed().size());
+        assertFalse(second.hasMore());
+        assertEquals(Set.of(1L, 2L, 3L, 4L), ids(List.of(
+                first.changed().get(0).id(), first.changed().get(1).id(),
+                first.changed().get(2).id(), second.changed().getFirst().id())));
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST findModifiedSince - Should return an updated author and nothing else")
+    @Test
+    void testUpdatedAuthor() throws InterruptedException {
+        settle();
+        Delta.Cursor authors = end(authorRepository.findModifiedSince(Instant.EPOCH, 100));
+
+        authorRepository.update(2L, new Author(null, "Renamed", "Author", Set.of()));
+        settle();
+
+        Delta<Author> delta = authorRepository.findModifiedSince(authors, 100);
+        assertEquals(List.of("Renamed"), delta.changed().stream().map(Author::firstName).toList());
+        assertTrue(delta.deleted().isEmpty());
+        assertTrue(authorRepository.findModifiedSince(delta.next(), 100).changed().isEmpty());
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST findModifiedSince - Should report a book update on its author and libraries")
+    @Test
+    void testBookUpdateReachesAuthorAndLibraries() throws InterruptedException {
+        settle();
+        Delta.Cursor authors = end(authorRepository.findModifiedSince(Instant.EPOCH, 100));
+        Delta.Cursor libraries = end(libraryRepository.findModifiedSince(Instant.EPOCH, 100));
+
+        bookRepository.update(3L, new Book(null, 2L, "Retitled", LocalDate.of(2001, 1, 1), Set.of()));
+        settle();
+
+        assertEquals(Set.of(2L), ids(authorRepository.findModifiedSince(authors, 100).changed()
+                .stream().map(Author::id).toList()));
+        Delta<Library> libraryDelta = libraryRepository.findModifiedSince(libraries, 100);
+        assertEquals(Set.of(2L), ids(libraryDelta.changed().stream().map(Library::id).toList()));
+        assertTrue(libraryDelta.changed().getFirst().books().stream().anyMatch(b -> b.title().equals("Retitled")));
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST findModifiedSince - Should report linked and unlinked books and their library")
+    @Test
+    void testLinkChanges() throws InterruptedException {
+        settle();
+        Delta.Cursor books = end(bookRepository.findModifiedSince(Instant.EPOCH, 100));
+        Delta.Cursor libraries = end(libraryRepository.findModifiedSince(Instant.EPOCH, 100));
+
+        libraryRepository.addBooks(1L, new long[]{4L});
+        libraryRepository.removeBooks(2L, new long[]{3L});
+        settle();
+
+        Delta<Book> bookDelta = bookRepository.findModifiedSince(books, 100);
+        assertEquals(Set.of(3L, 4L), ids(bookDelta.changed().stream().map(Book::id).toList()));
+        assertTrue(bookDelta.changed().stream().filter(b -> b.id() == 3L).findFirst().orElseThrow()
+                .libraries().isEmpty());
+        assertEquals(Set.of(1L, 2L), ids(libraryRepository.findModifiedSince(libraries, 100).changed()
+                .stream().map(Library::id).toList()));
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST findModifiedSince - Should report the books of a renamed library, not of one updated in place")
+    @Test
+    void testLibraryRenameReachesBooks() throws InterruptedException {
+        settle();
+        Delta.Cursor books = end(bookRepository.findModifiedSince(Instant.EPOCH, 100));
+        Library central = libraryRepository.findById(1L).orElseThrow();
+        Library community = libraryRepository.findById(2L).orElseThrow();
+
+        libraryRepository.update(1L, new Library(1L, "Renamed Library", central.libraryInfo(), Set.of()));
+        libraryRepository.update(2L, new Library(2L, community.name(),
+                new LibraryInfo(2L, "New Address", community.libraryInfo().phone()), Set.of()));
+        settle();
+
+        Delta<Book> bookDelta = bookRepository.findModifiedSince(books, 100);
+        assertEquals(central.books().stream().map(Book::id).collect(Collectors.toSet()),
+                ids(bookDelta.changed().stream().map(Book::id).toList()));
+        assertTrue(bookDelta.changed().stream().allMatch(book -> book.libraries().stream()
+                .anyMatch(library -> library.name().equals("Renamed Library"))));
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST findModifiedSince - Should return tombstones for a deleted author and its books")
+    @Test
+    void testDeletedAuthorLeavesTombstones() throws InterruptedException {
+        settle();
+        Delta.Cursor authors = end(authorRepository.findModifiedSince(Instant.EPOCH, 100));
+        Delta.Cursor books = end(bookRepository.findModifiedSince(Instant.EPOCH, 100));
+        Delta.Cursor libraries = end(libraryRepository.findModifiedSince(Instant.EPOCH, 100));
+
+        assertTrue(authorRepository.delete(1L));
+        settle();
+
+        Delta<Author> authorDelta = authorRepository.findModifiedSince(authors, 100);
+        assertTrue(authorDelta.changed().isEmpty());
+        assertEquals(List.of(1L), authorDelta.deleted());
+
+        Delta<Book> bookDelta = bookRepository.findModifiedSince(books, 100);
+        assertTrue(bookDelta.changed().isEmpty());
+        assertEquals(Set.of(1L, 2L), ids(bookDelta.deleted()));
+
+        // both libraries listed a book of the author
+        Delta<Library> libraryDelta = libraryRepository.findModifiedSince(libraries, 100);
+        assertEquals(Set.of(1L, 2L), ids(libraryDelta.changed().stream().map(Library::id).toList()));
+        assertEquals(Set.of(3L), libraryDelta.changed().stream()
+                .flatMap(library -> library.books().stream())
+                .map(Book::id)
+                .collect(Collectors.toSet()));
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST findModifiedSince - Should hold back writes newer than the margin")
+    @Test
+    void testRecentWritesWaitForMargin() throws InterruptedException {
+        settle();
+        Delta.Cursor authors = end(authorRepository.findModifiedSince(Instant.EPOCH, 100));
+        Delta.Cursor libraries = end(libraryRepository.findModifiedSince(Instant.EPOCH, 100));
+
+        authorRepository.update(2L, new Author(null, "Renamed", "Author", Set.of()));
+        assertTrue(libraryRepository.delete(2L));
+
+        Delta<Author> early = authorRepository.findModifiedSince(authors, 100);
+        assertTrue(early.changed().isEmpty());
+        assertEquals(authors, early.next());
+        assertTrue(libraryRepository.findModifiedSince(libraries, 100).deleted().isEmpty());
+
+        settle();
+        assertEquals(List.of(2L), authorRepository.findModifiedSince(early.next(), 100).changed()
+                .stream().map(Author::id).toList());
+        assertEquals(List.of(2L), libraryRepository.findModifiedSince(libraries, 100).deleted());
+    }
+
+    /**
+     * Waits out repository.delta.margin, so the writes made so far are returned.
+     */
+    private static void settle() throws InterruptedException {
+        Thread.sleep(250);
+    }
+
+    /**
+     * The cursor after a full read, then a pause so the next writes get a later updated_at than
+     * the seed rows.
+     */
+    private static Delta.Cursor end(Delta<?> delta) throws InterruptedException {
+        assertFalse(delta.hasMore());
+        Thread.sleep(5);
+        return delta.next();
+    }
+
+    private static Set<Long> ids(List<Long> ids) {
+        return new HashSet<>(ids);
+    }
+}
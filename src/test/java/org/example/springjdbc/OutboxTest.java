@@ -0,0 +1,279 @@
+package org.example.springjdbc;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.springjdbc.model.Author;
+import org.example.springjdbc.model.Book;
+import org.example.springjdbc.model.Library;
+import org.example.springjdbc.repository.declaration.AuthorRepository;
+import org.example.springjdbc.repository.declaration.LibraryRepository;
+import org.example.springjdbc.repository.outbox.ChangeEvent;
+import org.example.springjdbc.repository.outbox.ChangeListener;
+import org.example.springjdbc.repository.outbox.ChangeType;
+import org.example.springjdbc.repository.outbox.EntityType;
+import org.example.springjdbc.repository.outbox.OutboxPublisher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that repository writes record outbox rows in their transaction and that the publisher
+ * delivers them to the listeners in order. The poller is left idle; each test publishes itself.
+ */
+@ActiveProfiles(value = "test", resolver = EmbeddedProfileResolver.class)
+@Sql(
+        scripts = {
+                "classpath:/schema/drop-schema.sql",
+                "classpath:/schema/create-schema.sql"
+        }
+)
+@Testcontainers
+@SpringBootTest(properties = {
+        "repository.outbox.enabled=true",
+        "repository.outbox.poll-interval=1h",
+        "repository.outbox.gap-timeout=300ms",
+        "repository.outbox.skipped-expiry=1s"
+})
+public class OutboxTest {
+    private final AuthorRepository authorRepository;
+    private final LibraryRepository libraryRepository;
+    private final OutboxPublisher publisher;
+    private final RecordingListener listener;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public OutboxTest(AuthorRepository authorRepository,
+                      LibraryRepository libraryRepository,
+                      OutboxPublisher publisher,
+                      RecordingListener listener,
+                      TransactionTemplate transactionTemplate,
+                      MeterRegistry meterRegistry) {
+        this.authorRepository = authorRepository;
+        this.libraryRepository = libraryRepository;
+        this.publisher = publisher;
+        this.listener = listener;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @TestConfiguration
+    static class ListenerConfiguration {
+        @Bean
+        RecordingListener recordingListener() {
+            return new RecordingListener();
+        }
+    }
+
+    static class RecordingListener implements ChangeListener {
+        final List<ChangeEvent> events = new ArrayList<>();
+        int failures;
+
+        @Override
+        public void onChanges(List<ChangeEvent> batch) {
+            if (failures > 0) {
+                failures--;
+                throw new IllegalStateException("listener failure");
+            }
+            events.addAll(batch);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        publisher.seekToEnd();
+        listener.events.clear();
+        listener.failures = 0;
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST create, update, delete - Should publish one event per write, in order")
+    @Test
+    void testWritesArePublishedInOrder() {
+        Author created = authorRepository.create(new Author(null, "Ursula", "Le Guin", Set.of()));
+        authorRepository.update(created.id(), new Author(null, "Ursula K.", "Le Guin", Set.of()));
+        authorRepository.delete(created.id());
+
+        assertEquals(3, publisher.publishPending());
+        assertEquals(0, publisher.publishPending());
+
+        assertEquals(List.of(ChangeType.CREATED, ChangeType.UPDATED, ChangeType.DELETED),
+                listener.events.stream().map(ChangeEvent::change).toList());
+        assertTrue(listener.events.stream().allMatch(event ->
+                event.entity() == EntityType.AUTHOR && event.entityId() == created.id()));
+        assertTrue(listener.events.get(0).sequence() < listener.events.get(2).sequence());
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST delete - Should record the cascaded books of an author before the author")
+    @Test
+    void testAuthorDeleteRecordsCascadedBooks() {
+        assertTrue(authorRepository.delete(1L));
+
+        publisher.publishPending();
+
+        assertEquals(List.of(
+                        "BOOK 1 DELETED",
+                        "BOOK 2 DELETED",
+                        "AUTHOR 1 DELETED"),
+                describe(listener.events));
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST addBooks - Should record the library and the linked books as updated")
+    @Test
+    void testLinkChangesRecordBothSides() {
+        assertEquals(1, libraryRepository.addBooks(1L, new long[]{3L}));
+        assertEquals(0, libraryRepository.addBooks(1L, new long[]{3L}));
+
+        publisher.publishPending();
+
+        assertEquals(List.of("BOOK 3 UPDATED", "LIBRARY 1 UPDATED"), describe(listener.events));
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST update - Should record the books of a renamed library as updated")
+    @Test
+    void testLibraryRenameRecordsBooks() {
+        Library library = libraryRepository.findById(1L).orElseThrow();
+
+        libraryRepository.update(1L, new Library(1L, "Renamed Library", library.libraryInfo(), Set.of()));
+
+        publisher.publishPending();
+
+        List<String> expected = new ArrayList<>(library.books().stream()
+                .map(Book::id)
+                .sorted()
+                .map(id -> "BOOK " + id + " UPDATED")
+                .toList());
+        expected.add("LIBRARY 1 UPDATED");
+        assertEquals(expected, describe(listener.events));
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST updateAll, deleteAll - Should record only the libraries a batch changed, once each")
+    @Test
+    void testLibraryBatchesRecordAffectedIds() {
+        Library library = libraryRepository.findById(2L).orElseThrow();
+        Library missing = new Library(999L, "Missing", library.libraryInfo(), Set.of());
+
+        assertEquals(1, libraryRepository.updateAll(List.of(library, missing)));
+        assertEquals(1, libraryRepository.deleteAll(List.of(1L, 1L, 999L)));
+
+        publisher.publishPending();
+
+        assertEquals(List.of("LIBRARY 2 UPDATED", "LIBRARY 1 DELETED"), describe(listener.events));
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST publishPending - Should skip a rolled-back write once the gap timeout has passed")
+    @Test
+    void testRolledBackWriteLeavesGap() throws InterruptedException {
+        transactionTemplate.executeWithoutResult(status -> {
+            authorRepository.create(new Author(null, "Rolled", "Back", Set.of()));
+            status.setRollbackOnly();
+        });
+        Author committed = authorRepository.create(new Author(null, "Kept", "Author", Set.of()));
+
+        assertEquals(0, publisher.publishPending());
+        Thread.sleep(400);
+        assertEquals(1, publisher.publishPending());
+
+        assertEquals(List.of("AUTHOR " + committed.id() + " CREATED"), describe(listener.events));
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST publishPending - Should deliver a write that commits after its id was skipped")
+    @Test
+    void testLateCommitIsDeliveredAfterGap() throws InterruptedException {
+        double late = count("outbox.events.late");
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        Thread writer = Thread.ofPlatform().start(() -> transactionTemplate.executeWithoutResult(status -> {
+            authorRepository.create(new Author(null, "Slow", "Writer", Set.of()));
+            inserted.countDown();
+            try {
+                commit.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        inserted.await();
+        Author committed = authorRepository.create(new Author(null, "Fast", "Writer", Set.of()));
+
+        assertEquals(0, publisher.publishPending());
+        Thread.sleep(400);
+        assertEquals(1, publisher.publishPending());
+
+        commit.countDown();
+        writer.join();
+        assertEquals(1, publisher.publishPending());
+        assertEquals(0, publisher.publishPending());
+
+        assertEquals("AUTHOR " + committed.id() + " CREATED", describe(listener.events).getFirst());
+        assertTrue(describe(listener.events).get(1).startsWith("AUTHOR "));
+        assertTrue(listener.events.get(1).sequence() < listener.events.get(0).sequence());
+        assertEquals(late + 1, count("outbox.events.late"));
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST publishPending - Should give up on a skipped id after the skipped expiry and count it")
+    @Test
+    void testSkippedIdExpires() throws InterruptedException {
+        double skipped = count("outbox.ids.skipped");
+        double expired = count("outbox.ids.expired");
+        transactionTemplate.executeWithoutResult(status -> {
+            authorRepository.create(new Author(null, "Rolled", "Back", Set.of()));
+            status.setRollbackOnly();
+        });
+        authorRepository.create(new Author(null, "Kept", "Author", Set.of()));
+
+        publisher.publishPending();
+        Thread.sleep(400);
+        assertEquals(1, publisher.publishPending());
+        assertEquals(skipped + 1, count("outbox.ids.skipped"));
+        assertEquals(expired, count("outbox.ids.expired"));
+
+        Thread.sleep(1100);
+        assertEquals(0, publisher.publishPending());
+        assertEquals(expired + 1, count("outbox.ids.expired"));
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST publishPending - Should deliver a batch again after a listener failed")
+    @Test
+    void testFailedBatchIsRedelivered() {
+        authorRepository.create(new Author(null, "Retried", "Author", Set.of()));
+        listener.failures = 1;
+
+        assertThrows(RuntimeException.class, publisher::publishPending);
+        assertTrue(listener.events.isEmpty());
+
+        assertEquals(1, publisher.publishPending());
+        assertEquals(1, listener.events.size());
+    }
+
+    private double count(String name) {
+        return meterRegistry.counter(name).count();
+    }
+
+    private static List<String> describe(List<ChangeEvent> events) {
+        return events.stream()
+                .map(event -> event.entity() + " " + event.entityId() + " " + event.change())
+                .toList();
+    }
+}
@@ -0,0 +1,140 @@
+package org.example.springjdbc;
+
+import org.example.springjdbc.model.Library;
+import org.example.springjdbc.model.LibraryInfo;
+import org.example.springjdbc.repository.declaration.AuthorRepository;
+import org.example.springjdbc.repository.declaration.LibraryRepository;
+import org.example.springjdbc.repository.routing.DataSourceRouting;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests read/write splitting against two embedded H2 databases standing in for the primary and
+ * the replica. Both hold the same ids with different names, so every read shows its source.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.sql.init.mode=never",
+        "repository.routing.enabled=true",
+        "repository.routing.replica.jdbc-url=jdbc:h2:mem:routing-replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "repository.routing.replica.username=sa",
+        "repository.routing.replica.password="
+})
+public class ReadWriteRoutingTest {
+    private final LibraryRepository libraryRepository;
+    private final AuthorRepository authorRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+
+    @Autowired
+    public ReadWriteRoutingTest(LibraryRepository libraryRepository,
+                                AuthorRepository authorRepository,
+                                TransactionTemplate transactionTemplate,
+                                @Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                @Qualifier("replicaDataSource") DataSource replicaDataSource) {
+        this.libraryRepository = libraryRepository;
+        this.authorRepository = authorRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.primary = new JdbcTemplate(primaryDataSource);
+        this.replica = new JdbcTemplate(replicaDataSource);
+    }
+
+    @BeforeEach
+    void setUp() {
+        seed(primary, "primary");
+        seed(replica, "replica");
+        replica.update("INSERT INTO author (id, first_name, last_name) VALUES (2, 'Replica', 'Only')");
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate, String source) {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+        new ResourceDatabasePopulator(new ClassPathResource("schema/create-schema.sql"))
+                .execute(jdbcTemplate.getDataSource());
+        jdbcTemplate.update("INSERT INTO author (id, first_name, last_name) VALUES (1, 'John', 'Doe')");
+        jdbcTemplate.update("INSERT INTO library (id, name) VALUES (1, ?), (2, ?)",
+                "Central " + source, "East " + source);
+        jdbcTemplate.update("INSERT INTO library_info (id, address, phone) VALUES (1, '1 Main St', '555-0001'), (2, '2 East St', '555-0002')");
+    }
+
+    @DisplayName("TEST findById - Should read from the replica")
+    @Test
+    void testFindByIdReadsReplica() {
+        Optional<Library> library = libraryRepository.findById(1L);
+
+        assertTrue(library.isPresent());
+        assertEquals("Central replica", library.get().name());
+        assertEquals(2, authorRepository.count());
+    }
+
+    @DisplayName("TEST findAllById - Should read from the replica on every fork")
+    @Test
+    void testFindAllByIdReadsReplica() {
+        List<Library> libraries = libraryRepository.findAllById(List.of(1L, 2L));
+
+        assertEquals(List.of("Central replica", "East replica"), libraries.stream().map(Library::name).toList());
+    }
+
+    @DisplayName("TEST update - Should write to the primary only")
+    @Test
+    void testUpdateWritesPrimary() {
+        libraryRepository.update(1L, new Library(1L, "Renamed",
+                new LibraryInfo(1L, "1 Main St", "555-0001"), new HashSet<>()));
+
+        assertEquals("Renamed", primary.queryForObject("SELECT name FROM library WHERE id = 1", String.class));
+        assertEquals("Central replica", replica.queryForObject("SELECT name FROM library WHERE id = 1", String.class));
+        assertEquals("Central replica", libraryRepository.findById(1L).orElseThrow().name());
+    }
+
+    @DisplayName("TEST readYourWrites - Should read from the primary inside the scope")
+    @Test
+    void testReadYourWritesReadsPrimary() {
+        libraryRepository.update(1L, new Library(1L, "Renamed",
+                new LibraryInfo(1L, "1 Main St", "555-0001"), new HashSet<>()));
+
+        Library library = DataSourceRouting.readYourWrites(() -> libraryRepository.findById(1L).orElseThrow());
+
+        assertEquals("Renamed", library.name());
+        assertEquals(List.of("Renamed", "East primary"), DataSourceRouting.readYourWrites(() ->
+                libraryRepository.findAllById(List.of(1L, 2L)).stream().map(Library::name).toList()));
+        assertEquals(1, DataSourceRouting.readYourWrites(authorRepository::count));
+    }
+
+    @DisplayName("TEST transaction - Should read from the primary inside a read-write transaction")
+    @Test
+    void testReadsInWriteTransactionUsePrimary() {
+        String name = transactionTemplate.execute(status -> {
+            libraryRepository.update(1L, new Library(1L, "Renamed",
+                    new LibraryInfo(1L, "1 Main St", "555-0001"), new HashSet<>()));
+            return libraryRepository.findById(1L).orElseThrow().name();
+        });
+
+        assertEquals("Renamed", name);
+    }
+
+    @DisplayName("TEST transaction - Should read from the replica inside a read-only transaction")
+    @Test
+    void testReadOnlyTransactionUsesReplica() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnly.setReadOnly(true);
+
+        assertEquals(Long.valueOf(2), readOnly.execute(status -> authorRepository.count()));
+    }
+}
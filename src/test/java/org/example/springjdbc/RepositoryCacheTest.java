@@ -0,0 +1,188 @@
+package org.example.springjdbc;
+
+import org.example.springjdbc.model.Book;
+import org.example.springjdbc.model.Library;
+import org.example.springjdbc.model.LibraryInfo;
+import org.example.springjdbc.repository.cache.RepositoryCaches;
+import org.example.springjdbc.repository.declaration.AuthorRepository;
+import org.example.springjdbc.repository.declaration.BookRepository;
+import org.example.springjdbc.repository.declaration.LibraryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the caching repository decorators: hits are served from memory and writes evict
+ * every cached aggregate that embeds the changed entity.
+ */
+@ActiveProfiles(value = "test", resolver = EmbeddedProfileResolver.class)
+@Sql(
+        scripts = {
+                "classpath:/schema/drop-schema.sql",
+                "classpath:/schema/create-schema.sql"
+        }
+)
+@Testcontainers
+@SpringBootTest(properties = "repository.cache.enabled=true")
+public class RepositoryCacheTest {
+    private final AuthorRepository authorRepository;
+    private final BookRepository bookRepository;
+    private final LibraryRepository libraryRepository;
+    private final RepositoryCaches repositoryCaches;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public RepositoryCacheTest(AuthorRepository authorRepository,
+                               BookRepository bookRepository,
+                               LibraryRepository libraryRepository,
+                               RepositoryCaches repositoryCaches,
+                               TransactionTemplate transactionTemplate) {
+        this.authorRepository = authorRepository;
+        this.bookRepository = bookRepository;
+        this.libraryRepository = libraryRepository;
+        this.repositoryCaches = repositoryCaches;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @BeforeEach
+    void setUp() {
+        repositoryCaches.invalidateAll();
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST findByIdWithAssociations - Second read should be a cache hit")
+    @Test
+    void testReadThrough() {
+        long hitsBefore = repositoryCaches.stats().get("authorsWithBooks").hitCount();
+
+        var first = authorRepository.findByIdWithAssociations(1L);
+        var second = authorRepository.findByIdWithAssociations(1L);
+
+        assertEquals(first, second);
+        assertEquals(hitsBefore + 1, repositoryCaches.stats().get("authorsWithBooks").hitCount());
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST existsById - Should not count as a cache request")
+    @Test
+    void testExistsByIdKeepsStats() {
+        long requestsBefore = repositoryCaches.stats().get("libraries").requestCount();
+
+        assertTrue(libraryRepository.existsById(1L));
+        assertFalse(libraryRepository.existsById(999L));
+
+        assertEquals(requestsBefore, repositoryCaches.stats().get("libraries").requestCount());
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST update Book - Should evict the author's and libraries' aggregates")
+    @Test
+    void testBookUpdateEvictsReverseAssociations() {
+        authorRepository.findByIdWithAssociations(1L);
+        libraryRepository.findById(1L);
+        bookRepository.findByIdWithAssociations(1L);
+
+        bookRepository.update(1L, new Book(1L, 1L, "Renamed Book", LocalDate.of(2023, 1, 15), Set.of()));
+
+        assertTrue(authorRepository.findByIdWithAssociations(1L).orElseThrow().books().stream()
+                .anyMatch(book -> "Renamed Book".equals(book.title())));
+        assertTrue(libraryRepository.findById(1L).orElseThrow().books().stream()
+                .anyMatch(book -> "Renamed Book".equals(book.title())));
+        assertEquals("Renamed Book", bookRepository.findByIdWithAssociations(1L).orElseThrow().title());
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST update Library - Should evict books listing the library")
+    @Test
+    void testLibraryUpdateEvictsBooks() {
+        bookRepository.findByIdWithAssociations(2L);
+
+        libraryRepository.update(2L, new Library(2L, "Renamed Library", new LibraryInfo(2L, "456 Elm St", "555-5678"), Set.of()));
+
+        assertTrue(bookRepository.findByIdWithAssociations(2L).orElseThrow().libraries().stream()
+                .anyMatch(library -> "Renamed Library".equals(library.name())));
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST update Library - Read before commit should not keep the old row cached")
+    @Test
+    void testUpdateEvictsAgainAfterCommit() {
+        transactionTemplate.executeWithoutResult(status -> {
+            libraryRepository.update(2L, new Library(2L, "Renamed Library", new LibraryInfo(2L, "456 Elm St", "555-5678"), Set.of()));
+            // another connection still sees the uncommitted row's old version and caches it
+            assertEquals("Community Library",
+                    CompletableFuture.supplyAsync(() -> libraryRepository.findById(2L).orElseThrow().name()).join());
+        });
+
+        assertEquals("Renamed Library", libraryRepository.findById(2L).orElseThrow().name());
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST delete Author - Should evict the author and its cascaded books")
+    @Test
+    void testAuthorDeleteEvictsBooks() {
+        bookRepository.findByIdWithAssociations(3L);
+        authorRepository.findByIdWithoutAssociations(2L);
+
+        assertTrue(authorRepository.delete(2L));
+
+        assertTrue(authorRepository.findByIdWithoutAssociations(2L).isEmpty());
+        assertTrue(bookRepository.findByIdWithAssociations(3L).isEmpty());
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST delete Author - Should evict cached libraries listing its books without reading the author")
+    @Test
+    void testAuthorDeleteEvictsLibraries() {
+        long authorReadsBefore = repositoryCaches.stats().get("authorsWithBooks").requestCount();
+        assertTrue(libraryRepository.findById(2L).orElseThrow().books().stream().anyMatch(book -> book.id() == 3L));
+
+        assertTrue(authorRepository.delete(2L));
+
+        assertTrue(libraryRepository.findById(2L).orElseThrow().books().stream().noneMatch(book -> book.id() == 3L));
+        assertEquals(authorReadsBefore, repositoryCaches.stats().get("authorsWithBooks").requestCount());
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST replaceBooks - Should evict unlinked and newly linked books only")
+    @Test
+    void testReplaceBooksEvictsAffectedBooks() {
+        bookRepository.findByIdWithAssociations(1L);
+        bookRepository.findByIdWithAssociations(3L);
+        bookRepository.findByIdWithAssociations(4L);
+
+        libraryRepository.replaceBooks(1L, new long[]{2L, 4L});
+
+        assertTrue(bookRepository.findByIdWithAssociations(1L).orElseThrow().libraries().isEmpty());
+        assertTrue(bookRepository.findByIdWithAssociations(4L).orElseThrow().libraries().stream()
+                .anyMatch(library -> library.id() == 1L));
+        long hitsBefore = repositoryCaches.stats().get("booksWithLibraries").hitCount();
+        bookRepository.findByIdWithAssociations(3L);
+        assertEquals(hitsBefore + 1, repositoryCaches.stats().get("booksWithLibraries").hitCount());
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST upsertAll Book - Missing id should surface the repository's IllegalArgumentException")
+    @Test
+    void testUpsertAllWithoutIdKeepsException() {
+        List<Book> books = List.of(
+                new Book(1L, 1L, "Renamed Book", LocalDate.of(2023, 1, 15), Set.of()),
+                new Book(null, 1L, "No Id", LocalDate.of(2023, 1, 15), Set.of())
+        );
+
+        assertThrows(IllegalArgumentException.class, () -> bookRepository.upsertAll(books));
+    }
+}
@@ -0,0 +1,121 @@
+package org.example.springjdbc;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.springjdbc.model.Book;
+import org.example.springjdbc.model.Library;
+import org.example.springjdbc.model.LibraryInfo;
+import org.example.springjdbc.repository.declaration.AuthorRepository;
+import org.example.springjdbc.repository.declaration.BookRepository;
+import org.example.springjdbc.repository.declaration.LibraryRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that repository statements are recorded under their repository, operation and
+ * QueryStatements constant name.
+ */
+@ActiveProfiles(value = "test", resolver = EmbeddedProfileResolver.class)
+@Sql(
+        scripts = {
+                "classpath:/schema/drop-schema.sql",
+                "classpath:/schema/create-schema.sql"
+        }
+)
+@Testcontainers
+@SpringBootTest
+public class RepositoryMetricsTest {
+    private final AuthorRepository authorRepository;
+    private final BookRepository bookRepository;
+    private final LibraryRepository libraryRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public RepositoryMetricsTest(AuthorRepository authorRepository,
+                                 BookRepository bookRepository,
+                                 LibraryRepository libraryRepository,
+                                 MeterRegistry meterRegistry) {
+        this.authorRepository = authorRepository;
+        this.bookRepository = bookRepository;
+        this.libraryRepository = libraryRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST findAll - Should record the join rows read and the authors mapped")
+    @Test
+    void testFindAllRecordsRowsAndAggregates() {
+        long calls = timerCount("author", "findAll", "ALL_SELECT");
+        double rows = summaryTotal("repository.query.rows", "author", "findAll", "ALL_SELECT");
+        double aggregates = summaryTotal("repository.query.aggregates", "author", "findAll", "ALL_SELECT");
+
+        assertEquals(3, authorRepository.findAll().size());
+
+        assertEquals(calls + 1, timerCount("author", "findAll", "ALL_SELECT"));
+        assertEquals(rows + 4, summaryTotal("repository.query.rows", "author", "findAll", "ALL_SELECT"));
+        assertEquals(aggregates + 3,
+                summaryTotal("repository.query.aggregates", "author", "findAll", "ALL_SELECT"));
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST create - Should record each statement of a library insert separately")
+    @Test
+    void testCreateRecordsEveryStatement() {
+        long libraryCalls = timerCount("library", "create", "INSERT_LIBRARY");
+        long infoCalls = timerCount("library", "create", "INSERT_LIBRARY_INFO");
+
+        libraryRepository.create(new Library(null, "Metered Library",
+                new LibraryInfo(null, "1 Meter St", "555-0000"), new HashSet<>()));
+
+        assertEquals(libraryCalls + 1, timerCount("library", "create", "INSERT_LIBRARY"));
+        assertEquals(infoCalls + 1, timerCount("library", "create", "INSERT_LIBRARY_INFO"));
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST create - Should count a failed statement as an error")
+    @Test
+    void testFailureIncrementsErrorCounter() {
+        double errors = errorCount("book", "create", "INSERT_BOOK");
+
+        assertThrows(RuntimeException.class, () ->
+                bookRepository.create(new Book(null, 999L, "Orphan", LocalDate.now(), Set.of())));
+
+        assertEquals(errors + 1, errorCount("book", "create", "INSERT_BOOK"));
+    }
+
+    private long timerCount(String repository, String operation, String query) {
+        Timer timer = meterRegistry.find("repository.query")
+                .tags("repository", repository, "operation", operation, "query", query)
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private double summaryTotal(String name, String repository, String operation, String query) {
+        DistributionSummary summary = meterRegistry.find(name)
+                .tags("repository", repository, "operation", operation, "query", query)
+                .summary();
+        return summary == null ? 0 : summary.totalAmount();
+    }
+
+    private double errorCount(String repository, String operation, String query) {
+        return meterRegistry.find("repository.query.errors")
+                .tags("repository", repository, "operation", operation, "query", query)
+                .counters()
+                .stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
+}
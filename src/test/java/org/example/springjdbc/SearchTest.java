@@ -0,0 +1,116 @@
+package org.example.springjdbc;
+
+import org.example.springjdbc.model.Author;
+import org.example.springjdbc.model.Book;
+import org.example.springjdbc.model.Library;
+import org.example.springjdbc.repository.declaration.AuthorRepository;
+import org.example.springjdbc.repository.declaration.BookRepository;
+import org.example.springjdbc.repository.declaration.LibraryRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the prefix search of the repositories, the portable mode used unless
+ * repository.search.full-text is set. Results are capped at two to cover the bound.
+ */
+@ActiveProfiles(value = "test", resolver = EmbeddedProfileResolver.class)
+@Sql(
+        scripts = {
+                "classpath:/schema/drop-schema.sql",
+                "classpath:/schema/create-schema.sql"
+        }
+)
+@Testcontainers
+@SpringBootTest(properties = "repository.search.max-results=2")
+public class SearchTest {
+    private final AuthorRepository authorRepository;
+    private final BookRepository bookRepository;
+    private final LibraryRepository libraryRepository;
+
+    @Autowired
+    public SearchTest(AuthorRepository authorRepository,
+                      BookRepository bookRepository,
+                      LibraryRepository libraryRepository) {
+        this.authorRepository = authorRepository;
+        this.bookRepository = bookRepository;
+        this.libraryRepository = libraryRepository;
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST searchBooksByTitle - Should return matching books by title, with their libraries")
+    @Test
+    void testSearchBooksByTitle() {
+        List<Book> books = bookRepository.searchBooksByTitle("book", 10);
+
+        assertEquals(List.of("Book One by John", "Book Two by John"), books.stream().map(Book::title).toList());
+        assertEquals(2, books.get(1).libraries().size());
+        assertEquals(List.of(3L), bookRepository.searchBooksByTitle("Jane's", 10).stream().map(Book::id).toList());
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST searchBooksByTitle - Should match LIKE wildcards in the prefix literally")
+    @Test
+    void testSearchBooksByTitleEscapesWildcards() {
+        bookRepository.create(new Book(null, 1L, "100% Pure", LocalDate.of(2020, 1, 1), Set.of()));
+        bookRepository.create(new Book(null, 1L, "1000 Years", LocalDate.of(2020, 1, 1), Set.of()));
+        bookRepository.create(new Book(null, 1L, "A_B", LocalDate.of(2020, 1, 1), Set.of()));
+        bookRepository.create(new Book(null, 1L, "ABC", LocalDate.of(2020, 1, 1), Set.of()));
+
+        assertEquals(List.of("100% Pure"), titles(bookRepository.searchBooksByTitle("100%", 10)));
+        assertEquals(List.of("A_B"), titles(bookRepository.searchBooksByTitle("A_", 10)));
+        assertTrue(bookRepository.searchBooksByTitle("%", 10).isEmpty());
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST searchAuthorsByName - Should match first or last name, ordered by last name and capped")
+    @Test
+    void testSearchAuthorsByName() {
+        // Doe John, Johnson Emily and Smith Jane all match; max-results keeps the first two
+        List<Author> authors = authorRepository.searchAuthorsByName("j", 10);
+
+        assertEquals(List.of(1L, 3L), authors.stream().map(Author::id).toList());
+        assertEquals(2, authors.getFirst().books().size());
+        assertEquals(List.of(2L), authorRepository.searchAuthorsByName("Smi", 10).stream().map(Author::id).toList());
+        assertEquals(List.of(1L), authorRepository.searchAuthorsByName("J", 1).stream().map(Author::id).toList());
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST searchLibrariesByName - Should match a name prefix, not a word inside the name")
+    @Test
+    void testSearchLibrariesByName() {
+        List<Library> libraries = libraryRepository.searchLibrariesByName("Com", 10);
+
+        assertEquals(List.of("Community Library"), libraries.stream().map(Library::name).toList());
+        assertEquals(2, libraries.getFirst().books().size());
+        assertTrue(libraryRepository.searchLibrariesByName("Library", 10).isEmpty());
+        assertEquals(List.of("Central Library", "Community Library"),
+                libraryRepository.searchLibrariesByName("C", 10).stream().map(Library::name).toList());
+    }
+
+    @SqlSetupAuthorBook
+    @DisplayName("TEST search - Should return nothing for a null or blank prefix or a limit below one")
+    @Test
+    void testSearchWithoutPrefixOrLimit() {
+        assertTrue(bookRepository.searchBooksByTitle(" ", 10).isEmpty());
+        assertTrue(authorRepository.searchAuthorsByName("", 10).isEmpty());
+        assertTrue(libraryRepository.searchLibrariesByName("Central", 0).isEmpty());
+        assertTrue(bookRepository.searchBooksByTitle(null, 10).isEmpty());
+        assertTrue(authorRepository.searchAuthorsByName(null, 10).isEmpty());
+        assertTrue(libraryRepository.searchLibrariesByName(null, 10).isEmpty());
+    }
+
+    private static List<String> titles(List<Book> books) {
+        return books.stream().map(Book::title).toList();
+    }
+}
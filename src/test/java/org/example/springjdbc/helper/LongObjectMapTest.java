@@ -0,0 +1,128 @@
+package org.example.springjdbc.helper;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests LongObjectMap directly, including the probe and grow paths the repositories rarely hit.
+ */
+public class LongObjectMapTest {
+
+    @DisplayName("TEST put - Should return null for a new key and the old value when overwriting")
+    @Test
+    void testPutOverwrite() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+
+        assertNull(map.put(7L, "first"));
+        assertEquals("first", map.put(7L, "second"));
+
+        assertEquals("second", map.get(7L));
+        assertEquals(1, map.size());
+        assertEquals(List.of("second"), map.values());
+    }
+
+    @DisplayName("TEST get - Should return null for a missing key and keep null values apart")
+    @Test
+    void testMissingKeyAndNullValue() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1L));
+        assertFalse(map.containsKey(1L));
+
+        map.put(1L, null);
+
+        assertNull(map.get(1L));
+        assertTrue(map.containsKey(1L));
+        assertFalse(map.isEmpty());
+    }
+
+    @DisplayName("TEST put - Should handle zero, negative and extreme keys")
+    @Test
+    void testEdgeKeys() {
+        long[] keys = {0L, -1L, 1L, Long.MIN_VALUE, Long.MAX_VALUE, -42L};
+        LongObjectMap<Long> map = new LongObjectMap<>();
+        for (long key : keys) {
+            map.put(key, key);
+        }
+
+        assertEquals(keys.length, map.size());
+        for (long key : keys) {
+            assertEquals(key, map.get(key));
+        }
+        assertFalse(map.containsKey(2L));
+    }
+
+    @DisplayName("TEST put - Should keep keys hashing to the same slot apart")
+    @Test
+    void testCollidingKeys() {
+        LongObjectMap<Long> map = new LongObjectMap<>();
+        long[] colliding = collidingKeys(5, LongObjectMap.tableSize(16));
+
+        for (long key : colliding) {
+            assertNull(map.put(key, -key));
+        }
+
+        assertEquals(colliding.length, map.size());
+        for (long key : colliding) {
+            assertEquals(-key, map.get(key));
+        }
+        assertEquals(-colliding[2], map.put(colliding[2], colliding[2]));
+        assertEquals(colliding[2], map.get(colliding[2]));
+    }
+
+    @DisplayName("TEST put - Should grow past its capacity and keep every entry in insertion order")
+    @Test
+    void testGrowth() {
+        LongObjectMap<Long> map = new LongObjectMap<>();
+        List<Long> inserted = new ArrayList<>();
+        // descending and negative, so insertion order differs from key order
+        for (long key = 5_000; key > -5_000; key -= 3) {
+            map.put(key, key * 10);
+            inserted.add(key * 10);
+        }
+
+        assertEquals(inserted.size(), map.size());
+        assertEquals(inserted, map.values());
+        for (long key = 5_000; key > -5_000; key -= 3) {
+            assertEquals(key * 10, map.get(key));
+        }
+        assertFalse(map.containsKey(4_999L));
+
+        assertEquals(50_000L, map.put(5_000L, 1L));
+        assertEquals(inserted.size(), map.size());
+        assertEquals(1L, map.values().getFirst());
+    }
+
+    @DisplayName("TEST values - Should be a read-only view that follows later puts")
+    @Test
+    void testValuesView() {
+        LongObjectMap<String> map = new LongObjectMap<>(1);
+        List<String> values = map.values();
+
+        map.put(3L, "c");
+        map.put(1L, "a");
+        map.put(2L, "b");
+
+        assertEquals(List.of("c", "a", "b"), values);
+        assertThrows(IndexOutOfBoundsException.class, () -> values.get(3));
+        assertThrows(UnsupportedOperationException.class, () -> values.set(0, "x"));
+    }
+
+    /**
+     * Distinct keys whose hashes land in the same slot of a table of the given size.
+     */
+    static long[] collidingKeys(int count, int tableSize) {
+        int mask = tableSize - 1;
+        int target = LongObjectMap.hash(1L) & mask;
+        return LongStream.iterate(1L, key -> key + 1)
+                .filter(key -> (LongObjectMap.hash(key) & mask) == target)
+                .limit(count)
+                .toArray();
+    }
+}
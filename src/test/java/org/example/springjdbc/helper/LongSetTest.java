@@ -0,0 +1,88 @@
+package org.example.springjdbc.helper;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests LongSet directly, including 0, which it tracks outside the table, and the rehash path.
+ */
+public class LongSetTest {
+
+    @DisplayName("TEST add - Should report whether the value was new")
+    @Test
+    void testAdd() {
+        LongSet set = new LongSet();
+
+        assertTrue(set.add(5L));
+        assertFalse(set.add(5L));
+
+        assertTrue(set.contains(5L));
+        assertFalse(set.contains(6L));
+        assertEquals(1, set.size());
+    }
+
+    @DisplayName("TEST add - Should track 0 apart from the empty slots")
+    @Test
+    void testZero() {
+        LongSet set = new LongSet();
+        assertFalse(set.contains(0L));
+
+        assertTrue(set.add(0L));
+        assertFalse(set.add(0L));
+        assertTrue(set.add(1L));
+
+        assertTrue(set.contains(0L));
+        assertTrue(set.contains(1L));
+        assertEquals(2, set.size());
+    }
+
+    @DisplayName("TEST add - Should handle negative and extreme values")
+    @Test
+    void testEdgeValues() {
+        long[] values = {-1L, Long.MIN_VALUE, Long.MAX_VALUE, -42L};
+        LongSet set = new LongSet();
+        for (long value : values) {
+            assertTrue(set.add(value));
+        }
+
+        for (long value : values) {
+            assertTrue(set.contains(value));
+            assertFalse(set.add(value));
+        }
+        assertFalse(set.contains(42L));
+        assertEquals(values.length, set.size());
+    }
+
+    @DisplayName("TEST add - Should keep values hashing to the same slot apart")
+    @Test
+    void testCollidingValues() {
+        LongSet set = new LongSet();
+        long[] colliding = LongObjectMapTest.collidingKeys(3, LongObjectMap.tableSize(4));
+
+        for (long value : colliding) {
+            assertTrue(set.add(value));
+        }
+
+        for (long value : colliding) {
+            assertTrue(set.contains(value));
+            assertFalse(set.add(value));
+        }
+        assertEquals(colliding.length, set.size());
+    }
+
+    @DisplayName("TEST add - Should rehash as it grows and keep every value")
+    @Test
+    void testGrowth() {
+        LongSet set = new LongSet(1);
+        for (long value = -5_000; value < 5_000; value += 2) {
+            assertTrue(set.add(value));
+        }
+
+        assertEquals(5_000, set.size());
+        for (long value = -5_000; value < 5_000; value++) {
+            assertEquals(value % 2 == 0, set.contains(value));
+        }
+    }
+}
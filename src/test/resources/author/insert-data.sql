@@ -8,8 +8,8 @@ INSERT INTO book (id, author_id, title, release_date)
 VALUES
     (1, 1, 'Book One by John', '2023-01-15'),
     (2, 1, 'Book Two by John', '2023-03-10'),
-    (3, 2, 'Jane\'s Journey', '2022-05-22'),
-    (4, 3, 'Emily\'s Adventures', '2021-12-05');
+    (3, 2, 'Jane''s Journey', '2022-05-22'),
+    (4, 3, 'Emily''s Adventures', '2021-12-05');
 
 INSERT INTO library (id, name)
 VALUES
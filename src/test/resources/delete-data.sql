@@ -3,8 +3,11 @@ delete from library_info;
 delete from book;
 delete from library;
 delete from author;
+delete from outbox;
+delete from tombstone;
 
 alter table author AUTO_INCREMENT = 1;
 alter table book AUTO_INCREMENT = 1;
 alter table library AUTO_INCREMENT = 1;
-alter table library_info AUTO_INCREMENT = 1;
\ No newline at end of file
+alter table outbox AUTO_INCREMENT = 1;
+alter table tombstone AUTO_INCREMENT = 1;
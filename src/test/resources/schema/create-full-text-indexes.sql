@@ -0,0 +1,9 @@
+-- MySQL only, for repository.search.full-text; H2 has no FULLTEXT indexes
+create fulltext index author_name_full_text
+    on author (first_name, last_name);
+
+create fulltext index book_title_full_text
+    on book (title);
+
+create fulltext index library_name_full_text
+    on library (name);
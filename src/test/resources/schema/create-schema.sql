@@ -3,9 +3,20 @@ create table author
     id         bigint auto_increment
         primary key,
     first_name varchar(100) not null,
-    last_name  varchar(100) not null
+    last_name  varchar(100) not null,
+    version    bigint       not null default 0,
+    updated_at datetime(3)  not null default current_timestamp(3) on update current_timestamp(3)
 );
 
+create index author_updated_at
+    on author (updated_at, id);
+
+create index author_last_name
+    on author (last_name, first_name);
+
+create index author_first_name
+    on author (first_name, last_name);
+
 create table book
 (
     id           bigint auto_increment
@@ -13,6 +24,8 @@ create table book
     author_id    bigint       not null,
     title        varchar(255) not null,
     release_date date         null,
+    version      bigint       not null default 0,
+    updated_at   datetime(3)  not null default current_timestamp(3) on update current_timestamp(3),
     constraint book_ibfk_1
         foreign key (author_id) references author (id)
             on delete cascade
@@ -21,14 +34,28 @@ create table book
 create index author_id
     on book (author_id);
 
+create index book_updated_at
+    on book (updated_at, id);
+
+create index book_title
+    on book (title);
+
 
 create table library
 (
     id   bigint       not null auto_increment
         primary key,
-    name varchar(255) not null
+    name       varchar(255) not null,
+    version    bigint       not null default 0,
+    updated_at datetime(3)  not null default current_timestamp(3) on update current_timestamp(3)
 );
 
+create index library_updated_at
+    on library (updated_at, id);
+
+create index library_name
+    on library (name);
+
 create table library_info
 (
     id              bigint       not null
@@ -41,8 +68,9 @@ create table library_info
 
 create table library_book
 (
-    library_id bigint not null,
-    book_id    bigint not null,
+    library_id bigint      not null,
+    book_id    bigint      not null,
+    updated_at datetime(3) not null default current_timestamp(3),
     primary key (library_id, book_id),
     constraint fk_library_book_book
         foreign key (book_id) references book (id)
@@ -52,5 +80,28 @@ create table library_book
             on delete cascade
 );
 
+create index library_book_updated_at
+    on library_book (updated_at, book_id);
 
+create table tombstone
+(
+    id         bigint      not null auto_increment
+        primary key,
+    entity     varchar(16) not null,
+    entity_id  bigint      not null,
+    deleted_at datetime(3) not null default current_timestamp(3)
+);
+
+create index tombstone_entity_deleted_at
+    on tombstone (entity, deleted_at, entity_id);
+
+create table outbox
+(
+    id          bigint      not null auto_increment
+        primary key,
+    entity      varchar(16) not null,
+    entity_id   bigint      not null,
+    change_type varchar(16) not null,
+    created_at  datetime(3) not null
+);
 
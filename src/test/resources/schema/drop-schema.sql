@@ -10,3 +10,5 @@ DROP TABLE IF EXISTS library_book;
 DROP TABLE IF EXISTS library;
 DROP TABLE IF EXISTS book;
 DROP TABLE IF EXISTS author;
+DROP TABLE IF EXISTS outbox;
+DROP TABLE IF EXISTS tombstone;